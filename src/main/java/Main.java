@@ -1,17 +1,51 @@
 
 
 import commands.CommandHandler;
+import helpers.NetworkJournal;
 import model.Network;
+import server.CommandServer;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Scanner;
 
 /**
  * Main class of the program.
  * This class is used to start the program and handle the user input.
  * The program will run until the user types "quit".
+ * With {@code --server <port>} or {@code --socket <path>} the program instead serves clients over a local socket.
+ * With {@code --script <file>} the commands are run as a batch with buffered output, reading the standard input
+ * for {@code --script -}. Otherwise every response is printed as soon as it is ready, also when the input is piped.
+ * With a leading {@code --journal <dir>} the network is recovered from the journal in that directory,
+ * and every later change is recorded there.
  */
 public final class Main {
     private static final String QUIT = "quit";
+    private static final String SERVER_OPTION = "--server";
+    private static final String SOCKET_OPTION = "--socket";
+    private static final String SCRIPT_OPTION = "--script";
+    private static final String STANDARD_INPUT = "-";
+    private static final String JOURNAL_OPTION = "--journal";
+    private static final String START_MESSAGE = "Sim started. Enter commands or type 'quit' to exit.";
+    private static final String SERVER_STARTED = "Sim server listening on %s%n";
+    private static final String BATCH_SUMMARY = "Processed %d commands in %d ms (%d commands/s)%n";
+    private static final String ERROR_USAGE =
+        "Error, Usage: [--journal <dir>] [--server <port> | --socket <path> | --script <file> | --script -]";
+    private static final String ERROR_SERVER = "Error, Could not start server: ";
+    private static final String ERROR_SCRIPT = "Error, Could not read script: ";
+    private static final String ERROR_JOURNAL = "Error, Could not open journal: ";
+    private static final int MAX_PORT = 65535;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
 
     private Main() {
         // private constructor to hide the implicit public one.
@@ -22,13 +56,32 @@ private Main() {
      * @param args the command line arguments.
      */
     public static void main(String[] args) {
-        System.out.println("Sim started. Enter commands or type 'quit' to exit.");
         Network network = new Network();
+        if (args.length >= 2 && args[0].equals(JOURNAL_OPTION)) {
+            if (!openJournal(network, Path.of(args[1]))) {
+                return;
+            }
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
+        if (args.length == 2 && args[0].equals(SCRIPT_OPTION) && args[1].equals(STANDARD_INPUT)) {
+            runBatch(network,
+                new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), BUFFER_SIZE));
+            return;
+        }
+        if (args.length == 2 && args[0].equals(SCRIPT_OPTION)) {
+            runScript(network, Path.of(args[1]));
+            return;
+        }
+        if (args.length > 0) {
+            runServer(network, args);
+            return;
+        }
+        System.out.println(START_MESSAGE);
         CommandHandler commandHandler = new CommandHandler(network);
         Scanner scanner = new Scanner(System.in);
 
         boolean isRunning = true;
-        while (isRunning) {
+        while (isRunning && scanner.hasNextLine()) {
             String input = scanner.nextLine().trim();
             String response = commandHandler.handleCommand(input);
 
@@ -40,6 +93,25 @@ public static void main(String[] args) {
         }
 
         scanner.close();
+        network.rollback();
+    }
+
+    /**
+     * Recovers the network from the journal in the given directory and records all later changes there.
+     * The journal is closed when the program exits, also when the server is terminated.
+     * @param network the network to recover.
+     * @param directory the directory of the journal.
+     * @return true if the journal was opened, false after printing an error.
+     */
+    private static boolean openJournal(Network network, Path directory) {
+        try {
+            NetworkJournal journal = NetworkJournal.open(directory, network);
+            Runtime.getRuntime().addShutdownHook(new Thread(journal::close));
+            return true;
+        } catch (IOException e) {
+            System.out.println(ERROR_JOURNAL + e.getMessage());
+            return false;
+        }
     }
 
     /**
@@ -51,4 +123,101 @@ private static void printOutput(String output) {
             System.out.println(output);
         }
     }
+
+    /**
+     * Writes the output to the given writer if it's not null or empty.
+     * @param out the writer to write to
+     * @param output the output to write
+     */
+    private static void printOutput(PrintWriter out, String output) {
+        if (output != null && !output.isEmpty()) {
+            out.println(output);
+        }
+    }
+
+    /**
+     * Runs the commands of the given script file as a batch.
+     * @param network the network to run the commands on.
+     * @param script the path to the script file.
+     */
+    private static void runScript(Network network, Path script) {
+        try (BufferedReader reader = Files.newBufferedReader(script, StandardCharsets.UTF_8)) {
+            runBatch(network, reader);
+        } catch (IOException e) {
+            System.out.println(ERROR_SCRIPT + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs all commands from the reader until "quit" or the end of the input.
+     * A transaction that is still open then is rolled back.
+     * The responses go through a local buffer on the standard output that is only flushed when full and at the end,
+     * and the throughput is reported on the error stream afterwards.
+     * @param network the network to run the commands on.
+     * @param reader the reader to read the commands from.
+     */
+    private static void runBatch(Network network, BufferedReader reader) {
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8),
+            BUFFER_SIZE));
+        CommandHandler commandHandler = new CommandHandler(network);
+        long commandCount = 0;
+        long start = System.nanoTime();
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String input = line.trim();
+                printOutput(out, commandHandler.handleCommand(input));
+                commandCount++;
+                if (input.equalsIgnoreCase(QUIT)) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            out.println(ERROR_SCRIPT + e.getMessage());
+        } finally {
+            // A transaction left open by the input is discarded, like one of a client that disconnects.
+            network.rollback();
+            out.flush();
+        }
+        long elapsed = Math.max(System.nanoTime() - start, 1);
+        System.err.printf(BATCH_SUMMARY, commandCount, elapsed / NANOS_PER_MILLI,
+            commandCount * NANOS_PER_SECOND / elapsed);
+    }
+
+    /**
+     * Runs the socket server described by the command line arguments until the process is terminated.
+     * @param network the network shared by all clients.
+     * @param args the command line arguments.
+     */
+    private static void runServer(Network network, String[] args) {
+        try (CommandServer server = openServer(network, args)) {
+            if (server == null) {
+                System.out.println(ERROR_USAGE);
+                return;
+            }
+            System.out.printf(SERVER_STARTED, server.getAddress());
+            server.serve();
+        } catch (IOException e) {
+            System.out.println(ERROR_SERVER + e.getMessage());
+        }
+    }
+
+    // Opens the server requested by the arguments, or returns null if the arguments are invalid.
+    private static CommandServer openServer(Network network, String[] args) throws IOException {
+        if (args.length != 2) {
+            return null;
+        }
+        if (args[0].equals(SOCKET_OPTION)) {
+            return CommandServer.openUnix(network, Path.of(args[1]));
+        }
+        if (args[0].equals(SERVER_OPTION)) {
+            try {
+                int port = Integer.parseInt(args[1]);
+                return port < 0 || port > MAX_PORT ? null : CommandServer.openTcp(network, port);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
 }
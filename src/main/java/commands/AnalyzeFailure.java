@@ -0,0 +1,98 @@
+package commands;
+
+import helpers.FailureAnalysis;
+import model.Connection;
+import model.Network;
+import model.NetworkSnapshot;
+import model.Router;
+import model.SystemNode;
+
+import java.util.List;
+
+/**
+ * This class represents the analyze failure command.
+ * It reports which pairs of systems would lose their path or get a longer one if a connection or a router failed,
+ * without changing the network. 'analyze failures' evaluates every connection of the network on its own
+ * and lists those with the largest impact.
+ */
+public class AnalyzeFailure implements Command {
+    private static final String ERROR_FORMAT = "Error, Invalid command format. "
+        + "Use 'analyze failure <ip1> <ip2>', 'analyze failure <router_ip>' or 'analyze failures'";
+    private static final String ERROR_INVALID_IP = "Error, Invalid IP address.";
+    private static final String ERROR_NO_CONNECTION = "Error, No connection exists between the specified systems.";
+    private static final String ERROR_NOT_ROUTER = "Error, Only routers can fail on their own.";
+    private static final String NO_IMPACT = "No failure of a single connection affects any pair of systems.";
+    private static final String IMPACT_FORMAT = "Lost pairs: %d, longer pairs: %d, cost increase: %d (max %d)";
+    private static final String CONNECTION_FORMAT = "%s %s: ";
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static final String ALL_KEYWORD = "failures";
+    private static final int KEYWORD_ARG = 1;
+    private static final int ALL_ARGS = 2;
+    private static final int ROUTER_ARGS = 3;
+    private static final int CONNECTION_ARGS = 4;
+    private static final int IP1 = 2;
+    private static final int IP2 = 3;
+    private static final int REPORTED_FAILURES = 10;
+    private final Network network;
+
+    /**
+     * Creates a new analyze failure command with the given network.
+     * @param network The network to analyze.
+     */
+    public AnalyzeFailure(Network network) {
+        this.network = network;
+    }
+
+    @Override
+    public String execute(CommandArguments args) {
+        NetworkSnapshot snapshot = network.getSnapshot();
+        if (args.get(KEYWORD_ARG).equals(ALL_KEYWORD)) {
+            return args.size() == ALL_ARGS ? analyzeAll(snapshot) : ERROR_FORMAT;
+        }
+        if (args.size() == ROUTER_ARGS) {
+            SystemNode system = snapshot.getSystemByIp(args.getAddress(IP1));
+            if (system == null) {
+                return ERROR_INVALID_IP;
+            }
+            if (!(system instanceof Router router)) {
+                return ERROR_NOT_ROUTER;
+            }
+            return format(new FailureAnalysis(snapshot).analyzeRouter(router));
+        }
+        if (args.size() == CONNECTION_ARGS) {
+            SystemNode system1 = snapshot.getSystemByIp(args.getAddress(IP1));
+            SystemNode system2 = snapshot.getSystemByIp(args.getAddress(IP2));
+            if (system1 == null || system2 == null) {
+                return ERROR_INVALID_IP;
+            }
+            Connection connection = snapshot.findConnection(system1, system2);
+            if (connection == null) {
+                return ERROR_NO_CONNECTION;
+            }
+            return format(new FailureAnalysis(snapshot).analyzeConnection(connection));
+        }
+        return ERROR_FORMAT;
+    }
+
+    private static String analyzeAll(NetworkSnapshot snapshot) {
+        List<FailureAnalysis.Impact> impacts = new FailureAnalysis(snapshot).analyzeAllConnections();
+        if (impacts.isEmpty()) {
+            return NO_IMPACT;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (FailureAnalysis.Impact impact : impacts.subList(0, Math.min(REPORTED_FAILURES, impacts.size()))) {
+            if (!sb.isEmpty()) {
+                sb.append(LINE_SEPARATOR);
+            }
+            Connection connection = impact.getConnection();
+            sb.append(String.format(CONNECTION_FORMAT, connection.getSystem1().getIpAddress(),
+                connection.getSystem2().getIpAddress())).append(format(impact));
+        }
+        return sb.toString();
+    }
+
+    private static String format(FailureAnalysis.Impact impact) {
+        return String.format(IMPACT_FORMAT, impact.getLostPairs(), impact.getLongerPairs(), impact.getCostIncrease(),
+            impact.getMaxCostIncrease());
+    }
+}
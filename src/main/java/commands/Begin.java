@@ -0,0 +1,36 @@
+package commands;
+
+import model.Network;
+
+/**
+ * This class represents the begin command.
+ * It begins a transaction, so the following changes are buffered until they are committed or rolled back.
+ * Other sessions see none of the changes and can keep changing the network meanwhile,
+ * but the commit fails if one of them committed a change first.
+ */
+public class Begin implements Command {
+    private static final String ERROR_FORMAT = "Error, Invalid command format. Use 'begin' without any arguments.";
+    private static final String ERROR_IN_TRANSACTION = "Error, A transaction is already in progress.";
+    private final Network network;
+
+    /**
+     * Creates a new begin command with the given network.
+     * @param network The network to begin the transaction on.
+     */
+    public Begin(Network network) {
+        this.network = network;
+    }
+
+    @Override
+    public boolean modifiesNetwork() {
+        return true;
+    }
+
+    @Override
+    public String execute(CommandArguments args) {
+        if (args.size() > 1) {
+            return ERROR_FORMAT;
+        }
+        return network.begin() ? null : ERROR_IN_TRANSACTION;
+    }
+}
@@ -9,8 +9,17 @@ public interface Command {
 
     /**
      * Executes the command with the given arguments.
-     * @param args The arguments to execute the command with.
+     * @param args The tokenised command line to execute the command with, including the command keywords.
      * @return The output of the command execution as a String. If the command fails, an error message should be returned.
      */
-    String execute(String[] args);
+    String execute(CommandArguments args);
+
+    /**
+     * Returns whether the command changes the network.
+     * Such commands are executed under the write lock of the network, so their checks and changes happen atomically.
+     * @return true if the command changes the network, false otherwise.
+     */
+    default boolean modifiesNetwork() {
+        return false;
+    }
 }
@@ -0,0 +1,103 @@
+package commands;
+
+import helpers.IpAddress;
+
+/**
+ * The tokenised arguments of a command line, including the command keywords themselves.
+ * The line is split on whitespace without regular expressions, and every token that is an IPv4 address
+ * is parsed once up front, so commands can use the packed address without parsing the string again.
+ */
+public final class CommandArguments {
+    private static final String[] NO_TOKENS = new String[0];
+    private final String[] tokens;
+    private final long[] addresses;
+
+    private CommandArguments(String[] tokens) {
+        this.tokens = tokens;
+        this.addresses = new long[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            addresses[i] = IpAddress.parse(tokens[i]);
+        }
+    }
+
+    /**
+     * Splits the given line into its whitespace separated tokens.
+     * @param line the line to split.
+     * @return the arguments of the line.
+     */
+    public static CommandArguments parse(String line) {
+        return new CommandArguments(tokenize(line));
+    }
+
+    /**
+     * Wraps already split tokens.
+     * @param tokens the tokens.
+     * @return the arguments consisting of the given tokens.
+     */
+    public static CommandArguments of(String... tokens) {
+        return new CommandArguments(tokens.clone());
+    }
+
+    /**
+     * Returns the number of tokens.
+     * @return the number of tokens.
+     */
+    public int size() {
+        return tokens.length;
+    }
+
+    /**
+     * Returns the token at the given index.
+     * @param index the index of the token.
+     * @return the token.
+     */
+    public String get(int index) {
+        return tokens[index];
+    }
+
+    /**
+     * Returns the token at the given index parsed as an IPv4 address.
+     * @param index the index of the token.
+     * @return the packed address, or {@link IpAddress#INVALID} if the token is not an IPv4 address.
+     */
+    public long getAddress(int index) {
+        return addresses[index];
+    }
+
+    // Splits on the same characters as the regular expression \s+ does, after trimming the line.
+    private static String[] tokenize(String line) {
+        int start = 0;
+        int end = line.length();
+        while (start < end && line.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && line.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return NO_TOKENS;
+        }
+        int count = 1;
+        for (int i = start; i < end; i++) {
+            if (isWhitespace(line.charAt(i)) && !isWhitespace(line.charAt(i + 1))) {
+                count++;
+            }
+        }
+        String[] result = new String[count];
+        int index = 0;
+        int tokenStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || isWhitespace(line.charAt(i))) {
+                if (i > tokenStart) {
+                    result[index++] = line.substring(tokenStart, i);
+                }
+                tokenStart = i + 1;
+            }
+        }
+        return result;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
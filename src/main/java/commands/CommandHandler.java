@@ -4,34 +4,49 @@
 import commands.computer.*;
 import commands.connection.*;
 import commands.list.*;
+import helpers.Statistics;
 import model.Network;
 
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 
 /**
  * This class is responsible for handling commands and executing them.
  * This class acts as a central point for processing all user commands,
  * mapping them to their respective Command objects, and executing them.
+ * Command lines are tokenised without regular expressions and dispatched through a keyword trie.
+ * The execution time of every command is recorded in the statistics of the network.
  */
 public class CommandHandler {
     private static final String ERROR_MESSAGE_UNKNOWN = "Error, Unknown command.";
     private static final String ERROR_NO_NETWORK = "Error, No network loaded. Use 'load network' first.";
-    private static final String WHITESPACE_REGEX = "\\s+";
     private static final String LOAD_COMMAND = "load";
+    private static final String RELOAD_COMMAND = "reload network";
     private static final String LIST_COMMAND = "list";
     private static final String LIST_RANGE_COMMAND = "list range";
     private static final String LIST_SYSTEMS_COMMAND = "list systems";
+    private static final String LIST_USAGE_COMMAND = "list usage";
     private static final String ADD_CONNECTION_COMMAND = "add connection";
     private static final String REMOVE_CONNECTION_COMMAND = "remove connection";
+    private static final String UPDATE_CONNECTION_COMMAND = "update connection";
     private static final String ADD_COMPUTER_COMMAND = "add computer";
+    private static final String ADD_COMPUTERS_COMMAND = "add computers";
+    private static final String ALLOCATE_COMPUTER_COMMAND = "allocate computer";
     private static final String REMOVE_COMPUTER_COMMAND = "remove computer";
     private static final String SEND_PACKET_COMMAND = "send packet";
+    private static final String SIMULATE_TRAFFIC_COMMAND = "simulate traffic";
+    private static final String ANALYZE_FAILURE_COMMAND = "analyze failure";
+    private static final String ANALYZE_FAILURES_COMMAND = "analyze failures";
+    private static final String BEGIN_COMMAND = "begin";
+    private static final String COMMIT_COMMAND = "commit";
+    private static final String ROLLBACK_COMMAND = "rollback";
     private static final String  QUIT_COMMAND = "quit";
-    private static final String EMPTY_SPACE = " ";
+    private static final String STATS_COMMAND = "stats";
     private static final String EMPTY_STRING = "";
-    private final Map<String, Command> commands;
+    private final CommandTrie commands;
+    private final Map<Command, String> commandNames;
     private final Network network;
+    private final Statistics statistics;
 
     /**
      * This constructor creates a new CommandHandler object with the given network.
@@ -39,17 +54,36 @@ public class CommandHandler {
      */
     public CommandHandler(Network network) {
         this.network = network;
-        commands = new HashMap<>();
-        commands.put(LOAD_COMMAND, new LoadNetwork(network));
-        commands.put(LIST_COMMAND, new ListSubnets(network));
-        commands.put(LIST_RANGE_COMMAND, new ListRange(network));
-        commands.put(LIST_SYSTEMS_COMMAND, new ListSystems(network));
-        commands.put(ADD_CONNECTION_COMMAND, new AddConnection(network));
-        commands.put(REMOVE_CONNECTION_COMMAND, new RemoveConnection(network));
-        commands.put(ADD_COMPUTER_COMMAND, new AddComputer(network));
-        commands.put(REMOVE_COMPUTER_COMMAND, new RemoveComputer(network));
-        commands.put(SEND_PACKET_COMMAND, new SendPacket(network));
-        commands.put(QUIT_COMMAND, new Quit());
+        this.statistics = network.getStatistics();
+        commands = new CommandTrie();
+        commandNames = new IdentityHashMap<>();
+        register(LOAD_COMMAND, new LoadNetwork(network));
+        register(RELOAD_COMMAND, new ReloadNetwork(network));
+        register(LIST_COMMAND, new ListSubnets(network));
+        register(LIST_RANGE_COMMAND, new ListRange(network));
+        register(LIST_SYSTEMS_COMMAND, new ListSystems(network));
+        register(LIST_USAGE_COMMAND, new ListUsage(network));
+        register(ADD_CONNECTION_COMMAND, new AddConnection(network));
+        register(REMOVE_CONNECTION_COMMAND, new RemoveConnection(network));
+        register(UPDATE_CONNECTION_COMMAND, new UpdateConnection(network));
+        register(ADD_COMPUTER_COMMAND, new AddComputer(network));
+        register(ADD_COMPUTERS_COMMAND, new AddComputers(network));
+        register(ALLOCATE_COMPUTER_COMMAND, new AllocateComputer(network));
+        register(REMOVE_COMPUTER_COMMAND, new RemoveComputer(network));
+        register(SEND_PACKET_COMMAND, new SendPacket(network));
+        register(SIMULATE_TRAFFIC_COMMAND, new SimulateTraffic(network));
+        register(ANALYZE_FAILURE_COMMAND, new AnalyzeFailure(network));
+        register(ANALYZE_FAILURES_COMMAND, new AnalyzeFailure(network));
+        register(BEGIN_COMMAND, new Begin(network));
+        register(COMMIT_COMMAND, new Commit(network));
+        register(ROLLBACK_COMMAND, new Rollback(network));
+        register(QUIT_COMMAND, new Quit());
+        register(STATS_COMMAND, new Stats(statistics));
+    }
+
+    private void register(String keywords, Command command) {
+        commands.put(keywords, command);
+        commandNames.put(command, keywords);
     }
 
     /**
@@ -61,23 +95,36 @@ public String handleCommand(String input) {
         if (input == null || input.isBlank()) {
             return EMPTY_STRING;
         }
-        String[] parts = input.trim().split(WHITESPACE_REGEX);
-        String mainCommand = parts[0].toLowerCase();
-        String subCommand = parts.length > 1 ? parts[1].toLowerCase() : EMPTY_STRING;
-
-        Command command = commands.get(mainCommand + EMPTY_SPACE + subCommand);
-        if (command == null) {
-            command = commands.get(mainCommand);
-        }
+        CommandArguments arguments = CommandArguments.parse(input);
+        Command command = commands.find(arguments);
 
         if (command != null) {
-            // Check if the network is loaded for all commands except 'load' and 'quit'
-            if (!(command instanceof LoadNetwork) && !(command instanceof Quit) && network.getSubnets().isEmpty()) {
+            // Check if the network is loaded for all commands except 'load', 'reload', 'quit' and 'stats'
+            if (!(command instanceof LoadNetwork) && !(command instanceof ReloadNetwork)
+                && !(command instanceof Quit) && !(command instanceof Stats)
+                && network.getSnapshot().getSubnets().isEmpty()) {
                 return ERROR_NO_NETWORK;
             }
-            // Execute the command if it is valid.
-            return command.execute(parts);
+            long start = System.nanoTime();
+            String result = execute(command, arguments);
+            statistics.record(commandNames.get(command), System.nanoTime() - start);
+            return result;
         }
         return ERROR_MESSAGE_UNKNOWN;
     }
+
+    // Executes the command. Changes are serialized with other sessions sharing the network, and a change is only
+    // acknowledged once it is durable. After changes could not be saved, only a rollback is still possible.
+    private String execute(Command command, CommandArguments arguments) {
+        if (!command.modifiesNetwork()) {
+            return command.execute(arguments);
+        }
+        String failure = network.awaitDurable();
+        if (failure != null && !(command instanceof Rollback)) {
+            return failure;
+        }
+        String result = network.withWriteLock(() -> command.execute(arguments));
+        failure = network.awaitDurable();
+        return failure == null ? result : failure;
+    }
 }
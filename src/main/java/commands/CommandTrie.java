@@ -0,0 +1,76 @@
+package commands;
+
+/**
+ * A trie of command keywords used to dispatch a tokenised command line.
+ * Each node stands for a sequence of keywords and may hold the command registered for it.
+ * Keywords are matched case-insensitively without creating lower-case copies,
+ * and the lookup returns the command of the longest registered keyword sequence.
+ */
+final class CommandTrie {
+    private static final String KEYWORD_SEPARATOR = " ";
+    private final Node root = new Node(null);
+
+    /**
+     * Registers a command for the given keywords.
+     * @param keywords the keywords separated by a single space, for example "add computer".
+     * @param command the command to register.
+     */
+    void put(String keywords, Command command) {
+        Node node = root;
+        for (String keyword : keywords.split(KEYWORD_SEPARATOR)) {
+            Node child = node.child(keyword);
+            if (child == null) {
+                child = node.addChild(keyword);
+            }
+            node = child;
+        }
+        node.command = command;
+    }
+
+    /**
+     * Finds the command for the longest sequence of leading tokens that has a registered command.
+     * @param arguments the tokenised command line.
+     * @return the command, or null if no command matches.
+     */
+    Command find(CommandArguments arguments) {
+        Node node = root;
+        Command found = null;
+        for (int i = 0; i < arguments.size() && node != null; i++) {
+            node = node.child(arguments.get(i));
+            if (node != null && node.command != null) {
+                found = node.command;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * A node of the trie. Commands have only a handful of sub keywords, so children are scanned linearly.
+     */
+    private static final class Node {
+        private final String keyword;
+        private Node[] children = new Node[0];
+        private Command command;
+
+        Node(String keyword) {
+            this.keyword = keyword;
+        }
+
+        Node child(String token) {
+            for (Node child : children) {
+                if (child.keyword.equalsIgnoreCase(token)) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        Node addChild(String keyword) {
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(children, 0, newChildren, 0, children.length);
+            newChildren[children.length] = new Node(keyword);
+            children = newChildren;
+            return newChildren[children.length - 1];
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package commands;
+
+import model.Network;
+
+/**
+ * This class represents the commit command.
+ * It validates the changes of the transaction together and applies them all at once,
+ * converging the routing tables a single time. If a change is invalid, the whole transaction is rolled back.
+ * The same happens if another session committed a change since the transaction began, which it would overwrite.
+ */
+public class Commit implements Command {
+    private static final String ERROR_FORMAT = "Error, Invalid command format. Use 'commit' without any arguments.";
+    private static final String ERROR_NO_TRANSACTION = "Error, No transaction in progress.";
+    private static final String ERROR_CONFLICT =
+        "Error, The network was changed by another session meanwhile, the transaction was rolled back.";
+    private final Network network;
+
+    /**
+     * Creates a new commit command with the given network.
+     * @param network The network to commit the transaction on.
+     */
+    public Commit(Network network) {
+        this.network = network;
+    }
+
+    @Override
+    public boolean modifiesNetwork() {
+        return true;
+    }
+
+    @Override
+    public String execute(CommandArguments args) {
+        if (args.size() > 1) {
+            return ERROR_FORMAT;
+        }
+        if (!network.isInTransaction()) {
+            return ERROR_NO_TRANSACTION;
+        }
+        String error = network.validateTransaction();
+        if (error != null) {
+            network.rollback();
+            return error;
+        }
+        return network.commit() ? null : ERROR_CONFLICT;
+    }
+}
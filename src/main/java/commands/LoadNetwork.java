@@ -1,19 +1,25 @@
 package commands;
 
 import model.Network;
+import helpers.ContractionHierarchy;
 import helpers.FileHelper;
 import helpers.NetworkLoader;
+import helpers.Statistics;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Command to load a network from a file.
  * This class handles the parsing of the load command, reading the file, and updating the network with the loaded configuration.
+ * The loaded network is converged before it replaces the current one, so queries never see it half ready.
+ * Its contraction hierarchies are built in the background afterwards.
  */
 public class LoadNetwork implements Command {
     private static final String ERROR_FORMAT = "Error, Invalid command format. Use 'load network <path>'";
     private static final String NETWORK_STRING = "network";
     private static final int FORMAT_ARGS = 3;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
     private final Network network;
     private final NetworkLoader loader;
 
@@ -27,28 +33,34 @@ public LoadNetwork(Network network) {
     }
 
     @Override
-    public String execute(String[] args) {
-        if (args.length != FORMAT_ARGS || !args[1].equals(NETWORK_STRING)) {
+    public boolean modifiesNetwork() {
+        return true;
+    }
+
+    @Override
+    public String execute(CommandArguments args) {
+        if (args.size() != FORMAT_ARGS || !args.get(1).equals(NETWORK_STRING)) {
             return ERROR_FORMAT;
         }
-        String path = args[2];
-        // Reading of the file content.
-        List<String> fileContent = FileHelper.readAllLines(path);
+        String path = args.get(2);
+        // The file content and all messages of the loader form the output, so that remote clients see them as well.
+        List<String> output = new ArrayList<>();
+        List<String> fileContent = FileHelper.readAllLines(path, output::add);
         if (fileContent.isEmpty()) {
-            return null; // FileHelper already printed the error message.
-        }
-        // print the network file content.
-        for (String line : fileContent) {
-            System.out.println(line);
+            return String.join(LINE_SEPARATOR, output);
         }
+        output.addAll(fileContent);
         // Loading and validation of the network.
-        Network loadedNetwork = loader.loadNetwork(path);
+        long start = System.nanoTime();
+        Network loadedNetwork = loader.loadNetwork(path, output::add);
+        network.getStatistics().record(Statistics.NETWORK_LOADING, System.nanoTime() - start);
         if (loadedNetwork == null) {
-            return null; // The loader already prints error messages.
+            return String.join(LINE_SEPARATOR, output);
         }
-        // Update the network after loading.
-        network.updateFrom(loadedNetwork);
-        network.updateBGPTables(); // Initialisation of the BGP tables.
-        return null;
+        // Publish the ready network in one step.
+        network.replaceWith(loadedNetwork);
+        // Preprocessing of the loaded subnets for fast path queries, without holding up further changes.
+        ContractionHierarchy.preprocessInBackground(network.getSnapshot(), network.getStatistics());
+        return String.join(LINE_SEPARATOR, output);
     }
 }
@@ -8,8 +8,8 @@ public class Quit implements Command {
     private static final String ERROR_MESSAGE = "Error, Invalid command format. Use 'quit' without any arguments.";
 
     @Override
-    public String execute(String[] args) {
-        if (args.length > 1) {
+    public String execute(CommandArguments args) {
+        if (args.size() > 1) {
             return ERROR_MESSAGE;
         }
         return null;
@@ -0,0 +1,60 @@
+package commands;
+
+import helpers.ContractionHierarchy;
+import helpers.NetworkDelta;
+import helpers.NetworkLoader;
+import helpers.Statistics;
+import model.Network;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command to reload the network from a file.
+ * Unlike loading, only the differences between the file and the current network are applied, in one transaction.
+ * Subnets, systems, and connections that did not change keep their cached graphs and hierarchies.
+ */
+public class ReloadNetwork implements Command {
+    private static final String ERROR_FORMAT = "Error, Invalid command format. Use 'reload network <path>'";
+    private static final String APPLIED_FORMAT = "Applied %d changes";
+    private static final int FORMAT_ARGS = 3;
+    private static final int PATH_ARG = 2;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    private final Network network;
+    private final NetworkLoader loader;
+
+    /**
+     * Creates a new reload network command.
+     * @param network the network to apply the changes to.
+     */
+    public ReloadNetwork(Network network) {
+        this.network = network;
+        this.loader = new NetworkLoader();
+    }
+
+    @Override
+    public boolean modifiesNetwork() {
+        return true;
+    }
+
+    @Override
+    public String execute(CommandArguments args) {
+        if (args.size() != FORMAT_ARGS) {
+            return ERROR_FORMAT;
+        }
+        // The messages of the loader are part of the output, so that remote clients see them as well.
+        List<String> output = new ArrayList<>();
+        long start = System.nanoTime();
+        Network loadedNetwork = loader.loadNetwork(args.get(PATH_ARG), output::add);
+        network.getStatistics().record(Statistics.NETWORK_LOADING, System.nanoTime() - start);
+        if (loadedNetwork == null) {
+            return String.join(LINE_SEPARATOR, output);
+        }
+        NetworkDelta delta = NetworkDelta.between(network.getSnapshot(), loadedNetwork.getSnapshot());
+        delta.applyTo(network);
+        // Only the subnets that changed have no hierarchy yet.
+        ContractionHierarchy.preprocessInBackground(network.getSnapshot(), network.getStatistics());
+        output.add(String.format(APPLIED_FORMAT, delta.size()));
+        return String.join(LINE_SEPARATOR, output);
+    }
+}
@@ -0,0 +1,38 @@
+package commands;
+
+import model.Network;
+
+/**
+ * This class represents the rollback command.
+ * It discards all changes of the transaction, leaving the network as it was when the transaction began.
+ */
+public class Rollback implements Command {
+    private static final String ERROR_FORMAT = "Error, Invalid command format. Use 'rollback' without any arguments.";
+    private static final String ERROR_NO_TRANSACTION = "Error, No transaction in progress.";
+    private final Network network;
+
+    /**
+     * Creates a new rollback command with the given network.
+     * @param network The network to roll the transaction back on.
+     */
+    public Rollback(Network network) {
+        this.network = network;
+    }
+
+    @Override
+    public boolean modifiesNetwork() {
+        return true;
+    }
+
+    @Override
+    public String execute(CommandArguments args) {
+        if (args.size() > 1) {
+            return ERROR_FORMAT;
+        }
+        if (!network.isInTransaction()) {
+            return ERROR_NO_TRANSACTION;
+        }
+        network.rollback();
+        return null;
+    }
+}
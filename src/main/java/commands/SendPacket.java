@@ -1,8 +1,10 @@
 package commands;
 
 import model.Network;
+import model.NetworkSnapshot;
 import model.SystemNode;
 import helpers.PathFinder;
+import helpers.SearchAlgorithm;
 
 import java.util.List;
 
@@ -11,16 +13,20 @@
  * It sends a packet from one system to another in the network.
  * The command finds the shortest path between the systems and returns the path.
  * If no path is found, an error message is returned.
+ * An optional last argument selects the search algorithm used inside the subnets.
  */
 public class SendPacket implements Command {
-    private static final String ERROR_FORMAT = "Error, Invalid command format. Use 'send packet <source_ip> <destination_ip>'";
+    private static final String ERROR_FORMAT = "Error, Invalid command format. "
+        + "Use 'send packet <source_ip> <destination_ip> [dijkstra|bidirectional|alt|ch]'";
     private static final String ERROR_INVALID_IP = "Error, Invalid IP address.";
     private static final String ERROR_SAME_IP = "Error, Source and destination IP addresses cannot be the same.";
     private static final String ERROR_NO_PATH = "Error, No path found between the specified systems.";
     private static final String EMPTY_SPACE = " ";
     private static final int SECOND_ARG = 2;
     private static final int THIRD_ARG = 3;
+    private static final int ALGORITHM_ARG = 4;
     private static final int EXPECTED_ARGS = 4;
+    private static final int MAX_ARGS = 5;
     private final Network network;
     private final PathFinder pathFinder;
 
@@ -34,25 +40,34 @@ public SendPacket(Network network) {
     }
 
     @Override
-    public String execute(String[] args) {
-        if (args.length != EXPECTED_ARGS) {
+    public String execute(CommandArguments args) {
+        if (args.size() != EXPECTED_ARGS && args.size() != MAX_ARGS) {
             return ERROR_FORMAT;
         }
+        SearchAlgorithm algorithm = SearchAlgorithm.CH;
+        if (args.size() == MAX_ARGS) {
+            algorithm = SearchAlgorithm.fromName(args.get(ALGORITHM_ARG));
+            if (algorithm == null) {
+                return ERROR_FORMAT;
+            }
+        }
 
-        String sourceIp = args[SECOND_ARG];
-        String destinationIp = args[THIRD_ARG];
+        String sourceIp = args.get(SECOND_ARG);
+        String destinationIp = args.get(THIRD_ARG);
         // Check if source and destination IPs are the same.
         if (sourceIp.equals(destinationIp)) {
             return ERROR_SAME_IP;
         }
 
-        SystemNode source = network.getSystemByIp(sourceIp);
-        SystemNode destination = network.getSystemByIp(destinationIp);
+        // The systems are looked up in the same snapshot the path is searched in.
+        NetworkSnapshot snapshot = network.getSnapshot();
+        SystemNode source = snapshot.getSystemByIp(args.getAddress(SECOND_ARG));
+        SystemNode destination = snapshot.getSystemByIp(args.getAddress(THIRD_ARG));
         // Check if source and destination IPs are valid.
         if (source == null || destination == null) {
             return ERROR_INVALID_IP;
         }
-        List<SystemNode> path = pathFinder.findShortestPath(source, destination);
+        List<SystemNode> path = pathFinder.findShortestPath(snapshot, source, destination, algorithm);
         // Check if a path was found.
         if (path == null || path.isEmpty()) {
             return ERROR_NO_PATH;
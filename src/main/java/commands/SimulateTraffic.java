@@ -0,0 +1,140 @@
+package commands;
+
+import helpers.FileHelper;
+import helpers.TrafficSimulator;
+import model.Connection;
+import model.Network;
+import model.NetworkSnapshot;
+import model.Router;
+import model.SystemNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class represents the simulate traffic command.
+ * It routes either generated flows between random systems or the demands of a file through the current network
+ * and reports how many flows found a path and which connections and routers carry the most traffic.
+ * Every line of a demand file holds the source IP, the destination IP and the volume, separated by spaces.
+ */
+public class SimulateTraffic implements Command {
+    private static final String ERROR_FORMAT = "Error, Invalid command format. "
+        + "Use 'simulate traffic <flows> [seed]' or 'simulate traffic file <path>'";
+    private static final String ERROR_INVALID_FLOWS = "Error, The number of flows must be a positive integer.";
+    private static final String ERROR_INVALID_DEMAND = "Error, Invalid demand in line %d.";
+    private static final String ERROR_EMPTY_DEMANDS = "Error, The demand file contains no demands.";
+    private static final String FILE_KEYWORD = "file";
+    private static final String DEMAND_DELIMITER = " ";
+    private static final String ROUTED_FORMAT = "Routed %d of %d";
+    private static final String HOTTEST_LINKS = "Hottest links:";
+    private static final String HOTTEST_ROUTERS = "Hottest routers:";
+    private static final String LINK_FORMAT = "%s %s %d";
+    private static final String ROUTER_FORMAT = "%s %d";
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static final int MODE_ARG = 2;
+    private static final int SEED_ARG = 3;
+    private static final int PATH_ARG = 3;
+    private static final int MIN_ARGS = 3;
+    private static final int MAX_ARGS = 4;
+    private static final int DEMAND_PARTS = 3;
+    private static final int REPORTED_ENTRIES = 10;
+    private static final long DEFAULT_SEED = 0;
+    private final Network network;
+    private final TrafficSimulator simulator;
+
+    /**
+     * Creates a new simulate traffic command with the given network.
+     * @param network The network to route the traffic in.
+     */
+    public SimulateTraffic(Network network) {
+        this.network = network;
+        this.simulator = new TrafficSimulator(network);
+    }
+
+    @Override
+    public String execute(CommandArguments args) {
+        if (args.size() < MIN_ARGS || args.size() > MAX_ARGS) {
+            return ERROR_FORMAT;
+        }
+        // All flows are routed in the same snapshot, even if the network changes meanwhile.
+        NetworkSnapshot snapshot = network.getSnapshot();
+        if (args.get(MODE_ARG).equals(FILE_KEYWORD)) {
+            return args.size() == MAX_ARGS ? simulateFile(snapshot, args.get(PATH_ARG)) : ERROR_FORMAT;
+        }
+        long flows;
+        long seed = DEFAULT_SEED;
+        try {
+            flows = Long.parseLong(args.get(MODE_ARG));
+            if (args.size() == MAX_ARGS) {
+                seed = Long.parseLong(args.get(SEED_ARG));
+            }
+        } catch (NumberFormatException e) {
+            return ERROR_INVALID_FLOWS;
+        }
+        if (flows <= 0) {
+            return ERROR_INVALID_FLOWS;
+        }
+        return report(simulator.simulate(snapshot, flows, seed));
+    }
+
+    private String simulateFile(NetworkSnapshot snapshot, String path) {
+        List<String> errors = new ArrayList<>();
+        List<String> lines = FileHelper.readAllLines(path, errors::add);
+        if (!errors.isEmpty()) {
+            return errors.get(0);
+        }
+        List<TrafficSimulator.Demand> demands = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            TrafficSimulator.Demand demand = parseDemand(snapshot, line);
+            if (demand == null) {
+                return String.format(ERROR_INVALID_DEMAND, i + 1);
+            }
+            demands.add(demand);
+        }
+        if (demands.isEmpty()) {
+            return ERROR_EMPTY_DEMANDS;
+        }
+        return report(simulator.simulate(snapshot, demands));
+    }
+
+    // Parses a single demand, returning null if it is malformed or names unknown systems.
+    private static TrafficSimulator.Demand parseDemand(NetworkSnapshot snapshot, String line) {
+        String[] parts = line.split(DEMAND_DELIMITER);
+        if (parts.length != DEMAND_PARTS) {
+            return null;
+        }
+        SystemNode source = snapshot.getSystemByIp(parts[0]);
+        SystemNode destination = snapshot.getSystemByIp(parts[1]);
+        long volume;
+        try {
+            volume = Long.parseLong(parts[2]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (source == null || destination == null || source == destination || volume <= 0) {
+            return null;
+        }
+        return new TrafficSimulator.Demand(source, destination, volume);
+    }
+
+    private static String report(TrafficSimulator.Result result) {
+        long total = result.getRoutedVolume() + result.getUnroutedVolume();
+        StringBuilder sb = new StringBuilder(String.format(ROUTED_FORMAT, result.getRoutedVolume(), total));
+        sb.append(LINE_SEPARATOR).append(HOTTEST_LINKS);
+        for (Map.Entry<Connection, Long> link : result.getHottestLinks(REPORTED_ENTRIES)) {
+            sb.append(LINE_SEPARATOR).append(String.format(LINK_FORMAT, link.getKey().getSystem1().getIpAddress(),
+                link.getKey().getSystem2().getIpAddress(), link.getValue()));
+        }
+        sb.append(LINE_SEPARATOR).append(HOTTEST_ROUTERS);
+        for (Map.Entry<Router, Long> router : result.getHottestRouters(REPORTED_ENTRIES)) {
+            sb.append(LINE_SEPARATOR).append(String.format(ROUTER_FORMAT, router.getKey().getIpAddress(),
+                router.getValue()));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,59 @@
+package commands;
+
+import helpers.Statistics;
+
+import java.nio.file.Path;
+
+/**
+ * Command to show the counters and latency percentiles of all commands and internal timers.
+ * It can also reset the statistics or dump them to a file periodically.
+ */
+public class Stats implements Command {
+    private static final String ERROR_FORMAT =
+        "Error, Invalid command format. Use 'stats', 'stats reset' or 'stats dump <path> <seconds>|off'";
+    private static final String RESET = "reset";
+    private static final String DUMP = "dump";
+    private static final String OFF = "off";
+    private static final int REPORT_ARGS = 1;
+    private static final int RESET_ARGS = 2;
+    private static final int DUMP_OFF_ARGS = 3;
+    private static final int DUMP_ARGS = 4;
+    private static final int PATH_ARG = 2;
+    private static final int PERIOD_ARG = 3;
+    private final Statistics statistics;
+
+    /**
+     * Creates a new stats command.
+     * @param statistics the statistics to report.
+     */
+    public Stats(Statistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @Override
+    public String execute(CommandArguments args) {
+        if (args.size() == REPORT_ARGS) {
+            return statistics.report();
+        }
+        if (args.size() == RESET_ARGS && args.get(1).equals(RESET)) {
+            statistics.reset();
+            return null;
+        }
+        if (args.size() == DUMP_OFF_ARGS && args.get(1).equals(DUMP) && args.get(PATH_ARG).equals(OFF)) {
+            statistics.stopDump();
+            return null;
+        }
+        if (args.size() == DUMP_ARGS && args.get(1).equals(DUMP)) {
+            try {
+                long period = Long.parseLong(args.get(PERIOD_ARG));
+                if (period > 0) {
+                    statistics.startDump(Path.of(args.get(PATH_ARG)), period);
+                    return null;
+                }
+            } catch (NumberFormatException e) {
+                return ERROR_FORMAT;
+            }
+        }
+        return ERROR_FORMAT;
+    }
+}
@@ -1,6 +1,7 @@
 package commands.computer;
 
 import commands.Command;
+import commands.CommandArguments;
 import model.Network;
 import model.Subnet;
 
@@ -21,6 +22,11 @@ protected AbstractComputerCommand(Network network) {
         this.network = network;
     }
 
+    @Override
+    public boolean modifiesNetwork() {
+        return true;
+    }
+
     /**
      * Validates the subnet and returns it if it is valid.
      * If the IP address does not belong to a computer, the subnet or IP address is invalid,
@@ -28,12 +34,12 @@ protected AbstractComputerCommand(Network network) {
      * @param args The arguments of the command.
      * @return The subnet if it is valid, null otherwise.
      */
-    protected Subnet validateAndGetSubnet(String[] args) {
-        if (args.length != EXPECTED_ARGS) {
+    protected Subnet validateAndGetSubnet(CommandArguments args) {
+        if (args.size() != EXPECTED_ARGS) {
             return null;
         }
 
-        String subnetCidr = args[2];
+        String subnetCidr = args.get(2);
         return network.getSubnetByCidr(subnetCidr);
     }
 }
@@ -1,5 +1,6 @@
 package commands.computer;
 
+import commands.CommandArguments;
 import model.Computer;
 import model.Network;
 import model.Subnet;
@@ -11,10 +12,7 @@
 public class AddComputer extends AbstractComputerCommand {
     private static final String ERROR_IP_EXISTS = "Error, IP address already exists in the network.";
     private static final String ERROR_IP_NOT_IN_SUBNET = "Error, IP address is not in the specified subnet.";
-    private static final String PC_NAME = "PC_";
     private static final String ADD = "add";
-    private static final String DOT = ".";
-    private static final String UNDERLINE = "_";
     private static final int NUMBER_OF_ARGUMENTS = 3;
 
     /**
@@ -26,25 +24,24 @@ public AddComputer(Network network) {
     }
 
     @Override
-    public String execute(String[] args) {
+    public String execute(CommandArguments args) {
         Subnet subnet = validateAndGetSubnet(args);
         if (subnet == null) {
             return String.format(ERROR_FORMAT, ADD);
         }
 
-        String ip = args[NUMBER_OF_ARGUMENTS];
+        String ip = args.get(NUMBER_OF_ARGUMENTS);
         // Check if the IP address already exists in the network.
-        if (network.getSystemByIp(ip) != null) {
+        if (network.getSystemByIp(args.getAddress(NUMBER_OF_ARGUMENTS)) != null) {
             return ERROR_IP_EXISTS;
         }
-        // Check if the IP address is in the subnet.
-        if (!subnet.isIpInSubnet(ip)) {
+        // Check if the IP address is in the subnet, using the address parsed with the command line.
+        if (!subnet.contains(args.getAddress(NUMBER_OF_ARGUMENTS))) {
             return ERROR_IP_NOT_IN_SUBNET;
         }
         // Create a new computer and add it to the network and subnet.
-        Computer computer = new Computer(PC_NAME + ip.replace(DOT, UNDERLINE), ip, subnet);
+        Computer computer = new Computer(ip, subnet);
         network.addSystem(computer);
-        subnet.addSystem(computer);
         // Return null to indicate that the command was executed successfully.
         return null;
     }
@@ -0,0 +1,159 @@
+package commands.computer;
+
+import commands.CommandArguments;
+import helpers.IpAddress;
+import model.Computer;
+import model.Network;
+import model.NetworkSnapshot;
+import model.Subnet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class represents the command to add many computers to a subnet at once.
+ * The computers are either given as a first IP address and a count, or as a prefix whose free host
+ * addresses are filled. The range is validated once, and all computers are inserted in a single step.
+ * Both forms keep the network and broadcast address of the subnet free: a range that includes one of them is
+ * rejected, and a prefix leaves them out. Subnets of two or one addresses have no such addresses.
+ */
+public class AddComputers extends AbstractComputerCommand {
+    private static final String ERROR_BULK_FORMAT = "Error, Invalid command format. "
+        + "Use 'add computers <subnet> <first_ip> <count>' or 'add computers <subnet> <prefix>'";
+    private static final String ERROR_INVALID_COUNT = "Error, The number of computers must be a positive integer.";
+    private static final String ERROR_RANGE_NOT_IN_SUBNET = "Error, The address range is not in the specified subnet.";
+    private static final String ERROR_RANGE_RESERVED =
+        "Error, The address range includes the network or broadcast address of the subnet.";
+    private static final String ERROR_IP_EXISTS = "Error, IP address %s already exists in the network.";
+    private static final String ERROR_INVALID_PREFIX = "Error, Invalid prefix. Use the network address and prefix length,"
+        + " for example 10.0.1.0/24.";
+    private static final String ERROR_PREFIX_FULL = "Error, The prefix has no free host addresses.";
+    private static final String ERROR_PREFIX_TOO_LARGE = "Error, The prefix is too large to fill at once.";
+    private static final String ERROR_RANGE_TOO_LARGE = "Error, The address range is too large to add at once.";
+    private static final String CIDR_DELIMITER = "/";
+    private static final int SUBNET_INDEX = 2;
+    private static final int FIRST_IP_INDEX = 3;
+    private static final int COUNT_INDEX = 4;
+    private static final int PREFIX_INDEX = 3;
+    private static final int PREFIX_ARGS = 4;
+    private static final int RANGE_ARGS = 5;
+    private static final int BITS_IN_IP = 32;
+    private static final long ALL_BITS_SET = 0xffffffffL;
+    private static final long MAX_BULK_SIZE = 1L << 24;
+
+    /**
+     * Creates a new AddComputers command with the given network.
+     * @param network The network to add the computers to.
+     */
+    public AddComputers(Network network) {
+        super(network);
+    }
+
+    @Override
+    public String execute(CommandArguments args) {
+        if (args.size() != PREFIX_ARGS && args.size() != RANGE_ARGS) {
+            return ERROR_BULK_FORMAT;
+        }
+        Subnet subnet = network.getSubnetByCidr(args.get(SUBNET_INDEX));
+        if (subnet == null) {
+            return ERROR_BULK_FORMAT;
+        }
+        return args.size() == RANGE_ARGS ? addRange(args, subnet) : fillPrefix(args, subnet);
+    }
+
+    // Adds count computers starting at the first IP address, failing if any of them is taken.
+    private String addRange(CommandArguments args, Subnet subnet) {
+        long first = args.getAddress(FIRST_IP_INDEX);
+        int count;
+        try {
+            count = Integer.parseInt(args.get(COUNT_INDEX));
+        } catch (NumberFormatException e) {
+            return ERROR_INVALID_COUNT;
+        }
+        if (count <= 0) {
+            return ERROR_INVALID_COUNT;
+        }
+        if (count > MAX_BULK_SIZE) {
+            return ERROR_RANGE_TOO_LARGE;
+        }
+        long last = first + count - 1;
+        if (!subnet.contains(first) || last > ALL_BITS_SET || !subnet.contains(last)) {
+            return ERROR_RANGE_NOT_IN_SUBNET;
+        }
+        if (hasReservedAddresses(subnet) && (first == IpAddress.toUnsigned(subnet.getNetworkAddress())
+            || last == IpAddress.toUnsigned(subnet.getBroadcastAddress()))) {
+            return ERROR_RANGE_RESERVED;
+        }
+        NetworkSnapshot snapshot = network.getSnapshot();
+        // The range is checked as a whole, and only a collision is searched address by address to name it.
+        if (snapshot.getUsedAddressCount(subnet, first, last) > 0) {
+            for (long address = first; address <= last; address++) {
+                if (snapshot.getSystemByIp(address) != null) {
+                    return String.format(ERROR_IP_EXISTS, IpAddress.format((int) address));
+                }
+            }
+        }
+        List<Computer> computers = new ArrayList<>(count);
+        for (long address = first; address <= last; address++) {
+            computers.add(new Computer((int) address, subnet));
+        }
+        addAll(subnet, computers);
+        return null;
+    }
+
+    // Adds a computer on every free host address of the prefix, leaving out the network and broadcast address.
+    private String fillPrefix(CommandArguments args, Subnet subnet) {
+        String prefix = args.get(PREFIX_INDEX);
+        int delimiter = prefix.indexOf(CIDR_DELIMITER);
+        if (delimiter < 0) {
+            return ERROR_INVALID_PREFIX;
+        }
+        long prefixAddress = IpAddress.parse(prefix, 0, delimiter);
+        int prefixLength;
+        try {
+            prefixLength = Integer.parseInt(prefix.substring(delimiter + 1));
+        } catch (NumberFormatException e) {
+            return ERROR_INVALID_PREFIX;
+        }
+        if (prefixAddress == IpAddress.INVALID || prefixLength < 0 || prefixLength > BITS_IN_IP) {
+            return ERROR_INVALID_PREFIX;
+        }
+        long hostMask = ALL_BITS_SET >>> prefixLength;
+        if ((prefixAddress & hostMask) != 0) {
+            return ERROR_INVALID_PREFIX;
+        }
+        if (prefixLength < subnet.getPrefixLength() || !subnet.contains(prefixAddress)) {
+            return ERROR_RANGE_NOT_IN_SUBNET;
+        }
+        if (hostMask >= MAX_BULK_SIZE) {
+            return ERROR_PREFIX_TOO_LARGE;
+        }
+        boolean skipEnds = hasReservedAddresses(subnet);
+        long subnetFirst = IpAddress.toUnsigned(subnet.getNetworkAddress());
+        long subnetLast = IpAddress.toUnsigned(subnet.getBroadcastAddress());
+        NetworkSnapshot snapshot = network.getSnapshot();
+        List<Computer> computers = new ArrayList<>((int) hostMask + 1);
+        for (long address = prefixAddress; address <= (prefixAddress | hostMask); address++) {
+            if (skipEnds && (address == subnetFirst || address == subnetLast)) {
+                continue;
+            }
+            if (snapshot.getSystemByIp(address) == null) {
+                computers.add(new Computer((int) address, subnet));
+            }
+        }
+        if (computers.isEmpty()) {
+            return ERROR_PREFIX_FULL;
+        }
+        addAll(subnet, computers);
+        return null;
+    }
+
+    // Subnets of two or one addresses have no separate network and broadcast address.
+    private static boolean hasReservedAddresses(Subnet subnet) {
+        return subnet.getPrefixLength() < BITS_IN_IP - 1;
+    }
+
+    private void addAll(Subnet subnet, List<Computer> computers) {
+        network.addSystems(subnet, computers);
+    }
+}
@@ -0,0 +1,48 @@
+package commands.computer;
+
+import commands.CommandArguments;
+import helpers.IpAddress;
+import model.Computer;
+import model.Network;
+import model.Subnet;
+
+/**
+ * This class represents the command to add a computer on the next free address of a subnet.
+ * The free address is found in the host table of the subnet, and the command returns the assigned IP address.
+ */
+public class AllocateComputer extends AbstractComputerCommand {
+    private static final String ERROR_ALLOCATE_FORMAT = "Error, Invalid command format. Use 'allocate computer <subnet>'";
+    private static final String ERROR_SUBNET_FULL = "Error, The subnet has no free host addresses.";
+    private static final int SUBNET_INDEX = 2;
+    private static final int ALLOCATE_ARGS = 3;
+
+    /**
+     * Creates a new AllocateComputer command with the given network.
+     * @param network The network to add the computer to.
+     */
+    public AllocateComputer(Network network) {
+        super(network);
+    }
+
+    @Override
+    public String execute(CommandArguments args) {
+        if (args.size() != ALLOCATE_ARGS) {
+            return ERROR_ALLOCATE_FORMAT;
+        }
+        Subnet subnet = network.getSubnetByCidr(args.get(SUBNET_INDEX));
+        if (subnet == null) {
+            return ERROR_ALLOCATE_FORMAT;
+        }
+        // The address is searched and taken under the write lock, so no other change can take it meanwhile.
+        return network.withWriteLock(() -> {
+            long address = network.getSnapshot().findFreeAddress(subnet);
+            if (address == IpAddress.INVALID) {
+                return ERROR_SUBNET_FULL;
+            }
+            Computer computer = new Computer((int) address, subnet);
+            network.addSystem(computer);
+            // Return the address, as the user did not choose it.
+            return computer.getIpAddress();
+        });
+    }
+}
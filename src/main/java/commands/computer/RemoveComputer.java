@@ -1,5 +1,6 @@
 package commands.computer;
 
+import commands.CommandArguments;
 import model.*;
 
 /**
@@ -26,15 +27,14 @@ public RemoveComputer(Network network) {
     }
 
     @Override
-    public String execute(String[] args) {
+    public String execute(CommandArguments args) {
         Subnet subnet = validateAndGetSubnet(args);
         if (subnet == null) {
             return String.format(ERROR_FORMAT, REMOVE);
         }
 
-        String ip = args[NUMBER_OF_ARGUMENTS];
-        // Check if the IP address is valid.
-        SystemNode system = network.getSystemByIp(ip);
+        // Check if the IP address is valid, using the address parsed with the command line.
+        SystemNode system = network.getSystemByIp(args.getAddress(NUMBER_OF_ARGUMENTS));
         if (system == null) {
             return ERROR_INVALID_IP;
         }
@@ -48,7 +48,6 @@ public String execute(String[] args) {
         }
         // Remove the computer from the network and subnet.
         network.removeSystem(system);
-        subnet.removeSystem(system);
         // Return null to indicate that the command was executed successfully.
         return null;
     }
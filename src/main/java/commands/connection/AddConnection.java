@@ -1,6 +1,7 @@
 package commands.connection;
 
 import commands.Command;
+import commands.CommandArguments;
 import model.*;
 
 /**
@@ -13,6 +14,7 @@ public class AddConnection implements Command {
     private static final String ERROR_SAME_IP = "Error, Cannot create a connection to the same IP address.";
     private static final String ERROR_DIFFERENT_SUBNET = "Error, Only routers can have connections to other subnets.";
     private static final String ERROR_CONNECTION_EXISTS = "Error, Connection already exists.";
+    private static final String ERROR_INVALID_WEIGHT = "Error, The weight must be a non-negative integer.";
     private static final int MIN_ARGS = 4;
     private static final int MAX_ARGS = 5;
     private static final int WEIGHT_ARGS = 4;
@@ -29,25 +31,33 @@ public AddConnection(Network network) {
     }
 
     @Override
-    public String execute(String[] args) {
-        if (args.length < MIN_ARGS || args.length > MAX_ARGS) {
+    public boolean modifiesNetwork() {
+        return true;
+    }
+
+    @Override
+    public String execute(CommandArguments args) {
+        if (args.size() < MIN_ARGS || args.size() > MAX_ARGS) {
             return ERROR_FORMAT;
         }
 
-        String ip1 = args[IP1];
-        String ip2 = args[IP2];
+        String ip1 = args.get(IP1);
+        String ip2 = args.get(IP2);
         // Check if the IP addresses are the same.
         if (ip1.equals(ip2)) {
             return ERROR_SAME_IP;
         }
         // Check if the weight is provided using the parseWeight helper method.
         Integer weight = parseWeight(args);
-        if (weight == null && args.length == MAX_ARGS) {
+        if (weight == null && args.size() == MAX_ARGS) {
             return ERROR_FORMAT;
         }
+        if (weight != null && weight < 0) {
+            return ERROR_INVALID_WEIGHT;
+        }
         // Get the systems by their IP addresses.
-        SystemNode system1 = network.getSystemByIp(ip1);
-        SystemNode system2 = network.getSystemByIp(ip2);
+        SystemNode system1 = network.getSystemByIp(args.getAddress(IP1));
+        SystemNode system2 = network.getSystemByIp(args.getAddress(IP2));
         // Check if the systems exist.
         if (system1 == null || system2 == null) {
             return ERROR_INVALID_IP;
@@ -66,10 +76,10 @@ public String execute(String[] args) {
         return null;
     }
     // Helper method to parse the weight from the arguments.
-    private Integer parseWeight(String[] args) {
-        if (args.length == MAX_ARGS) {
+    private Integer parseWeight(CommandArguments args) {
+        if (args.size() == MAX_ARGS) {
             try {
-                return Integer.parseInt(args[WEIGHT_ARGS]);
+                return Integer.parseInt(args.get(WEIGHT_ARGS));
             } catch (NumberFormatException e) {
                 return null;
             }
@@ -1,6 +1,7 @@
 package commands.connection;
 
 import commands.Command;
+import commands.CommandArguments;
 import model.Network;
 import model.SystemNode;
 
@@ -26,25 +27,23 @@ public RemoveConnection(Network network) {
     }
 
     @Override
-    public String execute(String[] args) {
-        if (args.length != EXPECTED_ARGS) {
+    public boolean modifiesNetwork() {
+        return true;
+    }
+
+    @Override
+    public String execute(CommandArguments args) {
+        if (args.size() != EXPECTED_ARGS) {
             return ERROR_FORMAT;
         }
         // Get the systems by their IP addresses.
-        String ip1 = args[IP1];
-        String ip2 = args[IP2];
-        SystemNode system1 = network.getSystemByIp(ip1);
-        SystemNode system2 = network.getSystemByIp(ip2);
+        SystemNode system1 = network.getSystemByIp(args.getAddress(IP1));
+        SystemNode system2 = network.getSystemByIp(args.getAddress(IP2));
         // Check if the systems exist.
         if (system1 == null || system2 == null) {
             return ERROR_INVALID_IP;
         }
-        // Check if a connection exists between the two systems.
-        if (!network.connectionExists(system1, system2)) {
-            return ERROR_NO_CONNECTION;
-        }
-        // Remove the connection between the two systems.
-        network.removeConnection(system1, system2);
-        return null;
+        // Remove the connection between the two systems, if there is one.
+        return network.removeConnection(system1, system2) ? null : ERROR_NO_CONNECTION;
     }
 }
@@ -0,0 +1,69 @@
+package commands.connection;
+
+import commands.Command;
+import commands.CommandArguments;
+import model.Network;
+import model.SystemNode;
+
+/**
+ * This class represents the update connection command.
+ * It changes the weight of a connection between two systems of the same subnet.
+ */
+public class UpdateConnection implements Command {
+    private static final String ERROR_FORMAT = "Error, Invalid command format. "
+        + "Use 'update connection <ip1> <ip2> <weight>'";
+    private static final String ERROR_INVALID_IP = "Error, Invalid IP address.";
+    private static final String ERROR_INVALID_WEIGHT = "Error, The weight must be a non-negative integer.";
+    private static final String ERROR_NO_CONNECTION = "Error, No connection exists between the specified systems.";
+    private static final String ERROR_DIFFERENT_SUBNET = "Error, Connections between subnets are not weighted.";
+    private static final int EXPECTED_ARGS = 5;
+    private static final int IP1 = 2;
+    private static final int IP2 = 3;
+    private static final int WEIGHT = 4;
+    private final Network network;
+
+    /**
+     * Creates a new update connection command.
+     * @param network The network to update the connection in.
+     */
+    public UpdateConnection(Network network) {
+        this.network = network;
+    }
+
+    @Override
+    public boolean modifiesNetwork() {
+        return true;
+    }
+
+    @Override
+    public String execute(CommandArguments args) {
+        if (args.size() != EXPECTED_ARGS) {
+            return ERROR_FORMAT;
+        }
+        int weight;
+        try {
+            weight = Integer.parseInt(args.get(WEIGHT));
+        } catch (NumberFormatException e) {
+            return ERROR_INVALID_WEIGHT;
+        }
+        if (weight < 0) {
+            return ERROR_INVALID_WEIGHT;
+        }
+        // Get the systems by their IP addresses.
+        SystemNode system1 = network.getSystemByIp(args.getAddress(IP1));
+        SystemNode system2 = network.getSystemByIp(args.getAddress(IP2));
+        // Check if the systems exist.
+        if (system1 == null || system2 == null) {
+            return ERROR_INVALID_IP;
+        }
+        // Check if a connection exists between the two systems.
+        if (!network.connectionExists(system1, system2)) {
+            return ERROR_NO_CONNECTION;
+        }
+        // Connections between routers of different subnets are only used for the BGP tables.
+        if (system1.getSubnet() != system2.getSubnet()) {
+            return ERROR_DIFFERENT_SUBNET;
+        }
+        return network.updateConnection(system1, system2, weight) ? null : ERROR_NO_CONNECTION;
+    }
+}
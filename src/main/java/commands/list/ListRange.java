@@ -1,6 +1,7 @@
 package commands.list;
 
 import commands.Command;
+import commands.CommandArguments;
 import model.Network;
 import model.Subnet;
 
@@ -24,12 +25,12 @@ public ListRange(Network network) {
     }
 
     @Override
-    public String execute(String[] args) {
-        if (args.length != ARGUMENT_LENGTH) {
+    public String execute(CommandArguments args) {
+        if (args.size() != ARGUMENT_LENGTH) {
             return ERROR_FORMAT;
         }
         // Get the first and last IP address of the subnet.
-        String subnetCidr = args[2];
+        String subnetCidr = args.get(2);
         Subnet subnet = network.getSubnetByCidr(subnetCidr);
         if (subnet == null) {
             return ERROR_SUBNET;
@@ -1,17 +1,14 @@
 package commands.list;
 
 import commands.Command;
+import commands.CommandArguments;
 import model.Network;
 import model.Subnet;
-import helpers.IpAddressComparator;
-
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * This class represents a command to list all subnets in a network.
  * The command takes a network as input and returns a list of all subnets in the network.
- * The subnets are sorted by their CIDR.
+ * The subnets are sorted by their CIDR, as the network keeps them in that order.
  */
 public class ListSubnets implements Command {
     private static final String ERROR_FORMAT = "Error, Invalid command format. Use 'list subnets'";
@@ -28,17 +25,17 @@ public ListSubnets(Network network) {
     }
 
     @Override
-    public String execute(String[] args) {
-        if (args.length != 2 || !args[1].equals(SUBNETS_STRING)) {
+    public String execute(CommandArguments args) {
+        if (args.size() != 2 || !args.get(1).equals(SUBNETS_STRING)) {
             return ERROR_FORMAT;
         }
-        // Get the CIDRs of all subnets in the network.
-        List<String> subnetCIDRs = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
         for (Subnet subnet : network.getSubnets()) {
-            subnetCIDRs.add(subnet.getCidr());
+            if (!sb.isEmpty()) {
+                sb.append(EMPTY_SPACE);
+            }
+            sb.append(subnet.getCidr());
         }
-        // Sort the subnets by their CIDR and return them.
-        subnetCIDRs.sort(IpAddressComparator::compareSubnetCIDRs);
-        return String.join(EMPTY_SPACE, subnetCIDRs);
+        return sb.toString();
     }
 }
@@ -1,21 +1,33 @@
 package commands.list;
 
 import commands.Command;
+import commands.CommandArguments;
+import helpers.IpAddress;
 import model.*;
-import helpers.IpAddressComparator;
 
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 /**
  * This class represents a command to list all systems in a subnet.
  * The command takes a network and a subnet as input and returns a list of all systems in the subnet.
+ * The router comes first, followed by the computers in the order of their addresses, which is the order the snapshot
+ * keeps them in. For huge subnets, a page of the list can be requested with its first position and its length,
+ * which is read from the snapshot directly without walking the positions before it.
  */
 public class ListSystems implements Command {
-    private static final String ERROR_FORMAT = "Error, Invalid command format. Use 'list systems <subnet>'";
+    private static final String ERROR_FORMAT =
+        "Error, Invalid command format. Use 'list systems <subnet> [<first> <count>]'";
     private static final String ERROR_SUBNET = "Error, Subnet not found.";
+    private static final String ERROR_PAGE = "Error, The first position must not be negative and the count positive.";
     private static final String EMPTY_SPACE = " ";
     private static final int FORMAT_ARGS = 3;
+    private static final int PAGED_FORMAT_ARGS = 5;
+    private static final int FIRST_ARG = 3;
+    private static final int COUNT_ARG = 4;
+    private static final Comparator<SystemNode> BY_ADDRESS =
+        Comparator.comparingLong(system -> IpAddress.toUnsigned(system.getAddress()));
     private final Network network;
 
     /**
@@ -27,30 +39,52 @@ public ListSystems(Network network) {
     }
 
     @Override
-    public String execute(String[] args) {
-        if (args.length != FORMAT_ARGS) {
+    public String execute(CommandArguments args) {
+        if (args.size() != FORMAT_ARGS && args.size() != PAGED_FORMAT_ARGS) {
             return ERROR_FORMAT;
         }
-        String subnetCidr = args[2];
+        String subnetCidr = args.get(2);
         Subnet subnet = network.getSubnetByCidr(subnetCidr);
         if (subnet == null) {
             return ERROR_SUBNET;
         }
-        // We differentiate the routers from the computer systems.
-        List<String> routerIps = new ArrayList<>();
-        List<String> otherIps = new ArrayList<>();
-        // Sort the systems by their IP addresses.
-        for (SystemNode system : subnet.getSystems()) {
-            if (system instanceof Router) {
-                routerIps.add(system.getIpAddress());
-            } else {
-                otherIps.add(system.getIpAddress());
+        long first = 0;
+        long count = Long.MAX_VALUE;
+        if (args.size() == PAGED_FORMAT_ARGS) {
+            try {
+                first = Long.parseLong(args.get(FIRST_ARG));
+                count = Long.parseLong(args.get(COUNT_ARG));
+            } catch (NumberFormatException e) {
+                return ERROR_PAGE;
             }
+            if (first < 0 || count <= 0) {
+                return ERROR_PAGE;
+            }
+        }
+        // The view is sorted by address, so the page is taken from it by position, skipping over the router slot.
+        NetworkSnapshot snapshot = network.getSnapshot();
+        List<SystemNode> systems = snapshot.getSystems(subnet);
+        Router router = snapshot.getRouter(subnet);
+        int routerIndex = router == null ? -1 : Collections.binarySearch(systems, router, BY_ADDRESS);
+        StringBuilder sb = new StringBuilder();
+        long end = first + Math.min(count, Long.MAX_VALUE - first);
+        for (long position = first; position < Math.min(end, systems.size()); position++) {
+            if (!sb.isEmpty()) {
+                sb.append(EMPTY_SPACE);
+            }
+            sb.append(systems.get(indexOf(position, routerIndex)).getIpAddress());
         }
+        return sb.toString();
+    }
 
-        otherIps.sort(IpAddressComparator::compareIpAddresses);
-        routerIps.addAll(otherIps);
-        // Return the list of systems.
-        return String.join(EMPTY_SPACE, routerIps);
+    // Maps a position of the listing to the index in the view, where the router sits between the computers.
+    private static int indexOf(long position, int routerIndex) {
+        if (routerIndex < 0) {
+            return (int) position;
+        }
+        if (position == 0) {
+            return routerIndex;
+        }
+        return (int) (position <= routerIndex ? position - 1 : position);
     }
 }
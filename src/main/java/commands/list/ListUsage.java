@@ -0,0 +1,42 @@
+package commands.list;
+
+import commands.Command;
+import commands.CommandArguments;
+import model.Network;
+import model.Subnet;
+
+/**
+ * This class represents a command to list the address usage of a subnet.
+ * The command returns the number of used and available host addresses and the utilisation in percent,
+ * counted in the host table of the subnet without visiting its systems one by one.
+ */
+public class ListUsage implements Command {
+    private static final String ERROR_FORMAT = "Error, Invalid command format. Use 'list usage <subnet>'";
+    private static final String ERROR_SUBNET = "Error, Subnet not found.";
+    private static final String USAGE_FORMAT = "%d/%d %.2f%%";
+    private static final double PERCENT = 100.0;
+    private static final int ARGUMENT_LENGTH = 3;
+    private final Network network;
+
+    /**
+     * This constructor creates a new ListUsage command with the given network.
+     * @param network The network to list the usage from.
+     */
+    public ListUsage(Network network) {
+        this.network = network;
+    }
+
+    @Override
+    public String execute(CommandArguments args) {
+        if (args.size() != ARGUMENT_LENGTH) {
+            return ERROR_FORMAT;
+        }
+        Subnet subnet = network.getSubnetByCidr(args.get(2));
+        if (subnet == null) {
+            return ERROR_SUBNET;
+        }
+        long used = network.getSnapshot().getUsedAddressCount(subnet);
+        long hosts = subnet.getHostAddressCount();
+        return String.format(USAGE_FORMAT, used, hosts, hosts == 0 ? 0 : used * PERCENT / hosts);
+    }
+}
@@ -0,0 +1,43 @@
+package events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Frequency;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for parsing and validating a network file.
+ * The event is only filled and committed while a recording has it enabled.
+ */
+@Name("subnetting.NetworkLoad")
+@Label("Network Load")
+@Category("Subnetting Sim")
+@Description("Parsing and validation of a network file")
+@StackTrace(false)
+public class NetworkLoadEvent extends Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Lines")
+    public int lines;
+
+    @Label("Subnets")
+    public int subnets;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Throughput")
+    @Description("Bytes parsed per second")
+    @DataAmount
+    @Frequency
+    public long bytesPerSecond;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
@@ -0,0 +1,37 @@
+package events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for a single shortest path query of the path finder.
+ * The event is only filled and committed while a recording has it enabled.
+ */
+@Name("subnetting.PathFinding")
+@Label("Path Finding")
+@Category("Subnetting Sim")
+@Description("A shortest path query between two systems")
+@StackTrace(false)
+public class PathFindingEvent extends Event {
+    @Label("Source")
+    public String source;
+
+    @Label("Destination")
+    public String destination;
+
+    @Label("Algorithm")
+    @Description("The search algorithm used inside the subnets")
+    public String algorithm;
+
+    @Label("Nodes Settled")
+    @Description("Number of systems taken from the priority queue over all searches of the query")
+    public int nodesSettled;
+
+    @Label("Path Length")
+    @Description("Number of systems on the path found, 0 if there is no path")
+    public int pathLength;
+}
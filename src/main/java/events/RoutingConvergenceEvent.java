@@ -0,0 +1,30 @@
+package events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for one convergence of the BGP routing tables.
+ * The event is only filled and committed while a recording has it enabled.
+ */
+@Name("subnetting.RoutingConvergence")
+@Label("Routing Convergence")
+@Category("Subnetting Sim")
+@Description("Recomputation of the BGP routing tables of all routers")
+@StackTrace(false)
+public class RoutingConvergenceEvent extends Event {
+    @Label("Rounds")
+    @Description("Number of rounds over all routers until no table changed")
+    public int rounds;
+
+    @Label("Routers")
+    public int routers;
+
+    @Label("Routers Touched")
+    @Description("Number of routers whose routing table differs from the one before the convergence")
+    public int routersTouched;
+}
@@ -0,0 +1,118 @@
+package helpers;
+
+import model.SubnetGraph;
+
+/**
+ * The connected components of a subnet graph as a union-find forest over the system indices.
+ * The forest is never changed once it is built, so lookups need no lock and do not compress paths.
+ * It is flattened when computed, and unions made afterwards link the smaller tree below the larger one,
+ * which keeps every lookup short.
+ * A connection added to a graph whose components are known joins the two components in a copy of the forest,
+ * a removed connection makes the components of the next graph be computed again.
+ */
+public final class Connectivity {
+    private final int[] parents;
+    private final int[] sizes;
+
+    private Connectivity(int[] parents, int[] sizes) {
+        this.parents = parents;
+        this.sizes = sizes;
+    }
+
+    /**
+     * Returns the components of the subnet graph, derived from those of the previous graph where possible.
+     * The components are cached on the graph.
+     * @param graph the graph of the subnet.
+     * @return the components.
+     */
+    public static Connectivity of(SubnetGraph graph) {
+        return graph.getDerived(Connectivity.class, Connectivity::computeOrDerive);
+    }
+
+    /**
+     * Computes the components of a subnet graph from scratch.
+     * @param graph the graph of the subnet.
+     * @return the components.
+     */
+    public static Connectivity compute(SubnetGraph graph) {
+        int size = graph.size();
+        int[] parents = new int[size];
+        int[] sizes = new int[size];
+        for (int i = 0; i < size; i++) {
+            parents[i] = i;
+            sizes[i] = 1;
+        }
+        for (int node = 0; node < size; node++) {
+            for (int edge = graph.getEdgeStart(node); edge < graph.getEdgeEnd(node); edge++) {
+                union(parents, sizes, node, graph.getEdgeTarget(edge));
+            }
+        }
+        // Every system points straight to its root afterwards.
+        for (int node = 0; node < size; node++) {
+            parents[node] = find(parents, node);
+        }
+        return new Connectivity(parents, sizes);
+    }
+
+    // A weight change keeps the components, an added connection joins two of them, a removed one splits them.
+    private static Connectivity computeOrDerive(SubnetGraph graph) {
+        SubnetGraph.Change change = graph.getChange();
+        Connectivity previous = change == null ? null : change.getPrevious().getDerivedIfPresent(Connectivity.class);
+        if (previous == null || change.getNewWeight() == SubnetGraph.Change.NO_EDGE) {
+            return compute(graph);
+        }
+        if (change.getOldWeight() != SubnetGraph.Change.NO_EDGE) {
+            return previous;
+        }
+        return previous.withConnection(change.getFirst(), change.getSecond());
+    }
+
+    /**
+     * Returns the components after adding a connection between two systems.
+     * @param first the index of the first system.
+     * @param second the index of the second system.
+     * @return the joined components, or these components if the systems were already connected.
+     */
+    public Connectivity withConnection(int first, int second) {
+        if (connected(first, second)) {
+            return this;
+        }
+        int[] newParents = parents.clone();
+        int[] newSizes = sizes.clone();
+        union(newParents, newSizes, first, second);
+        return new Connectivity(newParents, newSizes);
+    }
+
+    /**
+     * Checks whether two systems are in the same component.
+     * @param first the index of the first system.
+     * @param second the index of the second system.
+     * @return true if there is a path between the systems.
+     */
+    public boolean connected(int first, int second) {
+        return find(parents, first) == find(parents, second);
+    }
+
+    private static int find(int[] parents, int node) {
+        int root = node;
+        while (parents[root] != root) {
+            root = parents[root];
+        }
+        return root;
+    }
+
+    private static void union(int[] parents, int[] sizes, int first, int second) {
+        int firstRoot = find(parents, first);
+        int secondRoot = find(parents, second);
+        if (firstRoot == secondRoot) {
+            return;
+        }
+        if (sizes[firstRoot] < sizes[secondRoot]) {
+            int swap = firstRoot;
+            firstRoot = secondRoot;
+            secondRoot = swap;
+        }
+        parents[secondRoot] = firstRoot;
+        sizes[firstRoot] += sizes[secondRoot];
+    }
+}
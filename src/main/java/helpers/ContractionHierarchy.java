@@ -0,0 +1,514 @@
+package helpers;
+
+import model.NetworkSnapshot;
+import model.Subnet;
+import model.SubnetGraph;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A contraction hierarchy of a subnet graph, answering shortest path queries by searching only a few systems.
+ * Preprocessing contracts the systems one by one in order of importance. Contracting a system adds a shortcut
+ * between two of its remaining neighbors whenever the path through it is the only shortest connection between them.
+ * A query then runs Dijkstra from both ends using only connections towards more important systems,
+ * and unpacks the shortcuts of the best meeting into the original systems.
+ * The hierarchy belongs to one immutable graph, so a subnet changed after preprocessing simply has none.
+ * Only subnets large enough for the hierarchy to pay off are preprocessed, in the background after loading,
+ * while queries on the other subnets and on those still being preprocessed run Dijkstra.
+ */
+public final class ContractionHierarchy {
+    private static final int UNREACHABLE = ShortestPathTree.UNREACHABLE;
+    private static final int NONE = -1;
+    private static final int WITNESS_SETTLE_LIMIT = 64;
+    private static final int WITNESS_SETTLE_BUDGET = 1024;
+    private static final int MAX_SEARCHED_DEGREE = 32;
+    private static final int MIN_PREPROCESSED_SIZE = 256;
+    private static final int PRIORITY_OFFSET = 1 << 24;
+    private final int[] upwardOffsets;
+    private final int[] upwardTargets;
+    private final int[] upwardWeights;
+    private final int[] upwardMiddles;
+    private final Queue<Workspace> idleWorkspaces;
+
+    private ContractionHierarchy(int[] upwardOffsets, int[] upwardTargets, int[] upwardWeights, int[] upwardMiddles) {
+        this.upwardOffsets = upwardOffsets;
+        this.upwardTargets = upwardTargets;
+        this.upwardWeights = upwardWeights;
+        this.upwardMiddles = upwardMiddles;
+        this.idleWorkspaces = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Builds the hierarchies of all large subnets of a snapshot in parallel and caches them with the subnet graphs.
+     * @param snapshot The snapshot whose subnets are preprocessed.
+     */
+    public static void preprocess(NetworkSnapshot snapshot) {
+        snapshot.getSubnets().parallelStream()
+            .map(snapshot::getSubnetGraph)
+            .filter(graph -> graph.size() >= MIN_PREPROCESSED_SIZE)
+            .forEach(graph -> graph.getDerived(ContractionHierarchy.class, ContractionHierarchy::build));
+    }
+
+    /**
+     * Preprocesses a snapshot on another thread, so that changes to the network do not wait for it.
+     * @param snapshot The snapshot whose subnets are preprocessed.
+     * @param statistics The statistics that record the time of the preprocessing.
+     * @return The future that completes once all hierarchies are built.
+     */
+    public static CompletableFuture<Void> preprocessInBackground(NetworkSnapshot snapshot, Statistics statistics) {
+        return CompletableFuture.runAsync(() -> {
+            long start = System.nanoTime();
+            preprocess(snapshot);
+            statistics.record(Statistics.CONTRACTION, System.nanoTime() - start);
+        });
+    }
+
+    /**
+     * Returns the hierarchy of a subnet if it was preprocessed and has not changed since.
+     * @param snapshot The snapshot of the network.
+     * @param subnet The subnet.
+     * @return The hierarchy, or null if there is none for the current graph of the subnet.
+     */
+    public static ContractionHierarchy getIfPresent(NetworkSnapshot snapshot, Subnet subnet) {
+        return snapshot.getSubnetGraph(subnet).getDerivedIfPresent(ContractionHierarchy.class);
+    }
+
+    /**
+     * Contracts all systems of a graph and builds the hierarchy.
+     * @param graph The graph of the subnet.
+     * @return The hierarchy of the graph.
+     */
+    public static ContractionHierarchy build(SubnetGraph graph) {
+        return new Builder(graph).build();
+    }
+
+    /**
+     * Finds a shortest path with a bidirectional search upwards in the hierarchy.
+     * @param source The index of the source system.
+     * @param target The index of the destination system.
+     * @param settledCounter An array whose first element is increased by the number of settled systems.
+     * @return The indices of the systems on the path, or null if there is none.
+     */
+    int[] search(int source, int target, int[] settledCounter) {
+        // A workspace is only used by one query at a time, so there are never more than the concurrent queries.
+        Workspace workspace = idleWorkspaces.poll();
+        if (workspace == null) {
+            workspace = new Workspace(upwardOffsets.length - 1);
+        }
+        int[][] distances = workspace.distances;
+        int[][] previous = workspace.previous;
+        LongHeap[] heaps = workspace.heaps;
+        workspace.reach(0, source, 0, NONE);
+        workspace.reach(1, target, 0, NONE);
+        long best = Long.MAX_VALUE;
+        int meeting = NONE;
+        int side = 0;
+        while (!heaps[0].isEmpty() || !heaps[1].isEmpty()) {
+            // Each direction stops on its own once its frontier is not below the best meeting.
+            if (heaps[side].isEmpty() || LongHeap.keyOf(heaps[side].peek()) >= best) {
+                heaps[side].clear();
+                side = 1 - side;
+                continue;
+            }
+            long entry = heaps[side].poll();
+            int current = LongHeap.indexOf(entry);
+            int[] own = distances[side];
+            if (LongHeap.keyOf(entry) > own[current]) {
+                continue;
+            }
+            settledCounter[0]++;
+            int other = distances[1 - side][current];
+            if (other != UNREACHABLE && (long) own[current] + other < best) {
+                best = (long) own[current] + other;
+                meeting = current;
+            }
+            for (int edge = upwardOffsets[current]; edge < upwardOffsets[current + 1]; edge++) {
+                int neighbor = upwardTargets[edge];
+                int distance = own[current] + upwardWeights[edge];
+                if (distance < own[neighbor]) {
+                    workspace.reach(side, neighbor, distance, current);
+                }
+            }
+            side = 1 - side;
+        }
+        int[] path = meeting == NONE ? null : unpack(previous, meeting);
+        workspace.reset();
+        idleWorkspaces.add(workspace);
+        return path;
+    }
+
+    private int[] unpack(int[][] previous, int meeting) {
+        IntList path = new IntList();
+        appendUnpacked(path, previous[0], meeting, true);
+        path.removeLast();
+        appendUnpacked(path, previous[1], meeting, false);
+        return path.toArray();
+    }
+
+    // Appends the path between the root of a search and the meeting system, with all shortcuts unpacked.
+    private void appendUnpacked(IntList path, int[] previous, int meeting, boolean towardsMeeting) {
+        IntList hierarchyPath = new IntList();
+        for (int current = meeting; current != NONE; current = previous[current]) {
+            hierarchyPath.add(current);
+        }
+        if (towardsMeeting) {
+            hierarchyPath.reverse();
+        }
+        path.add(hierarchyPath.get(0));
+        for (int i = 1; i < hierarchyPath.size(); i++) {
+            unpackEdge(path, hierarchyPath.get(i - 1), hierarchyPath.get(i));
+        }
+    }
+
+    // Replaces shortcuts by the two edges they stand for until only original connections remain.
+    private void unpackEdge(IntList path, int from, int to) {
+        IntList stack = new IntList();
+        stack.add(to);
+        int current = from;
+        while (stack.size() > 0) {
+            int next = stack.get(stack.size() - 1);
+            int middle = middleOf(current, next);
+            if (middle == NONE) {
+                path.add(next);
+                current = next;
+                stack.removeLast();
+            } else {
+                stack.add(middle);
+            }
+        }
+    }
+
+    // The edge between two systems is stored at the less important one of them.
+    private int middleOf(int first, int second) {
+        int middle = findMiddle(first, second);
+        return middle != Integer.MIN_VALUE ? middle : findMiddle(second, first);
+    }
+
+    private int findMiddle(int lower, int upper) {
+        for (int edge = upwardOffsets[lower]; edge < upwardOffsets[lower + 1]; edge++) {
+            if (upwardTargets[edge] == upper) {
+                return upwardMiddles[edge];
+            }
+        }
+        return Integer.MIN_VALUE;
+    }
+
+    /**
+     * Contracts the systems of a graph in the order of their priority, which is updated lazily.
+     * The priority of a system is the number of shortcuts its contraction adds minus the number of its
+     * connections, plus the number of neighbors already contracted, which spreads contraction over the graph.
+     * The witness searches of one system share a budget of settled systems, and the shortcuts of systems with many
+     * connections are estimated without searching, so the work per system stays bounded even for hubs.
+     */
+    private static final class Builder {
+        private final int size;
+        private final IntList[] targets;
+        private final IntList[] weights;
+        private final IntList[] middles;
+        private final boolean[] contracted;
+        private final int[] contractedNeighbors;
+        private final int[] witnessDistances;
+        private final IntList witnessTouched;
+        private final LongHeap witnessHeap;
+        private final IntList[] upTargets;
+        private final IntList[] upWeights;
+        private final IntList[] upMiddles;
+
+        Builder(SubnetGraph graph) {
+            this.size = graph.size();
+            this.targets = new IntList[size];
+            this.weights = new IntList[size];
+            this.middles = new IntList[size];
+            this.upTargets = new IntList[size];
+            this.upWeights = new IntList[size];
+            this.upMiddles = new IntList[size];
+            this.contracted = new boolean[size];
+            this.contractedNeighbors = new int[size];
+            this.witnessDistances = new int[size];
+            this.witnessTouched = new IntList();
+            this.witnessHeap = new LongHeap();
+            Arrays.fill(witnessDistances, UNREACHABLE);
+            for (int node = 0; node < size; node++) {
+                targets[node] = new IntList();
+                weights[node] = new IntList();
+                middles[node] = new IntList();
+            }
+            for (int node = 0; node < size; node++) {
+                for (int edge = graph.getEdgeStart(node); edge < graph.getEdgeEnd(node); edge++) {
+                    addOrImprove(node, graph.getEdgeTarget(edge), graph.getEdgeWeight(edge), NONE);
+                }
+            }
+        }
+
+        ContractionHierarchy build() {
+            LongHeap queue = new LongHeap();
+            for (int node = 0; node < size; node++) {
+                queue.add(LongHeap.pack(priority(node), node));
+            }
+            while (!queue.isEmpty()) {
+                int node = LongHeap.indexOf(queue.poll());
+                // The priority may have changed since it was queued, so contract only if it is still the smallest.
+                int current = priority(node);
+                if (!queue.isEmpty() && current > LongHeap.keyOf(queue.peek())) {
+                    queue.add(LongHeap.pack(current, node));
+                    continue;
+                }
+                contract(node);
+            }
+            return toHierarchy();
+        }
+
+        private int priority(int node) {
+            int degree = 0;
+            for (int i = 0; i < targets[node].size(); i++) {
+                if (!contracted[targets[node].get(i)]) {
+                    degree++;
+                }
+            }
+            int shortcuts;
+            if (degree > MAX_SEARCHED_DEGREE) {
+                // Every pair of neighbors may need a shortcut, which puts hubs last, when few neighbors remain.
+                shortcuts = degree * (degree - 1) / 2;
+            } else {
+                int[] counts = new int[1];
+                forEachShortcut(node, (from, to, weight) -> counts[0]++);
+                shortcuts = counts[0];
+            }
+            return PRIORITY_OFFSET + shortcuts - degree + contractedNeighbors[node];
+        }
+
+        private void contract(int node) {
+            forEachShortcut(node, (from, to, weight) -> {
+                addOrImprove(from, to, weight, node);
+                addOrImprove(to, from, weight, node);
+            });
+            contracted[node] = true;
+            // The remaining neighbors are more important, so the current edges are the upward edges of the node.
+            upTargets[node] = new IntList();
+            upWeights[node] = new IntList();
+            upMiddles[node] = new IntList();
+            for (int i = 0; i < targets[node].size(); i++) {
+                int neighbor = targets[node].get(i);
+                if (!contracted[neighbor]) {
+                    upTargets[node].add(neighbor);
+                    upWeights[node].add(weights[node].get(i));
+                    upMiddles[node].add(middles[node].get(i));
+                    contractedNeighbors[neighbor]++;
+                }
+            }
+            // Edges of the node are no longer needed by the remaining graph.
+            targets[node] = null;
+            weights[node] = null;
+            middles[node] = null;
+        }
+
+        // Calls the action for every pair of remaining neighbors that needs a shortcut over the node.
+        // Once the budget is used up, a pair counts as needing one, which adds shortcuts but never loses a path.
+        private void forEachShortcut(int node, ShortcutAction action) {
+            IntList nodeTargets = targets[node];
+            int budget = WITNESS_SETTLE_BUDGET;
+            for (int i = 0; i < nodeTargets.size(); i++) {
+                int from = nodeTargets.get(i);
+                if (contracted[from]) {
+                    continue;
+                }
+                int maxDistance = 0;
+                for (int j = 0; j < nodeTargets.size(); j++) {
+                    if (j != i && !contracted[nodeTargets.get(j)]) {
+                        maxDistance = Math.max(maxDistance, weights[node].get(i) + weights[node].get(j));
+                    }
+                }
+                budget -= witnessSearch(from, node, maxDistance, Math.min(WITNESS_SETTLE_LIMIT, budget));
+                for (int j = 0; j < nodeTargets.size(); j++) {
+                    int to = nodeTargets.get(j);
+                    if (j == i || contracted[to]) {
+                        continue;
+                    }
+                    int viaNode = weights[node].get(i) + weights[node].get(j);
+                    // Each pair is seen from both ends, so only the lower index reports it.
+                    if (from < to && witnessDistances[to] > viaNode) {
+                        action.accept(from, to, viaNode);
+                    }
+                }
+                resetWitnessSearch();
+            }
+        }
+
+        // A Dijkstra limited in distance and settled systems that avoids the node being contracted.
+        // Returns the number of settled systems.
+        private int witnessSearch(int source, int avoided, int maxDistance, int settleLimit) {
+            witnessDistances[source] = 0;
+            witnessTouched.add(source);
+            witnessHeap.add(LongHeap.pack(0, source));
+            int settled = 0;
+            while (!witnessHeap.isEmpty() && settled < settleLimit) {
+                long entry = witnessHeap.poll();
+                int current = LongHeap.indexOf(entry);
+                int distance = LongHeap.keyOf(entry);
+                if (distance > witnessDistances[current]) {
+                    continue;
+                }
+                if (distance > maxDistance) {
+                    break;
+                }
+                settled++;
+                for (int i = 0; i < targets[current].size(); i++) {
+                    int neighbor = targets[current].get(i);
+                    if (neighbor == avoided || contracted[neighbor]) {
+                        continue;
+                    }
+                    int candidate = distance + weights[current].get(i);
+                    if (candidate < witnessDistances[neighbor]) {
+                        if (witnessDistances[neighbor] == UNREACHABLE) {
+                            witnessTouched.add(neighbor);
+                        }
+                        witnessDistances[neighbor] = candidate;
+                        witnessHeap.add(LongHeap.pack(candidate, neighbor));
+                    }
+                }
+            }
+            return settled;
+        }
+
+        private void resetWitnessSearch() {
+            for (int i = 0; i < witnessTouched.size(); i++) {
+                witnessDistances[witnessTouched.get(i)] = UNREACHABLE;
+            }
+            witnessTouched.clear();
+            witnessHeap.clear();
+        }
+
+        // Keeps only the lightest edge between two systems.
+        private void addOrImprove(int from, int to, int weight, int middle) {
+            IntList fromTargets = targets[from];
+            for (int i = 0; i < fromTargets.size(); i++) {
+                if (fromTargets.get(i) == to) {
+                    if (weight < weights[from].get(i)) {
+                        weights[from].set(i, weight);
+                        middles[from].set(i, middle);
+                    }
+                    return;
+                }
+            }
+            fromTargets.add(to);
+            weights[from].add(weight);
+            middles[from].add(middle);
+        }
+
+        private ContractionHierarchy toHierarchy() {
+            int[] offsets = new int[size + 1];
+            for (int node = 0; node < size; node++) {
+                offsets[node + 1] = offsets[node] + upTargets[node].size();
+            }
+            int[] upwardTargets = new int[offsets[size]];
+            int[] upwardWeights = new int[offsets[size]];
+            int[] upwardMiddles = new int[offsets[size]];
+            for (int node = 0; node < size; node++) {
+                for (int i = 0; i < upTargets[node].size(); i++) {
+                    upwardTargets[offsets[node] + i] = upTargets[node].get(i);
+                    upwardWeights[offsets[node] + i] = upWeights[node].get(i);
+                    upwardMiddles[offsets[node] + i] = upMiddles[node].get(i);
+                }
+            }
+            return new ContractionHierarchy(offsets, upwardTargets, upwardWeights, upwardMiddles);
+        }
+    }
+
+    /**
+     * The arrays of a query, kept for reuse by later queries so a query only touches and resets the few systems it reaches
+     * instead of allocating and filling arrays for the whole subnet.
+     */
+    private static final class Workspace {
+        private final int[][] distances;
+        private final int[][] previous;
+        private final LongHeap[] heaps = {new LongHeap(), new LongHeap()};
+        private final IntList touched = new IntList();
+
+        Workspace(int size) {
+            this.distances = new int[][] {new int[size], new int[size]};
+            this.previous = new int[][] {new int[size], new int[size]};
+            for (int side = 0; side < 2; side++) {
+                Arrays.fill(distances[side], UNREACHABLE);
+                Arrays.fill(previous[side], NONE);
+            }
+        }
+
+        void reach(int side, int node, int distance, int parent) {
+            if (distances[0][node] == UNREACHABLE && distances[1][node] == UNREACHABLE) {
+                touched.add(node);
+            }
+            distances[side][node] = distance;
+            previous[side][node] = parent;
+            heaps[side].add(LongHeap.pack(distance, node));
+        }
+
+        void reset() {
+            for (int i = 0; i < touched.size(); i++) {
+                int node = touched.get(i);
+                for (int side = 0; side < 2; side++) {
+                    distances[side][node] = UNREACHABLE;
+                    previous[side][node] = NONE;
+                }
+            }
+            touched.clear();
+            heaps[0].clear();
+            heaps[1].clear();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ShortcutAction {
+        void accept(int from, int to, int weight);
+    }
+
+    /**
+     * A growable list of primitive ints.
+     */
+    private static final class IntList {
+        private static final int INITIAL_CAPACITY = 4;
+        private int[] values = new int[INITIAL_CAPACITY];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        void set(int index, int value) {
+            values[index] = value;
+        }
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void removeLast() {
+            size--;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void reverse() {
+            for (int i = 0, j = size - 1; i < j; i++, j--) {
+                int value = values[i];
+                values[i] = values[j];
+                values[j] = value;
+            }
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package helpers;
+
+import model.Connection;
+import model.NetworkSnapshot;
+import model.Router;
+import model.Subnet;
+import model.SubnetGraph;
+import model.SystemNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Evaluates what happens to the pairs of systems if a single connection or router fails, without changing the network.
+ * The failed element is masked out of the searches on the immutable graphs of one snapshot instead of being removed.
+ * Inside a subnet a shortest-path tree is computed from every source in parallel, and only sources whose tree uses
+ * the failed element are searched again, as the paths of all other sources keep their cost.
+ * Between subnets the routers are compared by hop count, the same measure the BGP tables are built on, and every
+ * pair of subnets counts as many pairs of systems as can reach the two routers.
+ * Pairs without a path before the failure, and pairs with a failed router as one end, are not counted.
+ */
+public final class FailureAnalysis {
+    private static final int NONE = -1;
+    private static final int UNREACHABLE = ShortestPathTree.UNREACHABLE;
+    private static final Comparator<SystemNode> BY_ADDRESS =
+        (first, second) -> Integer.compareUnsigned(first.getAddress(), second.getAddress());
+    private final NetworkSnapshot snapshot;
+    private final List<Router> routers;
+    private final Map<Router, Integer> routerIndices;
+    private final int[][] routerNeighbors;
+    private final long[] reachingSystems;
+    private final int[][] baselineHops;
+
+    /**
+     * Creates an analysis of the given snapshot and computes the hop counts between all routers.
+     * @param snapshot the snapshot to analyze.
+     */
+    public FailureAnalysis(NetworkSnapshot snapshot) {
+        this.snapshot = snapshot;
+        this.routers = snapshot.getRouters();
+        this.routerIndices = new HashMap<>();
+        for (int i = 0; i < routers.size(); i++) {
+            routerIndices.put(routers.get(i), i);
+        }
+        this.routerNeighbors = new int[routers.size()][];
+        this.reachingSystems = new long[routers.size()];
+        for (int i = 0; i < routers.size(); i++) {
+            Router router = routers.get(i);
+            routerNeighbors[i] = snapshot.getConnections(router).stream()
+                .map(connection -> connection.getOtherSystem(router))
+                .filter(neighbor -> neighbor.getSubnet() != router.getSubnet() && routerIndices.containsKey(neighbor))
+                .mapToInt(routerIndices::get)
+                .toArray();
+            reachingSystems[i] = countReaching(snapshot.getSubnetGraph(router.getSubnet()));
+        }
+        this.baselineHops = routerHops(NONE, NONE, NONE);
+    }
+
+    /**
+     * Analyzes the failure of a single connection.
+     * @param connection the connection that fails.
+     * @return the impact of the failure.
+     */
+    public Impact analyzeConnection(Connection connection) {
+        Impact impact = new Impact(connection, null);
+        analyzeConnections(List.of(impact));
+        return impact;
+    }
+
+    /**
+     * Analyzes the failure of a router, which cuts its subnet off and may reroute traffic between other subnets.
+     * @param router the router that fails.
+     * @return the impact of the failure.
+     */
+    public Impact analyzeRouter(Router router) {
+        Impact impact = new Impact(null, router);
+        SubnetGraph graph = snapshot.getSubnetGraph(router.getSubnet());
+        int node = graph.indexOf(router.getAddress());
+        if (node == NONE) {
+            return impact;
+        }
+        analyzeSubnet(graph, List.of(new IntraFailure(node, NONE, impact)));
+        Integer index = routerIndices.get(router);
+        if (index != null) {
+            // Every other system of the subnet loses all destinations behind the router.
+            impact.lost.add((reachingSystems[index] - 1) * reachableOutside(index));
+            compareRouterHops(routerHops(index, NONE, NONE), index, impact);
+        }
+        return impact;
+    }
+
+    /**
+     * Analyzes the failure of every connection of the snapshot, one at a time.
+     * @return the impacts of the failures, most lost pairs first, without the failures that affect no pair.
+     */
+    public List<Impact> analyzeAllConnections() {
+        List<Impact> impacts = new ArrayList<>();
+        for (Connection connection : snapshot.getConnections()) {
+            impacts.add(new Impact(connection, null));
+        }
+        analyzeConnections(impacts);
+        return impacts.stream()
+            .filter(impact -> impact.getLostPairs() > 0 || impact.getLongerPairs() > 0)
+            .sorted(Comparator.comparingLong(Impact::getLostPairs).thenComparingLong(Impact::getLongerPairs)
+                .reversed()
+                .thenComparing(impact -> impact.getConnection().getSystem1(), BY_ADDRESS)
+                .thenComparing(impact -> impact.getConnection().getSystem2(), BY_ADDRESS))
+            .toList();
+    }
+
+    // Groups the connection failures by subnet, so each subnet computes its baseline trees only once.
+    private void analyzeConnections(List<Impact> impacts) {
+        Map<Subnet, List<IntraFailure>> failuresBySubnet = new HashMap<>();
+        List<Impact> interSubnet = new ArrayList<>();
+        for (Impact impact : impacts) {
+            Connection connection = impact.getConnection();
+            Subnet subnet = connection.getSystem1().getSubnet();
+            if (subnet != connection.getSystem2().getSubnet()) {
+                interSubnet.add(impact);
+                continue;
+            }
+            SubnetGraph graph = snapshot.getSubnetGraph(subnet);
+            failuresBySubnet.computeIfAbsent(subnet, key -> new ArrayList<>()).add(new IntraFailure(
+                graph.indexOf(connection.getSystem1().getAddress()),
+                graph.indexOf(connection.getSystem2().getAddress()), impact));
+        }
+        failuresBySubnet.forEach((subnet, failures) -> analyzeSubnet(snapshot.getSubnetGraph(subnet), failures));
+        interSubnet.parallelStream().forEach(impact -> {
+            Integer first = routerIndices.get(impact.getConnection().getSystem1());
+            Integer second = routerIndices.get(impact.getConnection().getSystem2());
+            if (first != null && second != null) {
+                compareRouterHops(routerHops(NONE, first, second), NONE, impact);
+            }
+        });
+    }
+
+    // Compares the distances from every source with and without each failure that its baseline tree uses.
+    private void analyzeSubnet(SubnetGraph graph, List<IntraFailure> failures) {
+        int routerNode = graph.getRouterIndex();
+        Integer router = routerNode == NONE ? null : routerIndices.get((Router) graph.getNode(routerNode));
+        long outside = router == null ? 0 : reachableOutside(router);
+        IntStream.range(0, graph.size()).parallel().forEach(source -> {
+            ShortestPathTree baseline = ShortestPathTree.compute(graph, source);
+            for (IntraFailure failure : failures) {
+                if (failure.isNode() && failure.first == source || !failure.isUsedBy(graph, baseline)) {
+                    continue;
+                }
+                int[] distances = maskedDistances(graph, source, failure);
+                for (int target = 0; target < graph.size(); target++) {
+                    int before = baseline.getDistance(target);
+                    if (target == source || before == UNREACHABLE || failure.isNode() && target == failure.first) {
+                        continue;
+                    }
+                    // Each pair inside the subnet is counted from its lower index, and the distances from the
+                    // router also decide the paths to all systems behind it.
+                    long pairs = (target > source ? 1 : 0) + (source == routerNode ? outside : 0);
+                    failure.impact.record(pairs, before, distances[target]);
+                }
+            }
+        });
+    }
+
+    // Runs Dijkstra from the source while skipping the failed connection or system.
+    private static int[] maskedDistances(SubnetGraph graph, int source, IntraFailure failure) {
+        int[] distances = new int[graph.size()];
+        Arrays.fill(distances, UNREACHABLE);
+        LongHeap heap = new LongHeap();
+        distances[source] = 0;
+        heap.add(LongHeap.pack(0, source));
+        while (!heap.isEmpty()) {
+            long entry = heap.poll();
+            int current = LongHeap.indexOf(entry);
+            if (LongHeap.keyOf(entry) > distances[current]) {
+                continue;
+            }
+            for (int edge = graph.getEdgeStart(current); edge < graph.getEdgeEnd(current); edge++) {
+                int neighbor = graph.getEdgeTarget(edge);
+                if (failure.masks(current, neighbor)) {
+                    continue;
+                }
+                int distance = distances[current] + graph.getEdgeWeight(edge);
+                if (distance < distances[neighbor]) {
+                    distances[neighbor] = distance;
+                    heap.add(LongHeap.pack(distance, neighbor));
+                }
+            }
+        }
+        return distances;
+    }
+
+    // Compares the hop counts between all pairs of routers, leaving out the failed router.
+    private void compareRouterHops(int[][] hops, int failedRouter, Impact impact) {
+        for (int first = 0; first < routers.size(); first++) {
+            for (int second = first + 1; second < routers.size(); second++) {
+                if (first == failedRouter || second == failedRouter || baselineHops[first][second] == UNREACHABLE) {
+                    continue;
+                }
+                long pairs = reachingSystems[first] * reachingSystems[second];
+                if (hops[first][second] == UNREACHABLE) {
+                    impact.lost.add(pairs);
+                } else if (hops[first][second] > baselineHops[first][second]) {
+                    impact.longer.add(pairs);
+                }
+            }
+        }
+    }
+
+    // Counts the systems outside the subnet of the router that can be reached through it.
+    private long reachableOutside(int router) {
+        long count = 0;
+        for (int other = 0; other < routers.size(); other++) {
+            if (other != router && baselineHops[router][other] != UNREACHABLE) {
+                count += reachingSystems[other];
+            }
+        }
+        return count;
+    }
+
+    // Runs a breadth-first search from every router, skipping the failed router or the failed link.
+    private int[][] routerHops(int failedRouter, int failedFirst, int failedSecond) {
+        int[][] hops = new int[routers.size()][];
+        for (int start = 0; start < routers.size(); start++) {
+            hops[start] = new int[routers.size()];
+            Arrays.fill(hops[start], UNREACHABLE);
+            if (start == failedRouter) {
+                continue;
+            }
+            int[] queue = new int[routers.size()];
+            int head = 0;
+            int tail = 0;
+            hops[start][start] = 0;
+            queue[tail++] = start;
+            while (head < tail) {
+                int current = queue[head++];
+                for (int neighbor : routerNeighbors[current]) {
+                    boolean failedLink = current == failedFirst && neighbor == failedSecond
+                        || current == failedSecond && neighbor == failedFirst;
+                    if (neighbor != failedRouter && !failedLink && hops[start][neighbor] == UNREACHABLE) {
+                        hops[start][neighbor] = hops[start][current] + 1;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+        }
+        return hops;
+    }
+
+    // Counts the systems that are connected to the router of the subnet, including the router.
+    private static long countReaching(SubnetGraph graph) {
+        ShortestPathTree tree = ShortestPathTree.ofRouter(graph);
+        long count = 0;
+        for (int node = 0; tree != null && node < graph.size(); node++) {
+            if (tree.getDistance(node) != UNREACHABLE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * A failure inside a subnet, either of the connection between two systems or of a single system.
+     */
+    private static final class IntraFailure {
+        private final int first;
+        private final int second;
+        private final Impact impact;
+
+        IntraFailure(int first, int second, Impact impact) {
+            this.first = first;
+            this.second = second;
+            this.impact = impact;
+        }
+
+        boolean isNode() {
+            return second == NONE;
+        }
+
+        boolean masks(int from, int to) {
+            if (isNode()) {
+                return to == first;
+            }
+            return from == first && to == second || from == second && to == first;
+        }
+
+        // A tree keeps its distances if the failed connection or system is not on any of its paths.
+        boolean isUsedBy(SubnetGraph graph, ShortestPathTree tree) {
+            if (!isNode()) {
+                return tree.getParent(second) == first || tree.getParent(first) == second;
+            }
+            for (int edge = graph.getEdgeStart(first); edge < graph.getEdgeEnd(first); edge++) {
+                if (tree.getParent(graph.getEdgeTarget(edge)) == first) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The impact of one failure on the pairs of systems, accumulated from several threads.
+     */
+    public static final class Impact {
+        private final Connection connection;
+        private final Router router;
+        private final LongAdder lost;
+        private final LongAdder longer;
+        private final LongAdder costIncrease;
+        private final LongAccumulator maxCostIncrease;
+
+        private Impact(Connection connection, Router router) {
+            this.connection = connection;
+            this.router = router;
+            this.lost = new LongAdder();
+            this.longer = new LongAdder();
+            this.costIncrease = new LongAdder();
+            this.maxCostIncrease = new LongAccumulator(Math::max, 0);
+        }
+
+        private void record(long pairs, int before, int after) {
+            if (pairs == 0) {
+                return;
+            }
+            if (after == UNREACHABLE) {
+                lost.add(pairs);
+            } else if (after > before) {
+                longer.add(pairs);
+                costIncrease.add(pairs * (after - before));
+                maxCostIncrease.accumulate(after - before);
+            }
+        }
+
+        /**
+         * Returns the failed connection.
+         * @return the connection, or null if a router failed.
+         */
+        public Connection getConnection() {
+            return connection;
+        }
+
+        /**
+         * Returns the failed router.
+         * @return the router, or null if a connection failed.
+         */
+        public Router getRouter() {
+            return router;
+        }
+
+        /**
+         * Returns the number of pairs of systems that lose their path.
+         * @return the number of lost pairs.
+         */
+        public long getLostPairs() {
+            return lost.sum();
+        }
+
+        /**
+         * Returns the number of pairs of systems whose path gets more expensive or crosses more routers.
+         * @return the number of longer pairs.
+         */
+        public long getLongerPairs() {
+            return longer.sum();
+        }
+
+        /**
+         * Returns the total increase of the path costs over all longer pairs.
+         * Connections between routers are not weighted, so detours between subnets only add hops.
+         * @return the total cost increase.
+         */
+        public long getCostIncrease() {
+            return costIncrease.sum();
+        }
+
+        /**
+         * Returns the largest increase of the path cost of a single pair.
+         * @return the largest cost increase.
+         */
+        public long getMaxCostIncrease() {
+            return maxCostIncrease.get();
+        }
+    }
+}
@@ -2,9 +2,11 @@
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * A helper class wrapping {@link Files#readAllLines(Path)} for convenient usage.
@@ -18,14 +20,23 @@ private FileHelper() {
     /**
      * Returns all lines of a file specified by the given path.
      * @param path the path to the file to read
-     * @return all lines of the specified file
-     * @throws IllegalArgumentException if an invalid path has been passed
+     * @return all lines of the specified file, or an empty list after printing an error if it cannot be read
      */
     public static List<String> readAllLines(String path) {
+        return readAllLines(path, System.out::println);
+    }
+
+    /**
+     * Returns all lines of a file specified by the given path, reporting an invalid path to the given consumer.
+     * @param path the path to the file to read
+     * @param errors the consumer of the error message
+     * @return all lines of the specified file, or an empty list if it cannot be read
+     */
+    public static List<String> readAllLines(String path, Consumer<String> errors) {
         try {
             return Files.readAllLines(Path.of(path));
-        } catch (IOException e) {
-            System.out.println(ERROR_INVALID_PATH);
+        } catch (IOException | InvalidPathException e) {
+            errors.accept(ERROR_INVALID_PATH);
             return new ArrayList<>();
         }
     }
@@ -0,0 +1,234 @@
+package helpers;
+
+import model.SubnetGraph;
+
+import java.util.Arrays;
+
+/**
+ * The point-to-point searches of the path finder on the indices of a subnet graph.
+ * A search object is used for a single query and counts the systems it settles along the way.
+ * Every search returns the indices of the systems on a shortest path, or null if there is none.
+ */
+final class GraphSearch {
+    private static final int UNREACHABLE = ShortestPathTree.UNREACHABLE;
+    private static final int NONE = -1;
+    private final SubnetGraph graph;
+    private int settled;
+
+    /**
+     * Creates a search on the given graph.
+     * @param graph the graph of the subnet.
+     */
+    GraphSearch(SubnetGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Returns the number of systems settled by the searches of this object.
+     * @return the number of settled systems.
+     */
+    int getSettled() {
+        return settled;
+    }
+
+    /**
+     * Runs the search of the given algorithm.
+     * @param algorithm the algorithm to use.
+     * @param source the index of the source system.
+     * @param target the index of the destination system.
+     * @return the path, or null if there is none.
+     */
+    int[] search(SearchAlgorithm algorithm, int source, int target) {
+        return switch (algorithm) {
+            case DIJKSTRA -> dijkstra(source, target);
+            case BIDIRECTIONAL -> bidirectional(source, target);
+            case ALT -> alt(graph.getDerived(Landmarks.class, Landmarks::compute), source, target);
+            case CH -> hierarchy(source, target);
+        };
+    }
+
+    /**
+     * Searches in the contraction hierarchy of the graph if it has one, and runs Dijkstra otherwise.
+     * @param source the index of the source system.
+     * @param target the index of the destination system.
+     * @return the path, or null if there is none.
+     */
+    int[] hierarchy(int source, int target) {
+        ContractionHierarchy hierarchy = graph.getDerivedIfPresent(ContractionHierarchy.class);
+        if (hierarchy == null) {
+            return dijkstra(source, target);
+        }
+        int[] settledCounter = new int[1];
+        int[] path = hierarchy.search(source, target, settledCounter);
+        settled += settledCounter[0];
+        return path;
+    }
+
+    /**
+     * Runs Dijkstra from the source until the destination is settled.
+     * @param source the index of the source system.
+     * @param target the index of the destination system.
+     * @return the path, or null if there is none.
+     */
+    int[] dijkstra(int source, int target) {
+        int[] distances = newDistances();
+        int[] previous = newPrevious();
+        LongHeap heap = new LongHeap();
+        distances[source] = 0;
+        heap.add(LongHeap.pack(0, source));
+        while (!heap.isEmpty()) {
+            long entry = heap.poll();
+            int current = LongHeap.indexOf(entry);
+            // The heap has no decrease-key, so outdated entries are skipped when they come up. (Lazy Approach)
+            if (LongHeap.keyOf(entry) > distances[current]) {
+                continue;
+            }
+            settled++;
+            if (current == target) {
+                return reconstruct(previous, source, target);
+            }
+            for (int edge = graph.getEdgeStart(current); edge < graph.getEdgeEnd(current); edge++) {
+                int neighbor = graph.getEdgeTarget(edge);
+                int distance = distances[current] + graph.getEdgeWeight(edge);
+                if (distance < distances[neighbor]) {
+                    distances[neighbor] = distance;
+                    previous[neighbor] = current;
+                    heap.add(LongHeap.pack(distance, neighbor));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Runs Dijkstra from the source and from the destination at once, always advancing the search with the
+     * smaller frontier distance. Once the two frontier distances add up to the best meeting found,
+     * no shorter path can exist.
+     * @param source the index of the source system.
+     * @param target the index of the destination system.
+     * @return the path, or null if there is none.
+     */
+    int[] bidirectional(int source, int target) {
+        if (source == target) {
+            return new int[] {source};
+        }
+        int[][] distances = {newDistances(), newDistances()};
+        int[][] previous = {newPrevious(), newPrevious()};
+        LongHeap[] heaps = {new LongHeap(), new LongHeap()};
+        distances[0][source] = 0;
+        distances[1][target] = 0;
+        heaps[0].add(LongHeap.pack(0, source));
+        heaps[1].add(LongHeap.pack(0, target));
+        long best = Long.MAX_VALUE;
+        int meeting = NONE;
+        while (!heaps[0].isEmpty() && !heaps[1].isEmpty()) {
+            long forwardTop = LongHeap.keyOf(heaps[0].peek());
+            long backwardTop = LongHeap.keyOf(heaps[1].peek());
+            if (forwardTop + backwardTop >= best) {
+                break;
+            }
+            int side = forwardTop <= backwardTop ? 0 : 1;
+            int[] own = distances[side];
+            int[] other = distances[1 - side];
+            long entry = heaps[side].poll();
+            int current = LongHeap.indexOf(entry);
+            if (LongHeap.keyOf(entry) > own[current]) {
+                continue;
+            }
+            settled++;
+            for (int edge = graph.getEdgeStart(current); edge < graph.getEdgeEnd(current); edge++) {
+                int neighbor = graph.getEdgeTarget(edge);
+                int distance = own[current] + graph.getEdgeWeight(edge);
+                if (distance < own[neighbor]) {
+                    own[neighbor] = distance;
+                    previous[side][neighbor] = current;
+                    heaps[side].add(LongHeap.pack(distance, neighbor));
+                }
+                if (other[neighbor] != UNREACHABLE && (long) distance + other[neighbor] < best) {
+                    best = (long) distance + other[neighbor];
+                    meeting = neighbor;
+                }
+            }
+        }
+        if (meeting == NONE) {
+            return null;
+        }
+        int[] toMeeting = reconstruct(previous[0], source, meeting);
+        int[] fromMeeting = reconstruct(previous[1], target, meeting);
+        int[] path = Arrays.copyOf(toMeeting, toMeeting.length + fromMeeting.length - 1);
+        for (int i = 1; i < fromMeeting.length; i++) {
+            path[toMeeting.length + i - 1] = fromMeeting[fromMeeting.length - 1 - i];
+        }
+        return path;
+    }
+
+    /**
+     * Runs A* with the landmark lower bounds as estimate of the remaining distance.
+     * The estimate is consistent, so every system is settled at most once, just like in Dijkstra.
+     * @param landmarks the landmarks of the graph.
+     * @param source the index of the source system.
+     * @param target the index of the destination system.
+     * @return the path, or null if there is none.
+     */
+    int[] alt(Landmarks landmarks, int source, int target) {
+        int[] distances = newDistances();
+        int[] previous = newPrevious();
+        int[] estimates = new int[graph.size()];
+        Arrays.fill(estimates, NONE);
+        LongHeap heap = new LongHeap();
+        distances[source] = 0;
+        estimates[source] = landmarks.lowerBound(source, target);
+        heap.add(LongHeap.pack(estimates[source], source));
+        while (!heap.isEmpty()) {
+            long entry = heap.poll();
+            int current = LongHeap.indexOf(entry);
+            if (LongHeap.keyOf(entry) > distances[current] + estimates[current]) {
+                continue;
+            }
+            settled++;
+            if (current == target) {
+                return reconstruct(previous, source, target);
+            }
+            for (int edge = graph.getEdgeStart(current); edge < graph.getEdgeEnd(current); edge++) {
+                int neighbor = graph.getEdgeTarget(edge);
+                int distance = distances[current] + graph.getEdgeWeight(edge);
+                if (distance < distances[neighbor]) {
+                    if (estimates[neighbor] == NONE) {
+                        estimates[neighbor] = landmarks.lowerBound(neighbor, target);
+                    }
+                    distances[neighbor] = distance;
+                    previous[neighbor] = current;
+                    heap.add(LongHeap.pack(distance + estimates[neighbor], neighbor));
+                }
+            }
+        }
+        return null;
+    }
+
+    private int[] newDistances() {
+        int[] distances = new int[graph.size()];
+        Arrays.fill(distances, UNREACHABLE);
+        return distances;
+    }
+
+    private int[] newPrevious() {
+        int[] previous = new int[graph.size()];
+        Arrays.fill(previous, NONE);
+        return previous;
+    }
+
+    // Follows the previous systems from the target back to the source and returns the path from source to target.
+    private static int[] reconstruct(int[] previous, int source, int target) {
+        int length = 1;
+        for (int current = target; current != source; current = previous[current]) {
+            length++;
+        }
+        int[] path = new int[length];
+        int current = target;
+        for (int i = length - 1; i >= 0; i--) {
+            path[i] = current;
+            current = previous[current];
+        }
+        return path;
+    }
+}
@@ -0,0 +1,97 @@
+package helpers;
+
+/**
+ * This class converts IPv4 addresses between their dotted string form and a packed int.
+ * The packed form holds the first octet in the highest byte, so comparing the unsigned values orders addresses.
+ * Parsing works without regular expressions and without allocating.
+ */
+public final class IpAddress {
+    /**
+     * The value returned by the parse methods for text that is not a valid IPv4 address.
+     */
+    public static final long INVALID = -1L;
+    private static final int OCTET_COUNT = 4;
+    private static final int MAX_OCTET_DIGITS = 3;
+    private static final int MAX_OCTET_VALUE = 255;
+    private static final int BITS_IN_BYTE = 8;
+    private static final int BYTE_MASK = 0xff;
+    private static final long UNSIGNED_MASK = 0xffffffffL;
+    private static final char DOT = '.';
+    private static final int DECIMAL_BASE = 10;
+
+    private IpAddress() {
+        // Utility class.
+    }
+
+    /**
+     * Parses a dotted IPv4 address.
+     * @param text the text to parse.
+     * @return the packed address as a non-negative long, or {@link #INVALID} if the text is not an IPv4 address.
+     */
+    public static long parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * Parses a dotted IPv4 address from a part of the given text.
+     * @param text the text to parse.
+     * @param start the index of the first character.
+     * @param end the index after the last character.
+     * @return the packed address as a non-negative long, or {@link #INVALID} if the text is not an IPv4 address.
+     */
+    public static long parse(CharSequence text, int start, int end) {
+        long address = 0;
+        int octets = 0;
+        int position = start;
+        while (octets < OCTET_COUNT) {
+            int value = 0;
+            int digits = 0;
+            while (position < end && digits <= MAX_OCTET_DIGITS) {
+                char c = text.charAt(position);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                value = value * DECIMAL_BASE + (c - '0');
+                digits++;
+                position++;
+            }
+            if (digits == 0 || digits > MAX_OCTET_DIGITS || value > MAX_OCTET_VALUE) {
+                return INVALID;
+            }
+            address = (address << BITS_IN_BYTE) | value;
+            octets++;
+            if (octets < OCTET_COUNT) {
+                if (position >= end || text.charAt(position) != DOT) {
+                    return INVALID;
+                }
+                position++;
+            }
+        }
+        return position == end ? address : INVALID;
+    }
+
+    /**
+     * Formats a packed address in dotted form.
+     * @param address the packed address.
+     * @return the dotted form of the address.
+     */
+    public static String format(int address) {
+        StringBuilder sb = new StringBuilder(MAX_OCTET_DIGITS * OCTET_COUNT + OCTET_COUNT - 1);
+        for (int shift = (OCTET_COUNT - 1) * BITS_IN_BYTE; shift >= 0; shift -= BITS_IN_BYTE) {
+            sb.append((address >>> shift) & BYTE_MASK);
+            if (shift > 0) {
+                sb.append(DOT);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the packed address as an unsigned long, which orders addresses numerically.
+     * @param address the packed address.
+     * @return the unsigned value of the address.
+     */
+    public static long toUnsigned(int address) {
+        return address & UNSIGNED_MASK;
+    }
+}
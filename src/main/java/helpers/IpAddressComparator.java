@@ -1,72 +1,149 @@
 package helpers;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.function.ToLongFunction;
+
 /**
- * This class provides a method to compare IP addresses and CIDRs.
- * It is used to sort IP addresses and CIDRs in ascending order.
+ * This class provides methods to compare and sort IP addresses and CIDRs.
+ * Every address and CIDR is turned into a packed sort key: the unsigned address shifted left by six bits,
+ * with the prefix length in the low bits. Addresses count as prefix length 32. Comparing two keys is a single
+ * comparison of longs, so keys computed once, such as the one of a subnet, make sorting free of parsing and allocation.
  */
 public final class IpAddressComparator {
-    private static final String DOT = ".";
-    private static final String DOT_REGEX = "\\.";
-    private static final String CIDR_SPLIT_REGEX = "\\.|/";
-    private static final int IP_OCTET_COUNT = 4;
-    private static final int CIDR_SUBNET_MASK_INDEX = 4;
-    private static final int FIRST_OCTET_INDEX = 0;
-    private static final int SECOND_OCTET_INDEX = 1;
-    private static final int THIRD_OCTET_INDEX = 2;
-    private static final int FOURTH_OCTET_INDEX = 3;
+    /**
+     * The key returned for text that is neither an IP address nor a CIDR.
+     */
+    public static final long INVALID_KEY = -1L;
+    private static final String ERROR_INVALID_KEY = "Error, Invalid sort key: ";
+    private static final int PREFIX_BITS = 6;
+    private static final int MAX_PREFIX_LENGTH = 32;
+    private static final long MAX_KEY = (1L << (Integer.SIZE + PREFIX_BITS)) - 1;
+    // The position of an element fits next to its key in a long, which is what the primitive sort orders.
+    private static final int INDEX_BITS = Long.SIZE - Integer.SIZE - PREFIX_BITS;
+    private static final int MAX_INDEXED_SIZE = 1 << INDEX_BITS;
+    private static final long INDEX_MASK = MAX_INDEXED_SIZE - 1;
+    private static final char CIDR_DELIMITER = '/';
+    private static final int DECIMAL_BASE = 10;
 
     private IpAddressComparator() {
         // Private constructor to prevent instantiation
     }
 
+    /**
+     * Returns the sort key of a subnet.
+     * @param address The packed network address.
+     * @param prefixLength The prefix length.
+     * @return The sort key.
+     */
+    public static long sortKey(int address, int prefixLength) {
+        return IpAddress.toUnsigned(address) << PREFIX_BITS | prefixLength;
+    }
+
+    /**
+     * Returns the sort key of an IP address.
+     * @param address The packed IP address.
+     * @return The sort key.
+     */
+    public static long addressKey(int address) {
+        return sortKey(address, MAX_PREFIX_LENGTH);
+    }
+
+    /**
+     * Returns the sort key of an IP address.
+     * @param ip The IP address.
+     * @return The sort key, or {@link #INVALID_KEY} if the text is not an IP address.
+     */
+    public static long addressKey(CharSequence ip) {
+        long address = IpAddress.parse(ip);
+        return address == IpAddress.INVALID ? INVALID_KEY : address << PREFIX_BITS | MAX_PREFIX_LENGTH;
+    }
+
+    /**
+     * Returns the sort key of a CIDR.
+     * @param cidr The CIDR.
+     * @return The sort key, or {@link #INVALID_KEY} if the text is not a CIDR.
+     */
+    public static long cidrKey(CharSequence cidr) {
+        int delimiter = -1;
+        for (int i = 0; i < cidr.length() && delimiter < 0; i++) {
+            if (cidr.charAt(i) == CIDR_DELIMITER) {
+                delimiter = i;
+            }
+        }
+        if (delimiter < 0 || delimiter == cidr.length() - 1) {
+            return INVALID_KEY;
+        }
+        long address = IpAddress.parse(cidr, 0, delimiter);
+        int prefixLength = 0;
+        for (int i = delimiter + 1; i < cidr.length(); i++) {
+            char c = cidr.charAt(i);
+            if (c < '0' || c > '9') {
+                return INVALID_KEY;
+            }
+            prefixLength = prefixLength * DECIMAL_BASE + (c - '0');
+            if (prefixLength > MAX_PREFIX_LENGTH) {
+                return INVALID_KEY;
+            }
+        }
+        return address == IpAddress.INVALID ? INVALID_KEY : address << PREFIX_BITS | prefixLength;
+    }
+
     /**
      * Compares two IP addresses.
-     * This methode is used as a helper method in the ListSystems class.
+     * Invalid addresses come before all valid ones.
      * @param ip1 The first IP address.
      * @param ip2 The second IP address.
      * @return A negative integer, zero, or a positive integer as the first IP address is less than,
      *     equal to, or greater than the second IP address.
      */
     public static int compareIpAddresses(String ip1, String ip2) {
-        String[] parts1 = ip1.split(DOT_REGEX);
-        String[] parts2 = ip2.split(DOT_REGEX);
-
-        for (int i = 0; i < IP_OCTET_COUNT; i++) {
-            int octet1 = Integer.parseInt(parts1[i]);
-            int octet2 = Integer.parseInt(parts2[i]);
-            if (octet1 != octet2) {
-                return Integer.compare(octet1, octet2);
-            }
-        }
-        return 0;
+        return Long.compare(addressKey(ip1), addressKey(ip2));
     }
 
     /**
-     * Compares two CIDRs.
-     * This methode is used as a helper method in the ListSubnets class.
+     * Compares two CIDRs, first by their network address and then by their prefix length.
+     * Invalid CIDRs come before all valid ones.
      * @param cidr1 The first CIDR.
      * @param cidr2 The second CIDR.
      * @return A negative integer, zero, or a positive integer as the first CIDR is less than, equal to, or greater than the second CIDR.
      */
     public static int compareSubnetCIDRs(String cidr1, String cidr2) {
-        String[] parts1 = cidr1.split(CIDR_SPLIT_REGEX);
-        String[] parts2 = cidr2.split(CIDR_SPLIT_REGEX);
-
-        int comparison = compareIpAddresses(joinIpParts(parts1), joinIpParts(parts2));
-
-        if (comparison == 0) {
-            return Integer.compare(Integer.parseInt(parts1[CIDR_SUBNET_MASK_INDEX]),
-                Integer.parseInt(parts2[CIDR_SUBNET_MASK_INDEX]));
-        }
-
-        return comparison;
+        return Long.compare(cidrKey(cidr1), cidrKey(cidr2));
     }
 
-    private static String joinIpParts(String[] parts) {
-        return String.join(DOT,
-            parts[FIRST_OCTET_INDEX],
-            parts[SECOND_OCTET_INDEX],
-            parts[THIRD_OCTET_INDEX],
-            parts[FOURTH_OCTET_INDEX]);
+    /**
+     * Sorts a list by the sort keys of its elements, keeping elements with equal keys in their order.
+     * Every key is computed once. Each key is packed with the position of its element into one long, and
+     * the longs are sorted as primitives, so no comparator runs and no boxed key is created.
+     * @param items The list to sort.
+     * @param key The function returning the sort key of an element, as returned by the methods of this class.
+     * @param <T> The type of the elements.
+     * @throws IllegalArgumentException if a key is not a valid sort key.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> void sortByKey(List<T> items, ToLongFunction<? super T> key) {
+        Object[] elements = items.toArray();
+        if (elements.length > MAX_INDEXED_SIZE) {
+            items.sort(Comparator.comparingLong(key));
+            return;
+        }
+        long[] packed = new long[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+            long value = key.applyAsLong((T) elements[i]);
+            if (value < 0 || value > MAX_KEY) {
+                throw new IllegalArgumentException(ERROR_INVALID_KEY + value);
+            }
+            // Flipping the sign bit makes the signed sort order the unsigned order of the packed values.
+            packed[i] = (value << INDEX_BITS | i) ^ Long.MIN_VALUE;
+        }
+        Arrays.sort(packed);
+        ListIterator<T> iterator = items.listIterator();
+        for (long value : packed) {
+            iterator.next();
+            iterator.set((T) elements[(int) (value & INDEX_MASK)]);
+        }
     }
 }
@@ -0,0 +1,72 @@
+package helpers;
+
+import model.SubnetGraph;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed distances from a few landmark systems of a subnet graph, used as lower bounds by the ALT search.
+ * For any landmark l, the triangle inequality gives |d(l, t) - d(l, v)| <= d(v, t), so the largest of these values
+ * over all landmarks is an admissible and consistent estimate of the remaining distance from v to t.
+ * Landmarks are picked one after another as the system farthest from all landmarks picked so far.
+ */
+public final class Landmarks {
+    private static final int LANDMARK_COUNT = 8;
+    private final int[][] distances;
+
+    private Landmarks(int[][] distances) {
+        this.distances = distances;
+    }
+
+    /**
+     * Picks the landmarks of a graph and computes their distances.
+     * The first landmark is the router of the subnet, or the first system if there is no router.
+     * @param graph the graph of the subnet.
+     * @return the landmarks of the graph.
+     */
+    public static Landmarks compute(SubnetGraph graph) {
+        int count = Math.min(LANDMARK_COUNT, graph.size());
+        int[][] distances = new int[count][];
+        int[] nearest = new int[graph.size()];
+        Arrays.fill(nearest, ShortestPathTree.UNREACHABLE);
+        int next = Math.max(graph.getRouterIndex(), 0);
+        for (int i = 0; i < count; i++) {
+            ShortestPathTree tree = ShortestPathTree.compute(graph, next);
+            distances[i] = new int[graph.size()];
+            int farthest = next;
+            for (int node = 0; node < graph.size(); node++) {
+                distances[i][node] = tree.getDistance(node);
+                nearest[node] = Math.min(nearest[node], tree.getDistance(node));
+                // Systems no landmark reaches yet come first, so every component gets a landmark.
+                if (nearest[node] > nearest[farthest]) {
+                    farthest = node;
+                }
+            }
+            if (nearest[farthest] == 0) {
+                int[][] fewer = new int[i + 1][];
+                System.arraycopy(distances, 0, fewer, 0, i + 1);
+                return new Landmarks(fewer);
+            }
+            next = farthest;
+        }
+        return new Landmarks(distances);
+    }
+
+    /**
+     * Returns a lower bound of the distance between two systems.
+     * @param node the index of the first system.
+     * @param target the index of the second system.
+     * @return the lower bound, 0 if no landmark reaches both systems.
+     */
+    public int lowerBound(int node, int target) {
+        int bound = 0;
+        for (int[] landmark : distances) {
+            int toNode = landmark[node];
+            int toTarget = landmark[target];
+            if (toNode != ShortestPathTree.UNREACHABLE && toTarget != ShortestPathTree.UNREACHABLE) {
+                bound = Math.max(bound, Math.abs(toTarget - toNode));
+            }
+        }
+        return bound;
+    }
+}
@@ -0,0 +1,126 @@
+package helpers;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of primitive long values.
+ * Path searches pack a distance into the upper and a node index into the lower 32 bits,
+ * so the heap orders entries by distance without boxing or comparator calls.
+ */
+public final class LongHeap {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int SHIFT = 32;
+    private static final long LOWER_MASK = 0xffffffffL;
+    private long[] values;
+    private int size;
+
+    /**
+     * Creates a new empty heap.
+     */
+    public LongHeap() {
+        this.values = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Packs a non-negative key and an index into one heap value.
+     * @param key the key to order by, for example a distance.
+     * @param index the index carried along with the key.
+     * @return the packed value.
+     */
+    public static long pack(int key, int index) {
+        return (long) key << SHIFT | index & LOWER_MASK;
+    }
+
+    /**
+     * Returns the key of a packed value.
+     * @param value the packed value.
+     * @return the key.
+     */
+    public static int keyOf(long value) {
+        return (int) (value >>> SHIFT);
+    }
+
+    /**
+     * Returns the index of a packed value.
+     * @param value the packed value.
+     * @return the index.
+     */
+    public static int indexOf(long value) {
+        return (int) value;
+    }
+
+    /**
+     * Checks whether the heap is empty.
+     * @return true if the heap has no values.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of values in the heap.
+     * @return the number of values.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds a value to the heap.
+     * @param value the value to add.
+     */
+    public void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        int position = size++;
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (values[parent] <= value) {
+                break;
+            }
+            values[position] = values[parent];
+            position = parent;
+        }
+        values[position] = value;
+    }
+
+    /**
+     * Returns the smallest value without removing it.
+     * @return the smallest value.
+     */
+    public long peek() {
+        return values[0];
+    }
+
+    /**
+     * Removes and returns the smallest value.
+     * @return the smallest value.
+     */
+    public long poll() {
+        long result = values[0];
+        long last = values[--size];
+        int position = 0;
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            if (child + 1 < size && values[child + 1] < values[child]) {
+                child++;
+            }
+            if (last <= values[child]) {
+                break;
+            }
+            values[position] = values[child];
+            position = child;
+        }
+        values[position] = last;
+        return result;
+    }
+
+    /**
+     * Removes all values.
+     */
+    public void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,175 @@
+package helpers;
+
+import model.Computer;
+import model.Connection;
+import model.Network;
+import model.NetworkSnapshot;
+import model.Router;
+import model.Subnet;
+import model.SystemNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The smallest set of changes that turns one network into another.
+ * Subnets are matched by their CIDR, systems by their IP address, name, kind and subnet, and connections by their
+ * two systems. Everything that matches is kept as it is, so the graphs and hierarchies of untouched subnets stay
+ * cached and the routing only converges again if routers or the connections between them change.
+ */
+public final class NetworkDelta {
+    private static final String ERROR_CONFLICT = "Error, The network was changed while the delta was applied.";
+    private final List<Subnet> removedSubnets;
+    private final List<Subnet> addedSubnets;
+    private final List<SystemNode> removedSystems;
+    private final List<SystemNode> addedSystems;
+    private final List<Connection> removedConnections;
+    private final List<Connection> addedConnections;
+    private final List<Connection> updatedConnections;
+
+    private NetworkDelta() {
+        this.removedSubnets = new ArrayList<>();
+        this.addedSubnets = new ArrayList<>();
+        this.removedSystems = new ArrayList<>();
+        this.addedSystems = new ArrayList<>();
+        this.removedConnections = new ArrayList<>();
+        this.addedConnections = new ArrayList<>();
+        this.updatedConnections = new ArrayList<>();
+    }
+
+    /**
+     * Computes the changes from the current to the target network.
+     * @param current the snapshot of the network to change.
+     * @param target the snapshot of the network to arrive at.
+     * @return the changes.
+     */
+    public static NetworkDelta between(NetworkSnapshot current, NetworkSnapshot target) {
+        NetworkDelta delta = new NetworkDelta();
+        for (Subnet subnet : current.getSubnets()) {
+            if (target.getSubnetByCidr(subnet.getCidr()) == null) {
+                delta.removedSubnets.add(subnet);
+            }
+        }
+        for (Subnet subnet : target.getSubnets()) {
+            if (current.getSubnetByCidr(subnet.getCidr()) == null) {
+                delta.addedSubnets.add(subnet);
+            }
+        }
+        for (SystemNode system : current.getSystems()) {
+            if (!matches(system, counterpart(target, system))) {
+                delta.removedSystems.add(system);
+            }
+        }
+        for (SystemNode system : target.getSystems()) {
+            if (!matches(counterpart(current, system), system)) {
+                delta.addedSystems.add(system);
+            }
+        }
+        for (Connection connection : current.getConnections()) {
+            Connection wanted = counterpart(target, connection);
+            // Connections of removed systems go away with them.
+            if (wanted == null && isKept(target, connection)) {
+                delta.removedConnections.add(connection);
+            }
+        }
+        for (Connection connection : target.getConnections()) {
+            Connection existing = isKept(current, connection) ? counterpart(current, connection) : null;
+            if (existing == null) {
+                delta.addedConnections.add(connection);
+            } else if (!Objects.equals(existing.getWeight(), connection.getWeight())) {
+                delta.updatedConnections.add(connection);
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Returns the number of changes.
+     * @return the number of subnets, systems, and connections that are removed, added, or changed.
+     */
+    public int size() {
+        return removedSubnets.size() + addedSubnets.size() + removedSystems.size() + addedSystems.size()
+            + removedConnections.size() + addedConnections.size() + updatedConnections.size();
+    }
+
+    /**
+     * Applies the changes to the network in one transaction, unless the calling thread is already in one.
+     * Removals come first, so that added subnets never overlap with the ones they replace.
+     * If a change fails, the transaction begun here is rolled back, so the network is left as it was.
+     * Holding the write lock around this keeps other threads from committing a conflicting change meanwhile.
+     * @param network the network whose snapshot the changes were computed from.
+     * @throws IllegalStateException if another change was committed meanwhile, which rolls back the transaction.
+     */
+    public void applyTo(Network network) {
+        boolean began = network.begin();
+        try {
+            apply(network);
+        } catch (RuntimeException e) {
+            if (began) {
+                network.rollback();
+            }
+            throw e;
+        }
+        if (began && !network.commit()) {
+            throw new IllegalStateException(ERROR_CONFLICT);
+        }
+    }
+
+    private void apply(Network network) {
+        for (Connection connection : removedConnections) {
+            network.removeConnection(connection.getSystem1(), connection.getSystem2());
+        }
+        for (SystemNode system : removedSystems) {
+            network.removeSystem(system);
+        }
+        for (Subnet subnet : removedSubnets) {
+            network.removeSubnet(subnet);
+        }
+        for (Subnet subnet : addedSubnets) {
+            network.addSubnet(new Subnet(subnet.getCidr()));
+        }
+        for (SystemNode system : addedSystems) {
+            Subnet subnet = network.getSubnetByCidr(system.getSubnet().getCidr());
+            network.addSystem(system instanceof Router
+                ? new Router(system.getName(), system.getIpAddress(), subnet)
+                : new Computer(system.getName(), system.getIpAddress(), subnet));
+        }
+        for (Connection connection : addedConnections) {
+            network.addConnection(new Connection(systemOf(network, connection.getSystem1()),
+                systemOf(network, connection.getSystem2()), connection.getWeight()));
+        }
+        for (Connection connection : updatedConnections) {
+            network.updateConnection(systemOf(network, connection.getSystem1()),
+                systemOf(network, connection.getSystem2()), connection.getWeight());
+        }
+    }
+
+    private static SystemNode counterpart(NetworkSnapshot snapshot, SystemNode system) {
+        return snapshot.getSystemByIp(IpAddress.toUnsigned(system.getAddress()));
+    }
+
+    // Returns the connection between the systems with the same addresses in the given snapshot, if there is one.
+    private static Connection counterpart(NetworkSnapshot snapshot, Connection connection) {
+        SystemNode first = counterpart(snapshot, connection.getSystem1());
+        SystemNode second = counterpart(snapshot, connection.getSystem2());
+        return first == null || second == null ? null : snapshot.findConnection(first, second);
+    }
+
+    // Checks whether both systems of a connection are kept when changing to or from the other snapshot.
+    private static boolean isKept(NetworkSnapshot other, Connection connection) {
+        return matches(connection.getSystem1(), counterpart(other, connection.getSystem1()))
+            && matches(connection.getSystem2(), counterpart(other, connection.getSystem2()));
+    }
+
+    private static boolean matches(SystemNode system, SystemNode other) {
+        return system != null && other != null
+            && (system instanceof Router) == (other instanceof Router)
+            && system.getName().equals(other.getName())
+            && system.getSubnet().getCidr().equals(other.getSubnet().getCidr());
+    }
+
+    private static SystemNode systemOf(Network network, SystemNode system) {
+        return network.getSystemByIp(IpAddress.toUnsigned(system.getAddress()));
+    }
+}
@@ -0,0 +1,537 @@
+package helpers;
+
+import model.Computer;
+import model.Connection;
+import model.Network;
+import model.NetworkSnapshot;
+import model.Router;
+import model.Subnet;
+import model.SystemNode;
+import model.TopologyEvent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of the changes of a network, so that its state survives a restart.
+ * The directory holds a snapshot in the text format of the {@link NetworkLoader} and a binary journal of the changes
+ * made since, both numbered with the same generation. Every change is one record with its length and a CRC32
+ * checksum, so a record torn by a crash fails the check and ends the replay.
+ * The records are written by a single thread that syncs the file once for all changes that arrived meanwhile
+ * (group commit). A change is only durable once its batch is synced, which {@link Network#awaitDurable()} waits for,
+ * so many changes share one sync instead of each waiting for the disk on its own. After a failed write no change
+ * can be saved any more: the failure is reported on the error stream and returned to everyone who waits. Once the journal outgrows a limit, or the whole
+ * network is replaced, a new generation starts with a fresh snapshot and the old files are deleted.
+ * Recovery loads the latest snapshot and replays only the changes of its journal, converging the routing once.
+ */
+public final class NetworkJournal implements Flow.Subscriber<List<TopologyEvent>>, Closeable {
+    private static final String ERROR_CORRUPT_SNAPSHOT = "Error, Corrupt journal snapshot: ";
+    private static final String REASON_DELIMITER = ": ";
+    private static final String ERROR_CORRUPT_RECORD = "Error, Journal record does not match the network: ";
+    private static final String ERROR_CONCURRENT_CHANGE = "Error, The network was changed during the recovery.";
+    private static final String ERROR_WRITE = "Error, Journal write failed, changes are no longer saved: ";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".txt";
+    private static final String JOURNAL_PREFIX = "journal-";
+    private static final String JOURNAL_SUFFIX = ".log";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String WRITER_NAME = "network-journal";
+    private static final int MAGIC = 0x4a524e4c;
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int MAX_RECORD_SIZE = 1 << 16;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final long DEFAULT_COMPACTION_BYTES = 4L << 20;
+    private static final int NO_GENERATION = 0;
+    private static final long NO_VERSION = -1;
+    private static final byte SUBNET_ADDED = 1;
+    private static final byte SYSTEM_ADDED = 2;
+    private static final byte SYSTEM_REMOVED = 3;
+    private static final byte CONNECTION_ADDED = 4;
+    private static final byte CONNECTION_REMOVED = 5;
+    private static final byte CONNECTION_UPDATED = 6;
+    private static final byte SUBNET_REMOVED = 7;
+    // Marks the end of the changes, compared by identity.
+    private static final List<TopologyEvent> END = new ArrayList<>();
+    private final Network network;
+    private final Path directory;
+    private final long compactionBytes;
+    private final BlockingQueue<List<TopologyEvent>> queue;
+    private final Thread writer;
+    private final ByteArrayOutputStream payload;
+    private final CRC32 checksum;
+    private final Object syncMonitor;
+    private long syncedVersion;
+    private boolean stopped;
+    private volatile String failure;
+    private int generation;
+    private long snapshotVersion;
+    private long journalBytes;
+    private FileChannel channel;
+    private DataOutputStream out;
+
+    private NetworkJournal(Path directory, Network network, long compactionBytes) {
+        this.network = network;
+        this.directory = directory;
+        this.compactionBytes = compactionBytes;
+        this.queue = new LinkedBlockingQueue<>();
+        this.payload = new ByteArrayOutputStream();
+        this.checksum = new CRC32();
+        this.syncMonitor = new Object();
+        this.writer = new Thread(this::writeLoop, WRITER_NAME);
+        // The journal is closed by the owner on shutdown, so the writer must not keep the program alive.
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Opens the journal in the given directory, recovering the network from it first.
+     * @param directory the directory of the journal, created if it does not exist.
+     * @param network the network to recover into and to record from then on.
+     * @return the opened journal.
+     * @throws IOException if the journal cannot be read or written.
+     */
+    public static NetworkJournal open(Path directory, Network network) throws IOException {
+        return open(directory, network, DEFAULT_COMPACTION_BYTES);
+    }
+
+    /**
+     * Opens the journal in the given directory, recovering the network from it first.
+     * @param directory the directory of the journal, created if it does not exist.
+     * @param network the network to recover into and to record from then on.
+     * @param compactionBytes the size of the journal after which a new snapshot is written.
+     * @return the opened journal.
+     * @throws IOException if the journal cannot be read or written.
+     */
+    public static NetworkJournal open(Path directory, Network network, long compactionBytes) throws IOException {
+        Files.createDirectories(directory);
+        NetworkJournal journal = new NetworkJournal(directory, network, compactionBytes);
+        journal.recover();
+        try {
+            // No change may slip in between the first snapshot and the subscription.
+            network.withWriteLock(() -> {
+                try {
+                    journal.compact();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                // Everything published before is contained in the first snapshot.
+                journal.synced(journal.snapshotVersion);
+                network.subscribe(journal);
+                network.setDurability(journal::awaitSynced);
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        journal.writer.start();
+        return journal;
+    }
+
+    /**
+     * Stops recording and waits until all changes made so far are written and synced.
+     */
+    @Override
+    public void close() {
+        network.close();
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(List<TopologyEvent> batch) {
+        // Nothing is written after a failure, so the batches would only pile up.
+        if (failure == null) {
+            queue.add(batch);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        queue.add(END);
+    }
+
+    @Override
+    public void onComplete() {
+        queue.add(END);
+    }
+
+    /**
+     * Waits until all changes up to the given version are synced to disk.
+     * @param version the version of the snapshot whose changes have to be durable.
+     * @return null once they are synced or the journal is closed, or the error message if a write failed.
+     */
+    public String awaitSynced(long version) {
+        synchronized (syncMonitor) {
+            try {
+                while (failure == null && !stopped && syncedVersion < version) {
+                    syncMonitor.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return failure;
+        }
+    }
+
+    // Writes everything that arrived since the last sync and syncs once, until the changes end.
+    private void writeLoop() {
+        List<List<TopologyEvent>> batches = new ArrayList<>();
+        try {
+            boolean ended = false;
+            while (!ended) {
+                batches.add(queue.take());
+                queue.drainTo(batches);
+                long version = NO_VERSION;
+                for (List<TopologyEvent> batch : batches) {
+                    if (batch == END) {
+                        ended = true;
+                        break;
+                    }
+                    write(batch);
+                    version = batch.get(batch.size() - 1).getVersion();
+                }
+                batches.clear();
+                sync();
+                synced(version);
+                if (journalBytes >= compactionBytes) {
+                    compact();
+                }
+            }
+            out.close();
+        } catch (IOException e) {
+            fail(ERROR_WRITE + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (syncMonitor) {
+                stopped = true;
+                syncMonitor.notifyAll();
+            }
+        }
+    }
+
+    private void synced(long version) {
+        if (version == NO_VERSION) {
+            return;
+        }
+        synchronized (syncMonitor) {
+            syncedVersion = version;
+            syncMonitor.notifyAll();
+        }
+    }
+
+    // Makes the network read-only for everyone who waits for durability, and reports the failure once.
+    private void fail(String message) {
+        synchronized (syncMonitor) {
+            failure = message;
+            syncMonitor.notifyAll();
+        }
+        queue.clear();
+        System.err.println(message);
+    }
+
+    private void write(List<TopologyEvent> batch) throws IOException {
+        for (TopologyEvent event : batch) {
+            // Changes already contained in the snapshot of this generation are not needed.
+            if (event.getVersion() <= snapshotVersion) {
+                continue;
+            }
+            if (event.getType() == TopologyEvent.Type.NETWORK_REPLACED) {
+                // The replaced network is only recorded by a snapshot, which has to come before any later change.
+                sync();
+                compact();
+                continue;
+            }
+            payload.reset();
+            if (encode(event, new DataOutputStream(payload))) {
+                checksum.reset();
+                checksum.update(payload.toByteArray());
+                out.writeInt(payload.size());
+                out.writeInt((int) checksum.getValue());
+                payload.writeTo(out);
+                journalBytes += RECORD_HEADER_SIZE + payload.size();
+            }
+        }
+    }
+
+    // Encodes a change, or returns false for changes that are derived from the others, such as routes.
+    private static boolean encode(TopologyEvent event, DataOutputStream record) throws IOException {
+        record.writeLong(event.getVersion());
+        switch (event.getType()) {
+            case SUBNET_ADDED -> {
+                record.writeByte(SUBNET_ADDED);
+                record.writeUTF(event.getSubnet().getCidr());
+            }
+            case SUBNET_REMOVED -> {
+                record.writeByte(SUBNET_REMOVED);
+                record.writeUTF(event.getSubnet().getCidr());
+            }
+            case SYSTEM_ADDED -> {
+                SystemNode system = event.getSystem();
+                record.writeByte(SYSTEM_ADDED);
+                record.writeBoolean(system instanceof Router);
+                record.writeUTF(system.getName());
+                record.writeInt(system.getAddress());
+                record.writeUTF(system.getSubnet().getCidr());
+            }
+            case SYSTEM_REMOVED -> {
+                record.writeByte(SYSTEM_REMOVED);
+                record.writeInt(event.getSystem().getAddress());
+            }
+            case CONNECTION_ADDED -> encodeConnection(CONNECTION_ADDED, event.getConnection(), record);
+            case CONNECTION_REMOVED -> encodeConnection(CONNECTION_REMOVED, event.getConnection(), record);
+            case CONNECTION_UPDATED -> encodeConnection(CONNECTION_UPDATED, event.getConnection(), record);
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void encodeConnection(byte type, Connection connection, DataOutputStream record)
+        throws IOException {
+        record.writeByte(type);
+        record.writeInt(connection.getSystem1().getAddress());
+        record.writeInt(connection.getSystem2().getAddress());
+        record.writeBoolean(connection.getWeight() != null);
+        if (connection.getWeight() != null) {
+            record.writeInt(connection.getWeight());
+        }
+    }
+
+    private void sync() throws IOException {
+        out.flush();
+        channel.force(false);
+    }
+
+    // Starts a new generation with a snapshot of the current network and an empty journal.
+    private void compact() throws IOException {
+        NetworkSnapshot snapshot = network.getSnapshot();
+        int next = generation + 1;
+        Path temp = directory.resolve(SNAPSHOT_PREFIX + next + TEMP_SUFFIX);
+        Files.write(temp, NetworkWriter.toLines(snapshot), StandardCharsets.UTF_8);
+        try (FileChannel file = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            file.force(true);
+        }
+        Files.move(temp, snapshotPath(next), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        FileChannel nextChannel = FileChannel.open(journalPath(next), StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        DataOutputStream nextOut = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(nextChannel),
+            BUFFER_SIZE));
+        nextOut.writeInt(MAGIC);
+        nextOut.writeLong(snapshot.getVersion());
+        nextOut.flush();
+        nextChannel.force(true);
+        syncDirectory();
+        if (out != null) {
+            out.close();
+        }
+        channel = nextChannel;
+        out = nextOut;
+        generation = next;
+        snapshotVersion = snapshot.getVersion();
+        journalBytes = HEADER_SIZE;
+        deleteOlderGenerations();
+    }
+
+    // Makes the renamed and created files durable. Not every platform can open a directory, which is then skipped.
+    private void syncDirectory() {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // The files themselves are synced, only their names depend on the file system.
+        }
+    }
+
+    private void deleteOlderGenerations() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                int fileGeneration = generationOf(file);
+                if (fileGeneration != NO_GENERATION && fileGeneration < generation) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    // Loads the latest snapshot and replays its journal in one transaction, so the routing converges once.
+    private void recover() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX)) {
+            for (Path file : files) {
+                generation = Math.max(generation, generationOf(file));
+            }
+        }
+        if (generation == NO_GENERATION) {
+            return;
+        }
+        Path snapshot = snapshotPath(generation);
+        List<String> diagnostics = new ArrayList<>();
+        Network loaded = new NetworkLoader().loadNetwork(snapshot.toString(), diagnostics::add);
+        if (loaded == null) {
+            throw new IOException(ERROR_CORRUPT_SNAPSHOT + snapshot
+                + (diagnostics.isEmpty() ? "" : REASON_DELIMITER + diagnostics.get(0)));
+        }
+        network.begin();
+        try {
+            network.replaceWith(loaded);
+            replay(journalPath(generation));
+            network.updateBGPTables();
+        } catch (IOException | RuntimeException e) {
+            network.rollback();
+            throw e;
+        }
+        if (!network.commit()) {
+            throw new IOException(ERROR_CONCURRENT_CHANGE);
+        }
+        ContractionHierarchy.preprocessInBackground(network.getSnapshot(), network.getStatistics());
+    }
+
+    // Applies the records up to the first torn or missing one, which marks where the last run stopped.
+    private void replay(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path),
+            BUFFER_SIZE))) {
+            long version;
+            try {
+                if (in.readInt() != MAGIC) {
+                    return;
+                }
+                version = in.readLong();
+            } catch (EOFException e) {
+                return;
+            }
+            while (true) {
+                byte[] record;
+                int expected;
+                try {
+                    int length = in.readInt();
+                    expected = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_SIZE) {
+                        return;
+                    }
+                    record = in.readNBytes(length);
+                    if (record.length != length) {
+                        return;
+                    }
+                } catch (EOFException e) {
+                    return;
+                }
+                checksum.reset();
+                checksum.update(record);
+                if ((int) checksum.getValue() != expected) {
+                    return;
+                }
+                apply(new DataInputStream(new ByteArrayInputStream(record)), version);
+            }
+        }
+    }
+
+    private void apply(DataInputStream record, long snapshotVersion) throws IOException {
+        if (record.readLong() <= snapshotVersion) {
+            return;
+        }
+        byte type = record.readByte();
+        switch (type) {
+            case SUBNET_ADDED -> network.addSubnet(new Subnet(record.readUTF()));
+            case SUBNET_REMOVED -> network.removeSubnet(subnetOf(record.readUTF()));
+            case SYSTEM_ADDED -> {
+                boolean router = record.readBoolean();
+                String name = record.readUTF();
+                String ip = IpAddress.format(record.readInt());
+                Subnet subnet = subnetOf(record.readUTF());
+                network.addSystem(router ? new Router(name, ip, subnet) : new Computer(name, ip, subnet));
+            }
+            case SYSTEM_REMOVED -> network.removeSystem(systemAt(record.readInt()));
+            case CONNECTION_ADDED, CONNECTION_REMOVED, CONNECTION_UPDATED -> {
+                SystemNode first = systemAt(record.readInt());
+                SystemNode second = systemAt(record.readInt());
+                Integer weight = record.readBoolean() ? record.readInt() : null;
+                boolean applied = true;
+                if (type == CONNECTION_ADDED) {
+                    network.addConnection(new Connection(first, second, weight));
+                } else if (type == CONNECTION_REMOVED) {
+                    applied = network.removeConnection(first, second);
+                } else {
+                    applied = weight != null && network.updateConnection(first, second, weight);
+                }
+                if (!applied) {
+                    throw new IOException(ERROR_CORRUPT_RECORD + IpAddress.format(first.getAddress()) + " "
+                        + IpAddress.format(second.getAddress()));
+                }
+            }
+            default -> throw new IOException(ERROR_CORRUPT_RECORD + type);
+        }
+    }
+
+    private Subnet subnetOf(String cidr) throws IOException {
+        Subnet subnet = network.getSubnetByCidr(cidr);
+        if (subnet == null) {
+            throw new IOException(ERROR_CORRUPT_RECORD + cidr);
+        }
+        return subnet;
+    }
+
+    private SystemNode systemAt(int address) throws IOException {
+        SystemNode system = network.getSystemByIp(IpAddress.toUnsigned(address));
+        if (system == null) {
+            throw new IOException(ERROR_CORRUPT_RECORD + IpAddress.format(address));
+        }
+        return system;
+    }
+
+    private Path snapshotPath(int fileGeneration) {
+        return directory.resolve(SNAPSHOT_PREFIX + fileGeneration + SNAPSHOT_SUFFIX);
+    }
+
+    private Path journalPath(int fileGeneration) {
+        return directory.resolve(JOURNAL_PREFIX + fileGeneration + JOURNAL_SUFFIX);
+    }
+
+    // Returns the generation in the name of a file of this journal, or NO_GENERATION for other files.
+    private static int generationOf(Path file) {
+        String name = file.getFileName().toString();
+        String prefix = name.startsWith(SNAPSHOT_PREFIX) ? SNAPSHOT_PREFIX
+            : name.startsWith(JOURNAL_PREFIX) ? JOURNAL_PREFIX : null;
+        int end = name.indexOf('.');
+        if (prefix == null || end < prefix.length()) {
+            return NO_GENERATION;
+        }
+        try {
+            return Integer.parseInt(name.substring(prefix.length(), end));
+        } catch (NumberFormatException e) {
+            return NO_GENERATION;
+        }
+    }
+}
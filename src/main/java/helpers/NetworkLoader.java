@@ -1,8 +1,14 @@
 package helpers;
 
+import events.NetworkLoadEvent;
 import model.*;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * This class is responsible for loading a network from a text file.
@@ -26,17 +32,48 @@ public class NetworkLoader {
     private static final String OVERLAPPING_SUBNET_MESSAGE = " overlaps with ";
     private static final String SYSTEM_NAME_IP_DELIMITER = "\\[|\\]";
     private static final String ROUTER_IP_ERROR_FORMAT = "%s%s (should be %s)";
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
 
     /**
      * Load a network from a file.
      * It reads the file line by line and creates the network, subnets, systems, and connections.
      * Uses the helper methods in this class to handle the different network parts.
+     * All parts are added in one transaction, so the routing tables converge once at the end.
+     * Errors and warnings are printed.
      * @param filePath the path to the file
      * @return the network
      */
     public Network loadNetwork(String filePath) {
+        return loadNetwork(filePath, System.out::println);
+    }
+
+    /**
+     * Load a network from a file, reporting errors and warnings to the given consumer instead of printing them.
+     * @param filePath the path to the file
+     * @param diagnostics the consumer of the error and warning messages
+     * @return the network, or null if the file could not be loaded
+     */
+    public Network loadNetwork(String filePath, Consumer<String> diagnostics) {
+        NetworkLoadEvent event = new NetworkLoadEvent();
+        event.begin();
+        long start = System.nanoTime();
         Network network = new Network();
-        List<String> lines = FileHelper.readAllLines(filePath);
+        List<String> lines = FileHelper.readAllLines(filePath, diagnostics);
+        network.begin();
+        boolean succeeded = parseLines(lines, network, diagnostics);
+        if (succeeded) {
+            network.commit();
+        } else {
+            network.rollback();
+        }
+        if (event.shouldCommit()) {
+            commitLoadEvent(event, filePath, lines, network, succeeded, System.nanoTime() - start);
+        }
+        return succeeded ? network : null;
+    }
+
+    // Parses all lines into the given network and returns false after reporting the first error.
+    private boolean parseLines(List<String> lines, Network network, Consumer<String> diagnostics) {
         Subnet currentSubnet = null;
 
         for (String originalLine : lines) {
@@ -46,47 +83,69 @@ public Network loadNetwork(String filePath) {
             }
 
             if (line.startsWith(SUBGRAPH_PREFIX)) {
-                currentSubnet = parseSubnet(line, network);
+                currentSubnet = parseSubnet(line, network, diagnostics);
                 if (currentSubnet == null) {
-                    return null;  // Error message was already printed in parseSubnet.
+                    return false;  // Error message was already reported in parseSubnet.
                 }
             } else if (line.contains(SYSTEM_DELIMITER)) {
                 if (currentSubnet == null) {
-                    System.out.println(ERROR_OUTSIDE_SUBNET + line);
-                    return null;
+                    diagnostics.accept(ERROR_OUTSIDE_SUBNET + line);
+                    return false;
                 }
-                if (!parseSystem(line, currentSubnet, network)) {
-                    return null;  // Error message was already printed in parseSystem.
+                if (!parseSystem(line, currentSubnet, network, diagnostics)) {
+                    return false;  // Error message was already reported in parseSystem.
                 }
             } else if (line.contains(CONNECTION_DELIMITER)) {
                 String errorMessage = parseConnection(line, network);
                 if (errorMessage != null) {
-                    System.out.println(errorMessage);
-                    return null;
+                    diagnostics.accept(errorMessage);
+                    return false;
                 }
             }
         }
 
-        return network;
+        return true;
+    }
+
+    // The size of the file on disk, as the line lengths count characters without the line terminators.
+    private static long sizeOf(String filePath) {
+        try {
+            return Files.size(Path.of(filePath));
+        } catch (IOException | InvalidPathException e) {
+            return 0;
+        }
+    }
+
+    private void commitLoadEvent(NetworkLoadEvent event, String filePath, List<String> lines, Network network,
+                                 boolean succeeded, long nanos) {
+        event.path = filePath;
+        event.lines = lines.size();
+        event.subnets = network.getSubnets().size();
+        long bytes = sizeOf(filePath);
+        event.bytes = bytes;
+        event.bytesPerSecond = nanos > 0 ? bytes * NANOS_PER_SECOND / nanos : 0;
+        event.succeeded = succeeded;
+        event.commit();
     }
 
     // Helper methods to parse the different network parts.
-    private Subnet parseSubnet(String line, Network network) {
+    private Subnet parseSubnet(String line, Network network, Consumer<String> diagnostics) {
         String[] parts = line.split(EMPTY_SPACE);
         if (parts.length != 2) {
-            System.out.println(ERROR_PARSE_SUBNET + line);
+            diagnostics.accept(ERROR_PARSE_SUBNET + line);
             return null;
         } // Check if the subnet is valid.
         String cidr = parts[1];
         if (!NetworkValidator.isValidSubnet(cidr)) {
-            System.out.println(ERROR_INVALID_SUBNET + cidr);
+            diagnostics.accept(ERROR_INVALID_SUBNET + cidr);
             return null;
         }
         Subnet newSubnet = new Subnet(cidr);
         // Check for overlapping subnets
         for (Subnet existingSubnet : network.getSubnets()) {
             if (NetworkValidator.isOverlapping(newSubnet, existingSubnet)) {
-                System.out.println(ERROR_OVERLAPPING_SUBNET + cidr + OVERLAPPING_SUBNET_MESSAGE + existingSubnet.getCidr());
+                diagnostics.accept(ERROR_OVERLAPPING_SUBNET + cidr + OVERLAPPING_SUBNET_MESSAGE
+                    + existingSubnet.getCidr());
                 return null;
             }
         }
@@ -95,10 +154,10 @@ private Subnet parseSubnet(String line, Network network) {
         return newSubnet;
     }
 
-    private boolean parseSystem(String line, Subnet subnet, Network network) {
+    private boolean parseSystem(String line, Subnet subnet, Network network, Consumer<String> diagnostics) {
         String[] parts = line.split(SYSTEM_NAME_IP_DELIMITER);
         if (parts.length != 2) {
-            System.out.println(ERROR_PARSE_SYSTEM + line);
+            diagnostics.accept(ERROR_PARSE_SYSTEM + line);
             return false;
         }
 
@@ -106,7 +165,7 @@ private boolean parseSystem(String line, Subnet subnet, Network network) {
         String ip = parts[1].trim();
         // Check if the IP is in the subnet.
         if (!subnet.isIpInSubnet(ip)) {
-            System.out.printf((ERROR_IP_NOT_IN_SUBNET) + "%n", ip, subnet.getCidr());
+            diagnostics.accept(String.format(ERROR_IP_NOT_IN_SUBNET, ip, subnet.getCidr()));
             return false;
         }
         // Create the system.
@@ -114,14 +173,13 @@ private boolean parseSystem(String line, Subnet subnet, Network network) {
         if (name.contains(ROUTER_IDENTIFIER)) {
             String firstUsableIp = subnet.getFirstUsableIp();
             if (!ip.equals(firstUsableIp)) {
-                System.out.printf((ROUTER_IP_ERROR_FORMAT) + "%n", ERROR_ROUTER_NOT_FIRST_IP, ip, firstUsableIp);
+                diagnostics.accept(String.format(ROUTER_IP_ERROR_FORMAT, ERROR_ROUTER_NOT_FIRST_IP, ip, firstUsableIp));
             }
             system = new Router(name, ip, subnet);
         } else {
             system = new Computer(name, ip, subnet);
         }
-        // Add the system to the subnet and network.
-        subnet.addSystem(system);
+        // Add the system to the network, which adds it to its subnet as well.
         network.addSystem(system);
         return true;
     }
@@ -12,6 +12,7 @@
  */
 public final class NetworkValidator {
     private static final String ERROR_UNWEIGHTED_CONNECTION = "Error, Connection inside subnet must be weighted: ";
+    private static final String ERROR_NEGATIVE_WEIGHT = "Error, Connection weight must not be negative: ";
     private static final String ERROR_WEIGHTED_INTER_SUBNET = "Error, Connection between routers must not be weighted: ";
     private static final String ERROR_PARSE_CONNECTION = "Error, parsing connection: ";
     private static final String DEFAULT_GATEWAY = "0.0.0.0";
@@ -93,6 +94,7 @@ public static boolean isOverlapping(Subnet subnet1, Subnet subnet2) {
     /**
      * Check if the connection is valid.
      * It checks if the systems are in the same subnet, if the systems are routers, and if the connection is weighted.
+     * Weights must not be negative, as the shortest paths are searched with Dijkstra's algorithm.
      * @param system1 the first system
      * @param system2 the second system
      * @param weight the weight of the connection
@@ -104,6 +106,9 @@ public static String isValidConnection(SystemNode system1, SystemNode system2, I
             if (weight == null) {
                 return ERROR_UNWEIGHTED_CONNECTION + system1.getName() + CONNECTION_DELIMITER + system2.getName();
             }
+            if (weight < 0) {
+                return ERROR_NEGATIVE_WEIGHT + system1.getName() + CONNECTION_DELIMITER + system2.getName();
+            }
             return null;
         }
         // If both systems are routers, the connection is valid but must not be weighted.
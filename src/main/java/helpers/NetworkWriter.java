@@ -0,0 +1,75 @@
+package helpers;
+
+import model.Connection;
+import model.NetworkSnapshot;
+import model.Subnet;
+import model.SystemNode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class writes a network in the text format read by the {@link NetworkLoader}.
+ * Loading the written lines again yields the same subnets, systems, and connections.
+ */
+public final class NetworkWriter {
+    private static final String GRAPH_HEADER = "graph";
+    private static final String SUBGRAPH_FORMAT = "    subgraph %s";
+    private static final String SYSTEM_FORMAT = "        %s[%s]";
+    private static final String CONNECTION_FORMAT = "%s%s <--> %s";
+    private static final String WEIGHTED_CONNECTION_FORMAT = "%s%s <-->|%d| %s";
+    private static final String SUBGRAPH_END = "    end";
+    private static final String SUBNET_INDENT = "        ";
+    private static final String GRAPH_INDENT = "    ";
+
+    private NetworkWriter() {
+    }
+
+    /**
+     * Returns the lines describing the given snapshot.
+     * Connections inside a subnet are listed in its subgraph, connections between routers after all subgraphs.
+     * @param snapshot the snapshot to write.
+     * @return the lines of the network file.
+     */
+    public static List<String> toLines(NetworkSnapshot snapshot) {
+        Map<Subnet, List<String>> systemLines = new LinkedHashMap<>();
+        Map<Subnet, List<String>> connectionLines = new LinkedHashMap<>();
+        for (Subnet subnet : snapshot.getSubnets()) {
+            systemLines.put(subnet, new ArrayList<>());
+            connectionLines.put(subnet, new ArrayList<>());
+        }
+        for (SystemNode system : snapshot.getSystems()) {
+            systemLines.get(system.getSubnet()).add(String.format(SYSTEM_FORMAT, system.getName(),
+                system.getIpAddress()));
+        }
+        List<String> routerLines = new ArrayList<>();
+        for (Connection connection : snapshot.getConnections()) {
+            if (connection.getSystem1().getSubnet() == connection.getSystem2().getSubnet()) {
+                connectionLines.get(connection.getSystem1().getSubnet()).add(format(connection, SUBNET_INDENT));
+            } else {
+                routerLines.add(format(connection, GRAPH_INDENT));
+            }
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add(GRAPH_HEADER);
+        for (Subnet subnet : snapshot.getSubnets()) {
+            lines.add(String.format(SUBGRAPH_FORMAT, subnet.getCidr()));
+            lines.addAll(systemLines.get(subnet));
+            lines.addAll(connectionLines.get(subnet));
+            lines.add(SUBGRAPH_END);
+        }
+        lines.addAll(routerLines);
+        return lines;
+    }
+
+    private static String format(Connection connection, String indent) {
+        String first = connection.getSystem1().getName();
+        String second = connection.getSystem2().getName();
+        if (connection.getWeight() == null) {
+            return String.format(CONNECTION_FORMAT, indent, first, second);
+        }
+        return String.format(WEIGHTED_CONNECTION_FORMAT, indent, first, connection.getWeight(), second);
+    }
+}
@@ -1,30 +1,44 @@
 package helpers;
 
+import events.PathFindingEvent;
 import model.*;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.PriorityQueue;
 
 /**
  * A helper class for finding paths in a network.
  * This class uses the Dijkstra algorithm for intra-subnet routing and BGP tables for inter-subnet routing.
+ * Searches inside a subnet run on its columnar {@link SubnetGraph} with primitive arrays,
+ * either as plain Dijkstra or with one of the faster {@link SearchAlgorithm}s chosen per query.
+ * By default the contraction hierarchies built after loading are used where they are still up to date.
+ * Paths to and from the routers are taken from a {@link ShortestPathTree} cached per subnet graph.
+ * Pairs without a path are rejected up front by the cached {@link Connectivity} and the routing tables.
+ * Every search runs against a single {@link NetworkSnapshot}, so concurrent changes never affect a running query.
  */
 public class PathFinder {
-    private static final int INITIAL_DISTANCE = 0;
-    private static final int MAX_DISTANCE = Integer.MAX_VALUE;
+    private static final int NOT_FOUND = -1;
     private final Network network;
+    private final boolean timed;
 
     /**
      * Creates a new pathfinder with the given network.
      * @param network The network to find paths in.
      */
     public PathFinder(Network network) {
+        this(network, true);
+    }
+
+    /**
+     * Creates a new pathfinder with the given network, which records the time of its searches if asked to.
+     * Bulk callers that run many queries in parallel leave the timers out, so the threads never meet on them.
+     * @param network The network to find paths in.
+     * @param timed Whether every search is recorded in the statistics of the network.
+     */
+    PathFinder(Network network, boolean timed) {
         this.network = network;
+        this.timed = timed;
     }
 
     /**
@@ -35,103 +49,183 @@ public PathFinder(Network network) {
      * @return The shortest path between the systems, or null if no path is found.
      */
     public List<SystemNode> findShortestPath(SystemNode source, SystemNode destination) {
-        if (source.getSubnet().equals(destination.getSubnet())) {
-            return findPathInSubnet(source, destination);
-        } else {
-            return findPathAcrossSubnets(source, destination);
-        }
+        return findShortestPath(network.getSnapshot(), source, destination, SearchAlgorithm.CH);
     }
-    // The following methods are private helper methods for the path finding algorithm.
-    // This methode is used to find the shortest path between two systems, using the Dijkstra algorithm in the same subnet (intra).
-    private List<SystemNode> findPathInSubnet(SystemNode source, SystemNode destination) {
-        Map<SystemNode, Integer> distances = new HashMap<>();
-        Map<SystemNode, SystemNode> previousSystems = new HashMap<>();
-        PriorityQueue<SystemNode> pq = new PriorityQueue<>(Comparator.comparingInt(distances::get));
-
-        for (SystemNode system : source.getSubnet().getSystems()) {
-            distances.put(system, MAX_DISTANCE);
-        }
-        distances.put(source, INITIAL_DISTANCE);
-        pq.add(source);
 
-        while (!pq.isEmpty()) {
-            SystemNode current = pq.poll();
+    /**
+     * Finds the shortest path between the source and destination systems with the given search algorithm.
+     * @param source The source system.
+     * @param destination The destination system.
+     * @param algorithm The algorithm used for the searches inside a subnet.
+     * @return The shortest path between the systems, or an empty list if no path is found.
+     */
+    public List<SystemNode> findShortestPath(SystemNode source, SystemNode destination, SearchAlgorithm algorithm) {
+        return findShortestPath(network.getSnapshot(), source, destination, algorithm);
+    }
 
-            // Stop if the destination system is reached.
-            if (current.equals(destination)) {
-                return reconstructPath(previousSystems, destination);
-            }
+    /**
+     * Finds the shortest path between the source and destination systems in the given snapshot.
+     * Pinning one snapshot for a batch of queries gives consistent answers even if the network changes meanwhile.
+     * @param snapshot The snapshot of the network to search in.
+     * @param source The source system.
+     * @param destination The destination system.
+     * @return The shortest path between the systems, or an empty list if no path is found.
+     */
+    public List<SystemNode> findShortestPath(NetworkSnapshot snapshot, SystemNode source, SystemNode destination) {
+        return findShortestPath(snapshot, source, destination, SearchAlgorithm.CH);
+    }
 
-            // Update the distances to the neighbors of the current system.
-            for (Connection connection : network.getConnections(current)) {
-                SystemNode neighbor = connection.getOtherSystem(current);
-                // Updates neighbor distances if a shorter path found
-                if (neighbor != null && neighbor.getSubnet().equals(source.getSubnet())) {
-                    int alternativeDistance = distances.get(current) + connection.getWeight();
-                    if (alternativeDistance < distances.get(neighbor)) {
-                        distances.put(neighbor, alternativeDistance);
-                        previousSystems.put(neighbor, current);
-                        // PriorityQueue doesn't support an efficient decrease-key, so we re-add the node. (Lazy Approach)
-                        // The poll() will take the one with the smallest distance first.
-                        pq.add(neighbor);
-                    }
-                }
-            }
+    /**
+     * Finds the shortest path between the source and destination systems in the given snapshot,
+     * using the given search algorithm between systems of the same subnet. All algorithms find paths of the same cost.
+     * @param snapshot The snapshot of the network to search in.
+     * @param source The source system.
+     * @param destination The destination system.
+     * @param algorithm The algorithm used for the searches inside a subnet.
+     * @return The shortest path between the systems, or an empty list if no path is found.
+     */
+    public List<SystemNode> findShortestPath(NetworkSnapshot snapshot, SystemNode source, SystemNode destination,
+                                             SearchAlgorithm algorithm) {
+        PathFindingEvent event = new PathFindingEvent();
+        event.begin();
+        List<SystemNode> path;
+        if (!isReachable(snapshot, source, destination)) {
+            path = Collections.emptyList(); // No path exists, so there is nothing to search.
+        } else if (source.getSubnet().equals(destination.getSubnet())) {
+            path = findPathInSubnet(snapshot, source, destination, algorithm, event);
+        } else {
+            path = findPathAcrossSubnets(snapshot, source, destination);
+        }
+        if (event.shouldCommit()) {
+            event.source = source.getIpAddress();
+            event.destination = destination.getIpAddress();
+            event.algorithm = algorithm.name();
+            event.pathLength = path.size();
+            event.commit();
         }
+        return path;
+    }
+
+    /**
+     * Checks whether there is a path between the source and destination systems in the given snapshot.
+     * Inside a subnet the cached {@link Connectivity} answers directly. Across subnets both systems have to reach
+     * their routers, and the routing table of the source router has to know the subnet of the destination.
+     * @param snapshot The snapshot of the network to check in.
+     * @param source The source system.
+     * @param destination The destination system.
+     * @return True if a path exists, false otherwise.
+     */
+    public boolean isReachable(NetworkSnapshot snapshot, SystemNode source, SystemNode destination) {
+        if (source.getSubnet().equals(destination.getSubnet())) {
+            return connectedInSubnet(snapshot, source, destination);
+        }
+        Router sourceRouter = snapshot.getRouter(source.getSubnet());
+        Router destinationRouter = snapshot.getRouter(destination.getSubnet());
+        if (sourceRouter == null || destinationRouter == null || !connectedInSubnet(snapshot, source, sourceRouter)
+            || !connectedInSubnet(snapshot, destinationRouter, destination)) {
+            return false;
+        }
+        List<String> routerPath = snapshot.getRoutingTable(sourceRouter).get(destination.getSubnet().getCidr());
+        return routerPath != null && routerPath.size() >= 2;
+    }
 
-        return Collections.emptyList(); // No path found.
+    // The following methods are private helper methods for the path finding algorithm.
+    // This methode is used to find the shortest path between two systems in the same subnet (intra).
+    private List<SystemNode> findPathInSubnet(NetworkSnapshot snapshot, SystemNode source, SystemNode destination,
+                                              SearchAlgorithm algorithm, PathFindingEvent event) {
+        long start = timed ? System.nanoTime() : 0;
+        SubnetGraph graph = snapshot.getSubnetGraph(source.getSubnet());
+        int sourceIndex = graph.indexOf(source.getAddress());
+        int destinationIndex = graph.indexOf(destination.getAddress());
+        List<SystemNode> path = Collections.emptyList();
+        if (sourceIndex != NOT_FOUND && destinationIndex != NOT_FOUND) {
+            GraphSearch search = new GraphSearch(graph);
+            path = toSystems(graph, search.search(algorithm, sourceIndex, destinationIndex));
+            event.nodesSettled += search.getSettled();
+        }
+        if (timed) {
+            network.getStatistics().record(Statistics.DIJKSTRA, System.nanoTime() - start);
+        }
+        return path;
     }
 
     // This methode is used to find the shortest path between two systems, using the BGP tables in different subnets (inter).
-    // If there are multiple shortest paths, we choose the one with the smallest number of hops.
-    private List<SystemNode> findPathAcrossSubnets(SystemNode source, SystemNode destination) {
+    // The paths to and from the routers are walked in the cached router trees, so no search is needed.
+    private List<SystemNode> findPathAcrossSubnets(NetworkSnapshot snapshot, SystemNode source, SystemNode destination) {
+        Router currentRouter = snapshot.getRouter(source.getSubnet());
+        Router destinationRouter = snapshot.getRouter(destination.getSubnet());
+        if (currentRouter == null || destinationRouter == null) {
+            return Collections.emptyList();
+        }
         // Find a path from source to source subnets router.
-        List<SystemNode> sourceToRouter = findPathInSubnet(source, source.getSubnet().getRouter());
-        if (sourceToRouter.isEmpty()) {
+        int[] sourceToRouter = walkToRouter(snapshot, source);
+        if (sourceToRouter == null) {
             return Collections.emptyList();
         }
-        List<SystemNode> path = new ArrayList<>(sourceToRouter);
+        SubnetGraph sourceGraph = snapshot.getSubnetGraph(source.getSubnet());
+        List<SystemNode> path = new ArrayList<>(toSystems(sourceGraph, sourceToRouter));
         // Find a path between routers using BGP tables
-        Router currentRouter = source.getSubnet().getRouter();
-        Router destinationRouter = destination.getSubnet().getRouter();
 
         while (!currentRouter.equals(destinationRouter)) {
-            Router nextRouter = findNextRouter(currentRouter, destination.getSubnet());
+            Router nextRouter = findNextRouter(snapshot, currentRouter, destination.getSubnet());
             if (nextRouter == null) {
                 return Collections.emptyList(); // No path found.
             }
             path.add(nextRouter);
             currentRouter = nextRouter;
         }
-        // Find a path from destination subnets router to destination
-        List<SystemNode> routerToDestination = findPathInSubnet(destination.getSubnet().getRouter(), destination);
-        if (routerToDestination.isEmpty()) {
+        // Find a path from destination subnets router to destination, which is the reversed walk to the router.
+        int[] destinationToRouter = walkToRouter(snapshot, destination);
+        if (destinationToRouter == null) {
             return Collections.emptyList();
         }
+        SubnetGraph destinationGraph = snapshot.getSubnetGraph(destination.getSubnet());
         // Exclude the router as it's already in the path.
-        path.addAll(routerToDestination.subList(1, routerToDestination.size()));
+        for (int i = destinationToRouter.length - 2; i >= 0; i--) {
+            path.add(destinationGraph.getNode(destinationToRouter[i]));
+        }
+        return path;
+    }
 
+    // Walks from the system to the router of its subnet in the router tree, computing the tree on first use.
+    private int[] walkToRouter(NetworkSnapshot snapshot, SystemNode system) {
+        long start = timed ? System.nanoTime() : 0;
+        SubnetGraph graph = snapshot.getSubnetGraph(system.getSubnet());
+        ShortestPathTree tree = ShortestPathTree.ofRouter(graph);
+        int index = graph.indexOf(system.getAddress());
+        int[] path = tree == null || index == NOT_FOUND ? null : tree.pathToRoot(index);
+        if (timed) {
+            network.getStatistics().record(Statistics.DIJKSTRA, System.nanoTime() - start);
+        }
         return path;
     }
 
-    private Router findNextRouter(Router currentRouter, Subnet destinationSubnet) {
-        List<String> routerPath = currentRouter.getRoutingTable().get(destinationSubnet.getCidr());
+    private Router findNextRouter(NetworkSnapshot snapshot, Router currentRouter, Subnet destinationSubnet) {
+        List<String> routerPath = snapshot.getRoutingTable(currentRouter).get(destinationSubnet.getCidr());
         if (routerPath == null || routerPath.size() < 2) {
             return null; // No path found.
         }
         String nextRouterIp = routerPath.get(1); // Get the next hop.
-        return (Router) network.getSystemByIp(nextRouterIp);
+        return (Router) snapshot.getSystemByIp(nextRouterIp);
     }
 
-    private List<SystemNode> reconstructPath(Map<SystemNode, SystemNode> previousSystems, SystemNode destination) {
-        List<SystemNode> path = new ArrayList<>();
-        SystemNode current = destination;
-        // Reconstruct the path by following the previous systems.
-        while (current != null) {
-            path.add(0, current);
-            current = previousSystems.get(current);
+    private static boolean connectedInSubnet(NetworkSnapshot snapshot, SystemNode first, SystemNode second) {
+        SubnetGraph graph = snapshot.getSubnetGraph(first.getSubnet());
+        int firstIndex = graph.indexOf(first.getAddress());
+        int secondIndex = graph.indexOf(second.getAddress());
+        return firstIndex != NOT_FOUND && secondIndex != NOT_FOUND
+            && Connectivity.of(graph).connected(firstIndex, secondIndex);
+    }
+
+    // Only the systems on the path found are looked up.
+    private static List<SystemNode> toSystems(SubnetGraph graph, int[] indices) {
+        if (indices == null) {
+            return Collections.emptyList(); // No path found.
+        }
+        List<SystemNode> path = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            path.add(graph.getNode(index));
         }
-        // Return the path in the correct order.
         return path;
     }
 }
@@ -0,0 +1,39 @@
+package helpers;
+
+/**
+ * The algorithms the path finder can use to search a path inside a subnet.
+ * All of them find a path of the same, shortest cost, they only differ in how much of the subnet they explore.
+ */
+public enum SearchAlgorithm {
+    /**
+     * Plain Dijkstra from the source until the destination is settled.
+     */
+    DIJKSTRA,
+    /**
+     * Dijkstra from both ends at once, stopping once the two searches meet on a shortest path.
+     */
+    BIDIRECTIONAL,
+    /**
+     * A* search with lower bounds from precomputed landmark distances and the triangle inequality.
+     */
+    ALT,
+    /**
+     * Search in the contraction hierarchy built when the network was loaded,
+     * falling back to plain Dijkstra in subnets changed since then. This is the default.
+     */
+    CH;
+
+    /**
+     * Returns the algorithm with the given name, ignoring case.
+     * @param name the name of the algorithm, for example "alt".
+     * @return the algorithm, or null if there is no algorithm with that name.
+     */
+    public static SearchAlgorithm fromName(String name) {
+        for (SearchAlgorithm algorithm : values()) {
+            if (algorithm.name().equalsIgnoreCase(name)) {
+                return algorithm;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,241 @@
+package helpers;
+
+import model.SubnetGraph;
+
+import java.util.Arrays;
+
+/**
+ * The shortest-path tree of all systems of a subnet graph from one root system.
+ * Connections are undirected, so the tree answers the distance and path in both directions between
+ * the root and any system of the subnet.
+ * When a graph is derived from its previous version by a single connection change, the tree of the previous
+ * graph is repaired in the manner of Ramalingam and Reps: a lighter or new connection propagates shorter
+ * distances from its ends, and a heavier or removed tree connection only recomputes the systems below it
+ * that find no other parent with the same distance.
+ */
+public final class ShortestPathTree {
+    /**
+     * The distance of systems that cannot be reached from the root.
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+    /**
+     * The parent of the root and of unreachable systems.
+     */
+    public static final int NO_PARENT = -1;
+    private static final int INITIAL_QUEUE_SIZE = 16;
+    private final int root;
+    private final int[] distances;
+    private final int[] parents;
+
+    ShortestPathTree(int root, int[] distances, int[] parents) {
+        this.root = root;
+        this.distances = distances;
+        this.parents = parents;
+    }
+
+    /**
+     * Computes the tree with a full Dijkstra search from the root.
+     * @param graph the graph of the subnet.
+     * @param root the index of the root system.
+     * @return the shortest-path tree.
+     */
+    public static ShortestPathTree compute(SubnetGraph graph, int root) {
+        int[] distances = new int[graph.size()];
+        int[] parents = new int[graph.size()];
+        Arrays.fill(distances, UNREACHABLE);
+        Arrays.fill(parents, NO_PARENT);
+        LongHeap heap = new LongHeap();
+        distances[root] = 0;
+        heap.add(LongHeap.pack(0, root));
+        while (!heap.isEmpty()) {
+            long entry = heap.poll();
+            int current = LongHeap.indexOf(entry);
+            if (LongHeap.keyOf(entry) > distances[current]) {
+                continue;
+            }
+            for (int edge = graph.getEdgeStart(current); edge < graph.getEdgeEnd(current); edge++) {
+                int neighbor = graph.getEdgeTarget(edge);
+                int distance = distances[current] + graph.getEdgeWeight(edge);
+                if (distance < distances[neighbor]) {
+                    distances[neighbor] = distance;
+                    parents[neighbor] = current;
+                    heap.add(LongHeap.pack(distance, neighbor));
+                }
+            }
+        }
+        return new ShortestPathTree(root, distances, parents);
+    }
+
+    /**
+     * Returns the tree rooted at the router of the subnet graph.
+     * The tree is cached on the graph, so it is computed once and dropped together with the graph
+     * when the connections of the subnet change.
+     * @param graph the graph of the subnet.
+     * @return the tree of the router, or null if the subnet has no router.
+     */
+    public static ShortestPathTree ofRouter(SubnetGraph graph) {
+        if (graph.getRouterIndex() == NO_PARENT) {
+            return null;
+        }
+        return graph.getDerived(ShortestPathTree.class, ShortestPathTree::computeOrRepair);
+    }
+
+    // Repairs the router tree of the previous graph if it has one, and computes the tree from scratch otherwise.
+    private static ShortestPathTree computeOrRepair(SubnetGraph graph) {
+        SubnetGraph.Change change = graph.getChange();
+        ShortestPathTree previous = change == null ? null
+            : change.getPrevious().getDerivedIfPresent(ShortestPathTree.class);
+        if (previous == null || previous.root != graph.getRouterIndex()) {
+            return compute(graph, graph.getRouterIndex());
+        }
+        return previous.repair(graph, change);
+    }
+
+    /**
+     * Returns a copy of this tree repaired for a graph that differs from the graph of this tree by one connection.
+     * Only the systems whose distance can change are touched, all others keep their distance and parent.
+     * @param graph the graph after the change, with the same system indices.
+     * @param change the change of the connection.
+     * @return the repaired tree.
+     */
+    ShortestPathTree repair(SubnetGraph graph, SubnetGraph.Change change) {
+        int[] newDistances = distances.clone();
+        int[] newParents = parents.clone();
+        LongHeap heap = new LongHeap();
+        int first = change.getFirst();
+        int second = change.getSecond();
+        int oldWeight = change.getOldWeight();
+        int newWeight = change.getNewWeight();
+        boolean shorter = newWeight != SubnetGraph.Change.NO_EDGE
+            && (oldWeight == SubnetGraph.Change.NO_EDGE || newWeight < oldWeight);
+        if (shorter) {
+            // Both ends may now be reached more cheaply through the other one.
+            improve(newDistances, newParents, heap, first, second, newWeight);
+            improve(newDistances, newParents, heap, second, first, newWeight);
+        } else if (newWeight != oldWeight) {
+            // A heavier connection only matters if the tree uses it, and then only below it.
+            int child = parents[second] == first ? second : parents[first] == second ? first : NO_PARENT;
+            if (child != NO_PARENT) {
+                detach(graph, newDistances, newParents, heap, child);
+            }
+        }
+        propagate(graph, newDistances, newParents, heap);
+        return new ShortestPathTree(root, newDistances, newParents);
+    }
+
+    private static void improve(int[] distances, int[] parents, LongHeap heap, int from, int to, int weight) {
+        if (distances[from] != UNREACHABLE && (long) distances[from] + weight < distances[to]) {
+            distances[to] = distances[from] + weight;
+            parents[to] = from;
+            heap.add(LongHeap.pack(distances[to], to));
+        }
+    }
+
+    // Finds the systems below the child that lose their distance, and queues their best distance from the rest.
+    private void detach(SubnetGraph graph, int[] newDistances, int[] newParents, LongHeap heap, int child) {
+        // Collect the subtree top-down, its children are the neighbors whose parent it is.
+        int[] subtree = new int[INITIAL_QUEUE_SIZE];
+        int size = 0;
+        subtree[size++] = child;
+        for (int i = 0; i < size; i++) {
+            int current = subtree[i];
+            newDistances[current] = UNREACHABLE;
+            for (int edge = graph.getEdgeStart(current); edge < graph.getEdgeEnd(current); edge++) {
+                int neighbor = graph.getEdgeTarget(edge);
+                if (parents[neighbor] == current) {
+                    if (size == subtree.length) {
+                        subtree = Arrays.copyOf(subtree, size * 2);
+                    }
+                    subtree[size++] = neighbor;
+                }
+            }
+        }
+        // A system keeps its distance if a neighbor that already has its final distance offers the same one.
+        // Parents are decided before their children, so the children can still keep theirs through them.
+        for (int i = 0; i < size; i++) {
+            int current = subtree[i];
+            newParents[current] = NO_PARENT;
+            for (int edge = graph.getEdgeStart(current); edge < graph.getEdgeEnd(current); edge++) {
+                int neighbor = graph.getEdgeTarget(edge);
+                if (newDistances[neighbor] != UNREACHABLE
+                    && (long) newDistances[neighbor] + graph.getEdgeWeight(edge) == distances[current]) {
+                    newDistances[current] = distances[current];
+                    newParents[current] = neighbor;
+                    break;
+                }
+            }
+        }
+        // The remaining systems start from their best neighbor with a known distance, Dijkstra does the rest.
+        for (int i = 0; i < size; i++) {
+            int current = subtree[i];
+            if (newParents[current] != NO_PARENT) {
+                continue;
+            }
+            for (int edge = graph.getEdgeStart(current); edge < graph.getEdgeEnd(current); edge++) {
+                improve(newDistances, newParents, heap, graph.getEdgeTarget(edge), current, graph.getEdgeWeight(edge));
+            }
+        }
+    }
+
+    // Continues Dijkstra from the queued systems, which only reaches systems whose distance gets shorter.
+    private static void propagate(SubnetGraph graph, int[] distances, int[] parents, LongHeap heap) {
+        while (!heap.isEmpty()) {
+            long entry = heap.poll();
+            int current = LongHeap.indexOf(entry);
+            if (LongHeap.keyOf(entry) > distances[current]) {
+                continue;
+            }
+            for (int edge = graph.getEdgeStart(current); edge < graph.getEdgeEnd(current); edge++) {
+                improve(distances, parents, heap, current, graph.getEdgeTarget(edge), graph.getEdgeWeight(edge));
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the root system.
+     * @return the index of the root.
+     */
+    public int getRoot() {
+        return root;
+    }
+
+    /**
+     * Returns the distance between the root and a system.
+     * @param node the index of the system.
+     * @return the distance, or {@link #UNREACHABLE}.
+     */
+    public int getDistance(int node) {
+        return distances[node];
+    }
+
+    /**
+     * Returns the next system on the shortest path from a system towards the root.
+     * @param node the index of the system.
+     * @return the index of the parent, or {@link #NO_PARENT} for the root and unreachable systems.
+     */
+    public int getParent(int node) {
+        return parents[node];
+    }
+
+    /**
+     * Returns the indices of the systems on the path from a system to the root.
+     * @param node the index of the system.
+     * @return the path starting at the system and ending at the root, or null if the system is unreachable.
+     */
+    public int[] pathToRoot(int node) {
+        if (distances[node] == UNREACHABLE) {
+            return null;
+        }
+        int length = 1;
+        for (int current = node; current != root; current = parents[current]) {
+            length++;
+        }
+        int[] path = new int[length];
+        int current = node;
+        for (int i = 0; i < length; i++) {
+            path[i] = current;
+            current = parents[current];
+        }
+        return path;
+    }
+}
@@ -0,0 +1,132 @@
+package helpers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class collects counters and latency histograms for commands and internal operations.
+ * Each timer is identified by its name, for example the keywords of a command or one of the internal timer names.
+ * The report can be requested at any time or dumped to a file periodically.
+ */
+public class Statistics {
+    /**
+     * The timer for a single Dijkstra search inside a subnet.
+     */
+    public static final String DIJKSTRA = "dijkstra";
+    /**
+     * The timer for the convergence of the BGP routing tables.
+     */
+    public static final String BGP_CONVERGENCE = "bgp convergence";
+    /**
+     * The timer for parsing and validating a network file.
+     */
+    public static final String NETWORK_LOADING = "network loading";
+    /**
+     * The timer for building the contraction hierarchies of all subnets after loading.
+     */
+    public static final String CONTRACTION = "contraction";
+    private static final String HEADER_FORMAT = "%-20s %10s %10s %10s %10s %10s";
+    private static final String ROW_FORMAT = "%n%-20s %10d %10.1f %10.1f %10.1f %10.1f";
+    private static final String[] HEADER = {"timer", "count", "p50(us)", "p99(us)", "p999(us)", "max(us)"};
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final String ERROR_DUMP = "Error, Could not write statistics: ";
+    private static final double NANOS_PER_MICRO = 1000.0;
+    private static final double MEDIAN = 50;
+    private static final double P99 = 99;
+    private static final double P999 = 99.9;
+    private final Map<String, LatencyHistogram> histograms;
+    private ScheduledExecutorService dumpExecutor;
+
+    /**
+     * Creates a new empty statistics collection.
+     */
+    public Statistics() {
+        this.histograms = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Records one execution of the given timer.
+     * @param name the name of the timer.
+     * @param nanos the duration of the execution in nanoseconds.
+     */
+    public void record(String name, long nanos) {
+        histograms.computeIfAbsent(name, key -> new LatencyHistogram()).record(nanos);
+    }
+
+    /**
+     * Returns the number of recorded executions of the given timer.
+     * @param name the name of the timer.
+     * @return the number of executions, or 0 if the timer was never recorded.
+     */
+    public long getCount(String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        return histogram == null ? 0 : histogram.getCount();
+    }
+
+    /**
+     * Creates a report with one line per timer, sorted by name.
+     * @return the report.
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder(String.format(HEADER_FORMAT, (Object[]) HEADER));
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            sb.append(String.format(ROW_FORMAT, entry.getKey(), histogram.getCount(),
+                histogram.getPercentile(MEDIAN) / NANOS_PER_MICRO, histogram.getPercentile(P99) / NANOS_PER_MICRO,
+                histogram.getPercentile(P999) / NANOS_PER_MICRO, histogram.getMax() / NANOS_PER_MICRO));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public void reset() {
+        histograms.clear();
+    }
+
+    /**
+     * Starts writing the report to the given file periodically, replacing an earlier periodic dump.
+     * @param file the file to write the report to.
+     * @param periodSeconds the period between two reports in seconds.
+     */
+    public synchronized void startDump(Path file, long periodSeconds) {
+        stopDump();
+        dumpExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumpExecutor.scheduleAtFixedRate(() -> dump(file), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the periodic dump, if there is one.
+     */
+    public synchronized void stopDump() {
+        if (dumpExecutor != null) {
+            dumpExecutor.shutdownNow();
+            dumpExecutor = null;
+        }
+    }
+
+    // Writes to a temporary file first, so readers of the dump never see a partial report.
+    private void dump(Path file) {
+        Path temporary = file.resolveSibling(file.getFileName() + TEMPORARY_SUFFIX);
+        try {
+            Files.writeString(temporary, report() + System.lineSeparator(), StandardCharsets.UTF_8);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println(ERROR_DUMP + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package helpers;
+
+import model.Connection;
+import model.Network;
+import model.NetworkSnapshot;
+import model.Router;
+import model.SystemNode;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Routes a set of flows through one snapshot of the network and accounts the load they put on the connections
+ * and routers. Every flow follows its shortest path as found by the {@link PathFinder} and adds its volume to
+ * every connection and router on that path. The flows are routed in parallel, and the loads are summed in
+ * striped {@link LongAdder} counters that are created up front, so the threads never contend on a lock.
+ * The single queries are not timed, as every thread would update the same histogram for each of them.
+ * Generated flows are derived from the seed and their number alone, so the result does not depend on the threads.
+ */
+public final class TrafficSimulator {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final int HALF_SHIFT = 32;
+    private static final long HALF_MASK = 0xffffffffL;
+    private final PathFinder pathFinder;
+
+    /**
+     * Creates a new simulator for the given network.
+     * @param network the network to route the flows in.
+     */
+    public TrafficSimulator(Network network) {
+        this.pathFinder = new PathFinder(network, false);
+    }
+
+    /**
+     * Routes the given number of flows of volume one between uniformly chosen pairs of different systems.
+     * @param snapshot the snapshot to route in.
+     * @param flows the number of flows.
+     * @param seed the seed of the generated pairs.
+     * @return the loads.
+     */
+    public Result simulate(NetworkSnapshot snapshot, long flows, long seed) {
+        List<SystemNode> systems = new ArrayList<>();
+        snapshot.getSystems().forEach(systems::add);
+        int count = systems.size();
+        Result result = new Result(snapshot);
+        if (count < 2) {
+            result.unrouted.add(flows);
+            return result;
+        }
+        LongStream.range(0, flows).parallel().forEach(flow -> {
+            long random = mix(seed + flow * GOLDEN_GAMMA);
+            int source = (int) (((random >>> HALF_SHIFT) * count) >>> HALF_SHIFT);
+            // Choose among the other systems by skipping over the source.
+            int destination = (int) (((random & HALF_MASK) * (count - 1)) >>> HALF_SHIFT);
+            if (destination >= source) {
+                destination++;
+            }
+            route(snapshot, result, systems.get(source), systems.get(destination), 1);
+        });
+        return result;
+    }
+
+    /**
+     * Routes the given demands, each with its own volume.
+     * @param snapshot the snapshot to route in.
+     * @param demands the demands.
+     * @return the loads.
+     */
+    public Result simulate(NetworkSnapshot snapshot, List<Demand> demands) {
+        Result result = new Result(snapshot);
+        IntStream.range(0, demands.size()).parallel().forEach(i -> {
+            Demand demand = demands.get(i);
+            route(snapshot, result, demand.getSource(), demand.getDestination(), demand.getVolume());
+        });
+        return result;
+    }
+
+    private void route(NetworkSnapshot snapshot, Result result, SystemNode source, SystemNode destination,
+                       long volume) {
+        List<SystemNode> path = pathFinder.findShortestPath(snapshot, source, destination);
+        if (path.isEmpty()) {
+            result.unrouted.add(volume);
+            return;
+        }
+        result.routed.add(volume);
+        for (int i = 0; i < path.size(); i++) {
+            if (path.get(i) instanceof Router router) {
+                result.routerLoads.get(router).add(volume);
+            }
+            if (i > 0) {
+                result.linkLoads.get(snapshot.findConnection(path.get(i - 1), path.get(i))).add(volume);
+            }
+        }
+    }
+
+    // The finalizer of SplitMix64, which turns consecutive inputs into independent looking outputs.
+    private static long mix(long value) {
+        long mixed = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        mixed = (mixed ^ (mixed >>> 27)) * 0x94d049bb133111ebL;
+        return mixed ^ (mixed >>> 31);
+    }
+
+    /**
+     * A flow between two systems with a volume.
+     */
+    public static final class Demand {
+        private final SystemNode source;
+        private final SystemNode destination;
+        private final long volume;
+
+        /**
+         * Creates a new demand.
+         * @param source the source system.
+         * @param destination the destination system.
+         * @param volume the volume of the flow.
+         */
+        public Demand(SystemNode source, SystemNode destination, long volume) {
+            this.source = source;
+            this.destination = destination;
+            this.volume = volume;
+        }
+
+        /**
+         * Returns the source system.
+         * @return the source system.
+         */
+        public SystemNode getSource() {
+            return source;
+        }
+
+        /**
+         * Returns the destination system.
+         * @return the destination system.
+         */
+        public SystemNode getDestination() {
+            return destination;
+        }
+
+        /**
+         * Returns the volume of the flow.
+         * @return the volume.
+         */
+        public long getVolume() {
+            return volume;
+        }
+    }
+
+    /**
+     * The accumulated loads of one simulation.
+     */
+    public static final class Result {
+        private static final Comparator<SystemNode> BY_ADDRESS =
+            (first, second) -> Integer.compareUnsigned(first.getAddress(), second.getAddress());
+        private final LongAdder routed;
+        private final LongAdder unrouted;
+        private final Map<Connection, LongAdder> linkLoads;
+        private final Map<Router, LongAdder> routerLoads;
+
+        private Result(NetworkSnapshot snapshot) {
+            this.routed = new LongAdder();
+            this.unrouted = new LongAdder();
+            this.linkLoads = new ConcurrentHashMap<>();
+            this.routerLoads = new ConcurrentHashMap<>();
+            // All counters exist before the flows start, so routing only reads the maps.
+            for (Connection connection : snapshot.getConnections()) {
+                linkLoads.put(connection, new LongAdder());
+            }
+            for (Router router : snapshot.getRouters()) {
+                routerLoads.put(router, new LongAdder());
+            }
+        }
+
+        /**
+         * Returns the volume of the flows that found a path.
+         * @return the routed volume.
+         */
+        public long getRoutedVolume() {
+            return routed.sum();
+        }
+
+        /**
+         * Returns the volume of the flows that found no path.
+         * @return the unrouted volume.
+         */
+        public long getUnroutedVolume() {
+            return unrouted.sum();
+        }
+
+        /**
+         * Returns the connections with the highest load, highest first. Connections without load are left out.
+         * @param limit the maximum number of connections.
+         * @return the connections mapped to their load.
+         */
+        public List<Map.Entry<Connection, Long>> getHottestLinks(int limit) {
+            return hottest(linkLoads, limit, Comparator.comparing(Connection::getSystem1, BY_ADDRESS)
+                .thenComparing(Connection::getSystem2, BY_ADDRESS));
+        }
+
+        /**
+         * Returns the routers with the highest load, highest first. Routers without load are left out.
+         * @param limit the maximum number of routers.
+         * @return the routers mapped to their load.
+         */
+        public List<Map.Entry<Router, Long>> getHottestRouters(int limit) {
+            return hottest(routerLoads, limit, BY_ADDRESS);
+        }
+
+        // Equal loads are ordered by address, so the report does not depend on the order of the map.
+        private static <K> List<Map.Entry<K, Long>> hottest(Map<K, LongAdder> loads, int limit,
+                                                           Comparator<? super K> tieBreaker) {
+            return loads.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().sum()))
+                .filter(entry -> entry.getValue() > 0)
+                .sorted(Map.Entry.<K, Long>comparingByValue(Comparator.reverseOrder())
+                    .thenComparing(Map.Entry.comparingByKey(tieBreaker)))
+                .limit(limit)
+                .toList();
+        }
+    }
+}
@@ -6,6 +6,9 @@
  * It extends the Systems class as it has other functionality as other systems like routers.
  */
 public class Computer extends SystemNode {
+    private static final String GENERATED_NAME_PREFIX = "PC_";
+    private static final char DOT = '.';
+    private static final char UNDERLINE = '_';
 
     /**
      * Creates a new Computer object with the given name, IP address, and subnet.
@@ -17,4 +20,29 @@ public class Computer extends SystemNode {
     public Computer(String name, String ipAddress, Subnet subnet) {
         super(name, ipAddress, subnet);
     }
+
+    /**
+     * Creates a new Computer object whose name is generated from its IP address, for example "PC_10_0_0_2".
+     * The name is not stored but generated whenever it is requested.
+     * @param ipAddress The IP address of the computer.
+     * @param subnet The subnet to which the computer belongs.
+     */
+    public Computer(String ipAddress, Subnet subnet) {
+        super(null, ipAddress, subnet);
+    }
+
+    /**
+     * Creates a new Computer object with a generated name from a packed IP address, as used when adding in bulk.
+     * @param address The packed IP address of the computer.
+     * @param subnet The subnet to which the computer belongs.
+     */
+    public Computer(int address, Subnet subnet) {
+        super(null, address, subnet);
+    }
+
+    @Override
+    public String getName() {
+        String name = super.getName();
+        return name != null ? name : GENERATED_NAME_PREFIX + getIpAddress().replace(DOT, UNDERLINE);
+    }
 }
@@ -0,0 +1,580 @@
+package model;
+
+import helpers.IpAddressComparator;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The systems of a subnet in the order of their addresses, kept in an immutable B-tree of small sorted leaves.
+ * Every change returns a new table that shares all untouched nodes with the previous one and copies only the nodes
+ * on the path to the changed leaf, so a single change costs O(log n) however large the subnet is, and every table
+ * stays valid for as long as somebody holds it.
+ * The keys are the addresses with the sign bit flipped, so the signed order of the keys is the unsigned order of
+ * the addresses and a binary search needs no comparator. The table also remembers the router of the subnet.
+ * Free addresses are found by skipping every subtree whose addresses are consecutive, which a node knows from its
+ * first and last key and its size, so runs of used addresses are passed without visiting their leaves.
+ */
+final class HostTable {
+    private static final int LEAF_CAPACITY = 64;
+    private static final int BRANCH_CAPACITY = 32;
+    private static final long NOT_FOUND = -1;
+    private static final HostTable EMPTY = new HostTable(null, null);
+    private final Node root;
+    private final Router router;
+
+    private HostTable(Node root, Router router) {
+        this.root = root;
+        this.router = router;
+    }
+
+    /**
+     * Returns the empty table.
+     * @return the empty table.
+     */
+    static HostTable empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns the number of systems.
+     * @return the number of systems.
+     */
+    int size() {
+        return root == null ? 0 : root.size();
+    }
+
+    /**
+     * Returns the systems in the order of their addresses.
+     * @return an unmodifiable view of this table, which never changes.
+     */
+    List<SystemNode> view() {
+        return new View(root);
+    }
+
+    /**
+     * Returns the router of the subnet.
+     * @return the router that was added last and is still in the table, or null if there is none.
+     */
+    Router getRouter() {
+        return router;
+    }
+
+    /**
+     * Counts the systems whose address lies in the given range.
+     * @param first the first address of the range, unsigned.
+     * @param last the last address of the range, unsigned.
+     * @return the number of systems in the range.
+     */
+    int countBetween(long first, long last) {
+        if (root == null || first > last) {
+            return 0;
+        }
+        return root.rank(keyOf(last), true) - root.rank(keyOf(first), false);
+    }
+
+    /**
+     * Finds the lowest address in the given range that no system of the table uses.
+     * @param from the first address to consider, unsigned.
+     * @param to the address after the last one to consider, unsigned.
+     * @return the free address, or -1 if all addresses in the range are used.
+     */
+    long nextFree(long from, long to) {
+        long found = root == null || from >= to ? from : root.nextFree(from);
+        return found < to ? found : NOT_FOUND;
+    }
+
+    /**
+     * Checks whether the table contains the given system.
+     * @param system the system to look for.
+     * @return true if the system is in the table.
+     */
+    boolean contains(SystemNode system) {
+        return root != null && root.find(keyOf(system)) == system;
+    }
+
+    /**
+     * Returns a table with the system added, replacing another one with the same address.
+     * @param system the system to add.
+     * @return the new table, or this one if the system is already in it.
+     */
+    HostTable with(SystemNode system) {
+        Router newRouter = routerAfterAdding(router, system);
+        if (root == null) {
+            return new HostTable(new Leaf(new int[] {keyOf(system)}, new SystemNode[] {system}), newRouter);
+        }
+        Node[] result = root.put(keyOf(system), system);
+        if (result.length == 1) {
+            return result[0] == root ? this : new HostTable(result[0], newRouter);
+        }
+        return new HostTable(new Branch(result), newRouter);
+    }
+
+    /**
+     * Returns a table with many systems added at once, replacing others with the same address.
+     * The systems are merged with the existing ones and the tree is built anew from the bottom, in linear time.
+     * @param added the systems to add. Of several with the same address, the last one is kept.
+     * @return the new table.
+     */
+    HostTable withAll(Collection<? extends SystemNode> added) {
+        List<SystemNode> sorted = new ArrayList<>(added);
+        IpAddressComparator.sortByKey(sorted, system -> IpAddressComparator.addressKey(system.getAddress()));
+        int existing = size();
+        int[] keys = new int[existing + sorted.size()];
+        SystemNode[] systems = new SystemNode[keys.length];
+        if (root != null) {
+            root.copyTo(keys, systems, 0);
+        }
+        Router newRouter = router;
+        for (SystemNode system : added) {
+            newRouter = routerAfterAdding(newRouter, system);
+        }
+        int[] mergedKeys = new int[keys.length];
+        SystemNode[] merged = new SystemNode[keys.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < existing || j < sorted.size()) {
+            // On equal keys the existing system comes first, so the added one replaces it.
+            boolean takeExisting = j == sorted.size() || i < existing && keys[i] <= keyOf(sorted.get(j));
+            SystemNode system = takeExisting ? systems[i++] : sorted.get(j++);
+            int key = keyOf(system);
+            if (size > 0 && mergedKeys[size - 1] == key) {
+                merged[size - 1] = system;
+            } else {
+                mergedKeys[size] = key;
+                merged[size++] = system;
+            }
+        }
+        return new HostTable(build(mergedKeys, merged, size), newRouter);
+    }
+
+    /**
+     * Returns a table without the given system.
+     * @param system the system to remove.
+     * @return the new table, or this one if the system is not in it.
+     */
+    HostTable without(SystemNode system) {
+        if (root == null) {
+            return this;
+        }
+        Node result = root.remove(keyOf(system), system);
+        if (result == root) {
+            return this;
+        }
+        // A root with a single child is replaced by the child, so the tree shrinks again.
+        while (result instanceof Branch branch && branch.children.length == 1) {
+            result = branch.children[0];
+        }
+        return result.size() == 0 ? EMPTY : new HostTable(result, system == router ? null : router);
+    }
+
+    // A router becomes the router of the subnet, any other system only replaces it if it takes its address.
+    private static Router routerAfterAdding(Router router, SystemNode system) {
+        if (system instanceof Router added) {
+            return added;
+        }
+        return router != null && router.getAddress() == system.getAddress() ? null : router;
+    }
+
+    private static int keyOf(SystemNode system) {
+        return system.getAddress() ^ Integer.MIN_VALUE;
+    }
+
+    private static int keyOf(long address) {
+        return (int) address ^ Integer.MIN_VALUE;
+    }
+
+    private static long addressOf(int key) {
+        return Integer.toUnsignedLong(key ^ Integer.MIN_VALUE);
+    }
+
+    // Builds a tree of evenly filled nodes from sorted arrays.
+    private static Node build(int[] keys, SystemNode[] systems, int size) {
+        if (size == 0) {
+            return null;
+        }
+        int leafCount = (size + LEAF_CAPACITY - 1) / LEAF_CAPACITY;
+        Node[] level = new Node[leafCount];
+        for (int i = 0; i < leafCount; i++) {
+            int from = (int) ((long) size * i / leafCount);
+            int to = (int) ((long) size * (i + 1) / leafCount);
+            level[i] = new Leaf(Arrays.copyOfRange(keys, from, to), Arrays.copyOfRange(systems, from, to));
+        }
+        while (level.length > 1) {
+            int branchCount = (level.length + BRANCH_CAPACITY - 1) / BRANCH_CAPACITY;
+            Node[] next = new Node[branchCount];
+            for (int i = 0; i < branchCount; i++) {
+                int from = level.length * i / branchCount;
+                int to = level.length * (i + 1) / branchCount;
+                next[i] = new Branch(Arrays.copyOfRange(level, from, to));
+            }
+            level = next;
+        }
+        return level[0];
+    }
+
+    // Joins a range of nodes, the given middle nodes and the rest of another array of nodes of the same level.
+    private static Node[] join(Node[] nodes, int from, int to, Node[] middle, Node[] rest, int restFrom) {
+        Node[] result = new Node[to - from + middle.length + rest.length - restFrom];
+        System.arraycopy(nodes, from, result, 0, to - from);
+        System.arraycopy(middle, 0, result, to - from, middle.length);
+        System.arraycopy(rest, restFrom, result, to - from + middle.length, rest.length - restFrom);
+        return result;
+    }
+
+    // A node of the tree. Changes return new nodes and leave this one as it is.
+    private abstract static class Node {
+        abstract int size();
+
+        // Returns the number of entries of a leaf or children of a branch, which decides when nodes split or merge.
+        abstract int width();
+
+        abstract int capacity();
+
+        abstract int firstKey();
+
+        abstract int lastKey();
+
+        abstract SystemNode get(int index);
+
+        // Returns the number of keys before the given one, or up to and including it.
+        abstract int rank(int key, boolean inclusive);
+
+        // Returns the lowest address from the candidate on that is not used in this node, which is after its last
+        // address if all from the candidate on are used.
+        abstract long nextFree(long candidate);
+
+        abstract SystemNode find(int key);
+
+        // Returns this node, the changed node, or the two halves of the changed node if it became too wide.
+        abstract Node[] put(int key, SystemNode system);
+
+        // Returns this node if the system is not in it, else the changed node, which may be empty or underfull.
+        abstract Node remove(int key, SystemNode system);
+
+        // Joins this node with its right neighbor of the same kind, splitting the result if it became too wide.
+        abstract Node[] merge(Node right);
+
+        abstract int copyTo(int[] keys, SystemNode[] systems, int offset);
+
+        boolean isUnderfull() {
+            return width() < capacity() / 4;
+        }
+
+        // Checks whether the addresses of this node have no gaps, so they can be skipped as a whole.
+        boolean isConsecutive() {
+            return addressOf(lastKey()) - addressOf(firstKey()) + 1 == size();
+        }
+
+        // Returns the candidate if the node cannot use it, or the address after the node if it uses all from it on.
+        long skip(long candidate) {
+            if (candidate < addressOf(firstKey()) || candidate > addressOf(lastKey())) {
+                return candidate;
+            }
+            return isConsecutive() ? addressOf(lastKey()) + 1 : NOT_FOUND;
+        }
+    }
+
+    private static final class Leaf extends Node {
+        private final int[] keys;
+        private final SystemNode[] systems;
+
+        private Leaf(int[] keys, SystemNode[] systems) {
+            this.keys = keys;
+            this.systems = systems;
+        }
+
+        @Override
+        int size() {
+            return keys.length;
+        }
+
+        @Override
+        int width() {
+            return keys.length;
+        }
+
+        @Override
+        int capacity() {
+            return LEAF_CAPACITY;
+        }
+
+        @Override
+        int firstKey() {
+            return keys[0];
+        }
+
+        @Override
+        int lastKey() {
+            return keys[keys.length - 1];
+        }
+
+        @Override
+        SystemNode get(int index) {
+            return systems[index];
+        }
+
+        @Override
+        int rank(int key, boolean inclusive) {
+            int index = Arrays.binarySearch(keys, key);
+            return index >= 0 ? (inclusive ? index + 1 : index) : -index - 1;
+        }
+
+        @Override
+        long nextFree(long candidate) {
+            long skipped = skip(candidate);
+            if (skipped != NOT_FOUND) {
+                return skipped;
+            }
+            long next = candidate;
+            for (int i = rank(keyOf(candidate), false); i < keys.length && addressOf(keys[i]) == next; i++) {
+                next++;
+            }
+            return next;
+        }
+
+        @Override
+        SystemNode find(int key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index >= 0 ? systems[index] : null;
+        }
+
+        @Override
+        Node[] put(int key, SystemNode system) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index >= 0) {
+                if (systems[index] == system) {
+                    return new Node[] {this};
+                }
+                SystemNode[] replaced = systems.clone();
+                replaced[index] = system;
+                return new Node[] {new Leaf(keys, replaced)};
+            }
+            int insertion = -index - 1;
+            int[] newKeys = new int[keys.length + 1];
+            SystemNode[] newSystems = new SystemNode[keys.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertion);
+            System.arraycopy(systems, 0, newSystems, 0, insertion);
+            newKeys[insertion] = key;
+            newSystems[insertion] = system;
+            System.arraycopy(keys, insertion, newKeys, insertion + 1, keys.length - insertion);
+            System.arraycopy(systems, insertion, newSystems, insertion + 1, keys.length - insertion);
+            return split(newKeys, newSystems);
+        }
+
+        @Override
+        Node remove(int key, SystemNode system) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index < 0 || systems[index] != system) {
+                return this;
+            }
+            int[] newKeys = new int[keys.length - 1];
+            SystemNode[] newSystems = new SystemNode[keys.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(systems, 0, newSystems, 0, index);
+            System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+            System.arraycopy(systems, index + 1, newSystems, index, keys.length - index - 1);
+            return new Leaf(newKeys, newSystems);
+        }
+
+        @Override
+        Node[] merge(Node right) {
+            Leaf other = (Leaf) right;
+            int[] newKeys = Arrays.copyOf(keys, keys.length + other.keys.length);
+            SystemNode[] newSystems = Arrays.copyOf(systems, newKeys.length);
+            System.arraycopy(other.keys, 0, newKeys, keys.length, other.keys.length);
+            System.arraycopy(other.systems, 0, newSystems, systems.length, other.systems.length);
+            return split(newKeys, newSystems);
+        }
+
+        @Override
+        int copyTo(int[] target, SystemNode[] targetSystems, int offset) {
+            System.arraycopy(keys, 0, target, offset, keys.length);
+            System.arraycopy(systems, 0, targetSystems, offset, systems.length);
+            return offset + keys.length;
+        }
+
+        private static Node[] split(int[] keys, SystemNode[] systems) {
+            if (keys.length <= LEAF_CAPACITY) {
+                return new Node[] {new Leaf(keys, systems)};
+            }
+            int half = keys.length / 2;
+            return new Node[] {
+                new Leaf(Arrays.copyOfRange(keys, 0, half), Arrays.copyOfRange(systems, 0, half)),
+                new Leaf(Arrays.copyOfRange(keys, half, keys.length), Arrays.copyOfRange(systems, half, keys.length))
+            };
+        }
+    }
+
+    private static final class Branch extends Node {
+        private final Node[] children;
+        // The first key of every child, and the number of systems before every child and in total.
+        private final int[] firstKeys;
+        private final int[] offsets;
+        private final int lastKey;
+
+        private Branch(Node[] children) {
+            this.children = children;
+            this.firstKeys = new int[children.length];
+            this.offsets = new int[children.length + 1];
+            for (int i = 0; i < children.length; i++) {
+                firstKeys[i] = children[i].firstKey();
+                offsets[i + 1] = offsets[i] + children[i].size();
+            }
+            this.lastKey = children.length == 0 ? 0 : children[children.length - 1].lastKey();
+        }
+
+        @Override
+        int size() {
+            return offsets[children.length];
+        }
+
+        @Override
+        int width() {
+            return children.length;
+        }
+
+        @Override
+        int capacity() {
+            return BRANCH_CAPACITY;
+        }
+
+        @Override
+        int firstKey() {
+            return firstKeys[0];
+        }
+
+        @Override
+        int lastKey() {
+            return lastKey;
+        }
+
+        @Override
+        int rank(int key, boolean inclusive) {
+            int child = childFor(key);
+            return offsets[child] + children[child].rank(key, inclusive);
+        }
+
+        @Override
+        long nextFree(long candidate) {
+            long skipped = skip(candidate);
+            if (skipped != NOT_FOUND) {
+                return skipped;
+            }
+            long next = candidate;
+            for (int child = childFor(keyOf(candidate)); child < children.length; child++) {
+                next = children[child].nextFree(next);
+                if (next <= addressOf(children[child].lastKey())) {
+                    return next;
+                }
+            }
+            return next;
+        }
+
+        @Override
+        SystemNode get(int index) {
+            int child = Arrays.binarySearch(offsets, 0, children.length, index);
+            child = child >= 0 ? child : -child - 2;
+            return children[child].get(index - offsets[child]);
+        }
+
+        @Override
+        SystemNode find(int key) {
+            return children[childFor(key)].find(key);
+        }
+
+        @Override
+        Node[] put(int key, SystemNode system) {
+            int child = childFor(key);
+            Node[] result = children[child].put(key, system);
+            if (result.length == 1 && result[0] == children[child]) {
+                return new Node[] {this};
+            }
+            return split(join(children, 0, child, result, children, child + 1));
+        }
+
+        @Override
+        Node remove(int key, SystemNode system) {
+            int child = childFor(key);
+            Node result = children[child].remove(key, system);
+            if (result == children[child]) {
+                return this;
+            }
+            if (result.size() == 0) {
+                return new Branch(join(children, 0, child, new Node[0], children, child + 1));
+            }
+            if (!result.isUnderfull() || children.length == 1) {
+                Node[] replaced = children.clone();
+                replaced[child] = result;
+                return new Branch(replaced);
+            }
+            // An underfull child is joined with a neighbor, which splits them evenly again if both are too many.
+            int left = child > 0 ? child - 1 : child;
+            Node[] merged = left == child ? result.merge(children[child + 1]) : children[left].merge(result);
+            return new Branch(join(children, 0, left, merged, children, left + 2));
+        }
+
+        @Override
+        Node[] merge(Node right) {
+            Branch other = (Branch) right;
+            return split(join(children, 0, children.length, other.children, new Node[0], 0));
+        }
+
+        @Override
+        int copyTo(int[] keys, SystemNode[] systems, int offset) {
+            int next = offset;
+            for (Node child : children) {
+                next = child.copyTo(keys, systems, next);
+            }
+            return next;
+        }
+
+        // Returns the child whose range contains the key, which is the first one for keys before all others.
+        private int childFor(int key) {
+            int index = Arrays.binarySearch(firstKeys, key);
+            return index >= 0 ? index : Math.max(0, -index - 2);
+        }
+
+        private static Node[] split(Node[] children) {
+            if (children.length <= BRANCH_CAPACITY) {
+                return new Node[] {new Branch(children)};
+            }
+            int half = children.length / 2;
+            return new Node[] {
+                new Branch(Arrays.copyOfRange(children, 0, half)),
+                new Branch(Arrays.copyOfRange(children, half, children.length))
+            };
+        }
+    }
+
+    private static final class View extends AbstractList<SystemNode> implements RandomAccess {
+        private final Node root;
+
+        private View(Node root) {
+            this.root = root;
+        }
+
+        @Override
+        public SystemNode get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return root.get(index);
+        }
+
+        @Override
+        public int size() {
+            return root == null ? 0 : root.size();
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            return object instanceof SystemNode system && root != null && root.find(keyOf(system)) == system;
+        }
+    }
+}
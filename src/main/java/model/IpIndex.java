@@ -0,0 +1,294 @@
+package model;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable index from packed IPv4 addresses to systems, using open addressing on primitive int keys.
+ * The keys are spread over a fixed two-level directory of segments, and each segment is a small linear probing
+ * table of parallel key and value arrays. A change copies only the touched segment and the two directory arrays
+ * on its path, so snapshots share all other segments just like with {@link PersistentMap}.
+ */
+public final class IpIndex implements Iterable<SystemNode> {
+    private static final int DIRECTORY_BITS = 6;
+    private static final int DIRECTORY_SIZE = 1 << DIRECTORY_BITS;
+    private static final int DIRECTORY_MASK = DIRECTORY_SIZE - 1;
+    private static final int TOP_SHIFT = Integer.SIZE - DIRECTORY_BITS;
+    private static final int SECOND_SHIFT = TOP_SHIFT - DIRECTORY_BITS;
+    private static final int INITIAL_CAPACITY = 4;
+    private static final int NOT_FOUND = -1;
+    private static final int SEGMENT_COUNT = DIRECTORY_SIZE * DIRECTORY_SIZE;
+    private static final IpIndex EMPTY = new IpIndex(new Segment[DIRECTORY_SIZE][], 0);
+    private static final Segment EMPTY_SEGMENT = new Segment(INITIAL_CAPACITY);
+    private final Segment[][] directory;
+    private final int size;
+
+    private IpIndex(Segment[][] directory, int size) {
+        this.directory = directory;
+        this.size = size;
+    }
+
+    /**
+     * Returns the empty index.
+     * @return the empty index.
+     */
+    public static IpIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns the number of systems in the index.
+     * @return the number of systems.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the system with the given address.
+     * @param address the packed address.
+     * @return the system, or null if there is none.
+     */
+    public SystemNode get(int address) {
+        int hash = hash(address);
+        Segment segment = segmentFor(hash);
+        if (segment == null) {
+            return null;
+        }
+        int slot = segment.find(address, hash);
+        return slot == NOT_FOUND ? null : segment.values[slot];
+    }
+
+    /**
+     * Returns a copy of this index with the given system stored under the given address.
+     * @param address the packed address.
+     * @param system the system to store.
+     * @return the changed index.
+     */
+    public IpIndex put(int address, SystemNode system) {
+        int hash = hash(address);
+        Segment segment = segmentFor(hash);
+        Segment source = segment == null ? EMPTY_SEGMENT : segment;
+        Segment changed = source.copy(source.size + 1);
+        boolean added = changed.put(address, hash, system);
+        return new IpIndex(withSegment(hash, changed), added ? size + 1 : size);
+    }
+
+    /**
+     * Returns a copy of this index with all given systems stored under their addresses.
+     * Every touched segment is copied only once, sized up front for all of its new entries.
+     * @param systems the systems to store.
+     * @return the changed index.
+     */
+    public IpIndex putAll(Collection<? extends SystemNode> systems) {
+        int[] added = new int[SEGMENT_COUNT];
+        for (SystemNode system : systems) {
+            added[hash(system.getAddress()) >>> SECOND_SHIFT]++;
+        }
+        Segment[] changed = new Segment[SEGMENT_COUNT];
+        int newSize = size;
+        for (SystemNode system : systems) {
+            int hash = hash(system.getAddress());
+            int index = hash >>> SECOND_SHIFT;
+            if (changed[index] == null) {
+                Segment segment = segmentFor(hash);
+                Segment source = segment == null ? EMPTY_SEGMENT : segment;
+                changed[index] = source.copy(source.size + added[index]);
+            }
+            if (changed[index].put(system.getAddress(), hash, system)) {
+                newSize++;
+            }
+        }
+        Segment[][] newDirectory = directory.clone();
+        for (int index = 0; index < SEGMENT_COUNT; index++) {
+            if (changed[index] != null) {
+                int top = index >>> DIRECTORY_BITS;
+                if (newDirectory[top] == directory[top]) {
+                    newDirectory[top] = directory[top] == null ? new Segment[DIRECTORY_SIZE] : directory[top].clone();
+                }
+                newDirectory[top][index & DIRECTORY_MASK] = changed[index];
+            }
+        }
+        return new IpIndex(newDirectory, newSize);
+    }
+
+    /**
+     * Returns a copy of this index without the given address.
+     * @param address the packed address.
+     * @return the changed index, or this index if the address is not in it.
+     */
+    public IpIndex remove(int address) {
+        int hash = hash(address);
+        Segment segment = segmentFor(hash);
+        if (segment == null || segment.find(address, hash) == NOT_FOUND) {
+            return this;
+        }
+        Segment changed = segment.copy(segment.size);
+        changed.remove(address, hash);
+        return new IpIndex(withSegment(hash, changed.size == 0 ? null : changed), size - 1);
+    }
+
+    @Override
+    public Iterator<SystemNode> iterator() {
+        return new SystemIterator();
+    }
+
+    // Scrambles the address, as consecutive addresses would otherwise all end up in the same segment.
+    private static int hash(int address) {
+        int hash = address;
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    private Segment segmentFor(int hash) {
+        Segment[] second = directory[hash >>> TOP_SHIFT];
+        return second == null ? null : second[(hash >>> SECOND_SHIFT) & DIRECTORY_MASK];
+    }
+
+    private Segment[][] withSegment(int hash, Segment segment) {
+        int top = hash >>> TOP_SHIFT;
+        Segment[][] newDirectory = directory.clone();
+        Segment[] second = directory[top] == null ? new Segment[DIRECTORY_SIZE] : directory[top].clone();
+        second[(hash >>> SECOND_SHIFT) & DIRECTORY_MASK] = segment;
+        newDirectory[top] = second;
+        return newDirectory;
+    }
+
+    /**
+     * A linear probing table of one segment. A null value marks a free slot, so every int is a valid key.
+     * Segments are only changed while they are being copied and never after they are published.
+     */
+    private static final class Segment {
+        private int[] keys;
+        private SystemNode[] values;
+        private int size;
+
+        Segment(int capacity) {
+            this.keys = new int[capacity];
+            this.values = new SystemNode[capacity];
+        }
+
+        // Copies the segment, growing it if the given number of entries would fill more than half of it.
+        Segment copy(int requiredSize) {
+            int capacity = keys.length;
+            while (requiredSize * 2 > capacity) {
+                capacity *= 2;
+            }
+            if (capacity > keys.length) {
+                Segment grown = new Segment(capacity);
+                for (int i = 0; i < keys.length; i++) {
+                    if (values[i] != null) {
+                        grown.put(keys[i], hash(keys[i]), values[i]);
+                    }
+                }
+                return grown;
+            }
+            Segment copy = new Segment(0);
+            copy.keys = keys.clone();
+            copy.values = values.clone();
+            copy.size = size;
+            return copy;
+        }
+
+        int find(int key, int hash) {
+            int mask = keys.length - 1;
+            for (int slot = hash & mask; values[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+            }
+            return NOT_FOUND;
+        }
+
+        boolean put(int key, int hash, SystemNode value) {
+            int mask = keys.length - 1;
+            int slot = hash & mask;
+            while (values[slot] != null) {
+                if (keys[slot] == key) {
+                    values[slot] = value;
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            size++;
+            return true;
+        }
+
+        // Removes by shifting later entries of the probe sequence back, so no tombstones are needed.
+        void remove(int key, int hash) {
+            int mask = keys.length - 1;
+            int gap = find(key, hash);
+            int slot = gap;
+            while (true) {
+                slot = (slot + 1) & mask;
+                if (values[slot] == null) {
+                    break;
+                }
+                int home = hash(keys[slot]) & mask;
+                // Move the entry into the gap if the gap lies between its home slot and its current slot.
+                if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                    keys[gap] = keys[slot];
+                    values[gap] = values[slot];
+                    gap = slot;
+                }
+            }
+            values[gap] = null;
+            size--;
+        }
+    }
+
+    /**
+     * Iterates over the systems in directory and slot order.
+     */
+    private final class SystemIterator implements Iterator<SystemNode> {
+        private int segmentIndex = NOT_FOUND;
+        private Segment segment;
+        private int slot;
+        private SystemNode next;
+
+        SystemIterator() {
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public SystemNode next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            SystemNode result = next;
+            advance();
+            return result;
+        }
+
+        private void advance() {
+            next = null;
+            while (true) {
+                while (segment != null && slot < segment.values.length) {
+                    SystemNode value = segment.values[slot++];
+                    if (value != null) {
+                        next = value;
+                        return;
+                    }
+                }
+                if (++segmentIndex >= SEGMENT_COUNT) {
+                    return;
+                }
+                Segment[] second = directory[segmentIndex / DIRECTORY_SIZE];
+                segment = second == null ? null : second[segmentIndex % DIRECTORY_SIZE];
+                slot = 0;
+            }
+        }
+    }
+}
@@ -1,36 +1,244 @@
 package model;
 
+import events.RoutingConvergenceEvent;
+import helpers.IpAddress;
+import helpers.NetworkValidator;
+import helpers.Statistics;
+
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 /**
  * Represents a network of subnets and systems.
  * A network consists of subnets, systems, and connections between systems.
  * The components of the network are specified in their respective classes.
+ * Every change publishes a new immutable {@link NetworkSnapshot}, so reading never blocks
+ * while changes are serialized by a single write lock.
+ * Several changes can be grouped into a transaction with {@link #begin()}, {@link #commit()} and {@link #rollback()}.
+ * A transaction changes a private working snapshot without holding the write lock, so an idle transaction never
+ * blocks other threads. Its changes stay invisible to them until the commit, which takes the lock only to publish
+ * the working snapshot, converging the routing tables once. Everything a transaction changes, including the members,
+ * router and used addresses of the subnets, lives in its snapshot, so a rollback only drops that snapshot.
+ * The commit fails if another change was committed since the begin, as the transaction would overwrite it.
+ * Subscribers receive the changes as batches of {@link TopologyEvent}s, one batch per outermost use of the write lock.
+ * Events are only collected while there are subscribers. A subscriber that falls behind by a full buffer
+ * blocks the next change until it has caught up, so no event is ever dropped.
  */
 public class Network {
     private static final String ERROR_INVALID_CONNECTION = "Error, Invalid connection.";
-    private final List<Subnet> subnets;
-    private final Map<String, SystemNode> systemsByIp;
-    private final Map<String, SystemNode> systemsByName;
-    private final Set<Connection> connections;
-    private final Map<SystemNode, List<Connection>> adjacencyList;
+    private static final long CLOSE_TIMEOUT_SECONDS = 2;
+    private final AtomicReference<NetworkSnapshot> current;
+    private final ReentrantLock writeLock;
+    private final Statistics statistics;
+    private final SubmissionPublisher<List<TopologyEvent>> publisher;
+    private final List<TopologyEvent> pendingEvents;
+    private final ThreadLocal<Transaction> transactions;
+    private final AtomicInteger openTransactions;
+    private volatile long publishedVersion;
+    private volatile LongFunction<String> durability;
 
     /**
      * Creates a new empty network.
      * Subnets, systems, and connections can with the commands by the user.
      */
     public Network() {
-        this.subnets = new ArrayList<>();
-        this.systemsByIp = new HashMap<>();
-        this.systemsByName = new HashMap<>();
-        this.connections = new HashSet<>();
-        this.adjacencyList = new HashMap<>();
+        this.current = new AtomicReference<>(NetworkSnapshot.empty());
+        this.writeLock = new ReentrantLock();
+        this.statistics = new Statistics();
+        this.publisher = new SubmissionPublisher<>();
+        this.pendingEvents = new ArrayList<>();
+        this.transactions = new ThreadLocal<>();
+        this.openTransactions = new AtomicInteger();
+    }
+
+    /**
+     * Subscribes to the changes of the network. Only changes made after subscribing are delivered.
+     * @param subscriber The subscriber that receives the batches of events.
+     */
+    public void subscribe(Flow.Subscriber<? super List<TopologyEvent>> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Sets how the published changes are made durable, such as by a journal that writes them to disk.
+     * @param durability the function that waits until all changes up to the given version are durable and returns
+     *     null, or returns an error message once changes can no longer be made durable.
+     */
+    public void setDurability(LongFunction<String> durability) {
+        this.durability = durability;
+    }
+
+    /**
+     * Waits until all changes published so far are durable. Without a durability set, this returns at once.
+     * @return null if the changes are durable, or an error message if they can no longer be made durable.
+     */
+    public String awaitDurable() {
+        LongFunction<String> current = durability;
+        return current == null ? null : current.apply(publishedVersion);
+    }
+
+    /**
+     * Stops publishing changes. Subscribers still receive all batches published so far and are then completed.
+     * A change in progress is waited for a short time, and the publisher is closed without the lock if it takes longer.
+     * Open transactions hold no lock, and a commit after the close can no longer publish its changes.
+     */
+    public void close() {
+        boolean locked = false;
+        try {
+            locked = writeLock.tryLock(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            publisher.close();
+        } finally {
+            if (locked) {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the statistics collected for this network.
+     * @return The statistics of this network.
+     */
+    public Statistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Returns the current snapshot of the network.
+     * The snapshot never changes, so it can be pinned to answer a series of queries consistently.
+     * Inside a transaction, the thread that began it sees its uncommitted changes, all others the last commit.
+     * @return The current snapshot.
+     */
+    public NetworkSnapshot getSnapshot() {
+        return visible();
+    }
+
+    /**
+     * Begins a transaction on the calling thread. Its changes stay private to the thread until it is committed,
+     * and other threads can read and change the network meanwhile.
+     * @return True if the transaction was begun, false if the thread is already in a transaction.
+     */
+    public boolean begin() {
+        if (isInTransaction()) {
+            return false;
+        }
+        transactions.set(new Transaction(current.get()));
+        openTransactions.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Checks whether the calling thread is in a transaction.
+     * @return True if the calling thread has begun a transaction that is not yet committed or rolled back.
+     */
+    public boolean isInTransaction() {
+        return transaction() != null;
+    }
+
+    /**
+     * Validates the connections added or changed in the transaction of the calling thread together,
+     * against the systems that are left at its end.
+     * @return An error message for the first invalid connection, or null if all are valid.
+     */
+    public String validateTransaction() {
+        Transaction transaction = transactions.get();
+        if (transaction == null) {
+            return null;
+        }
+        NetworkSnapshot working = transaction.working;
+        for (Connection connection : working.getConnections()) {
+            if (transaction.start.findConnection(connection.getSystem1(), connection.getSystem2()) != connection) {
+                if (!contains(working, connection.getSystem1()) || !contains(working, connection.getSystem2())) {
+                    return ERROR_INVALID_CONNECTION;
+                }
+                String error = NetworkValidator.isValidConnection(connection.getSystem1(), connection.getSystem2(),
+                    connection.getWeight());
+                if (error != null) {
+                    return error;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Commits the transaction of the calling thread. The routing tables are converged once if any change needs it,
+     * and all changes become visible to other threads in a single step.
+     * If another change was committed since the transaction began, the transaction is rolled back instead.
+     * @return True if the changes were committed or there was no transaction, false if it was rolled back.
+     */
+    public boolean commit() {
+        Transaction transaction = transactions.get();
+        if (transaction == null) {
+            return true;
+        }
+        writeLock.lock();
+        try {
+            if (current.get() != transaction.start) {
+                return false;
+            }
+            if (transaction.routingDeferred) {
+                transaction.routingDeferred = false;
+                convergeRoutingTables();
+            }
+            current.set(transaction.working);
+            pendingEvents.addAll(transaction.events);
+            return true;
+        } finally {
+            endTransaction();
+            unlock(true);
+        }
+    }
+
+    /**
+     * Rolls back the transaction of the calling thread. The network is left as it was when the transaction began.
+     */
+    public void rollback() {
+        if (isInTransaction()) {
+            endTransaction();
+        }
+    }
+
+    private static boolean contains(NetworkSnapshot snapshot, SystemNode system) {
+        return snapshot.getSystemByIp(IpAddress.toUnsigned(system.getAddress())) == system;
+    }
+
+    private void endTransaction() {
+        transactions.remove();
+        openTransactions.decrementAndGet();
+    }
+
+    /**
+     * Runs the given action while holding the write lock of the network.
+     * Changes made by the action are serialized with all other changes, so checks and updates happen atomically.
+     * Readers are never blocked by this. Inside a transaction, the changes are private anyway, so no lock is taken.
+     * @param action The action to run.
+     * @param <T> The result type of the action.
+     * @return The result of the action.
+     */
+    public <T> T withWriteLock(Supplier<T> action) {
+        boolean locked = lock();
+        try {
+            return action.get();
+        } finally {
+            unlock(locked);
+        }
     }
 
     /**
@@ -38,34 +246,106 @@ public Network() {
      * The BGP tables are updated based on the connections between the routers.
      */
     public void updateBGPTables() {
-        resetAllRoutingTables();
-        updateRoutingTablesUntilStable();
+        Transaction transaction = transactions.get();
+        if (transaction != null) {
+            transaction.routingDeferred = true; // Converged once when the transaction is committed.
+            return;
+        }
+        writeLock.lock();
+        try {
+            convergeRoutingTables();
+        } finally {
+            unlock(true);
+        }
+    }
+
+    // Recomputes the routing tables from scratch and publishes them with a new snapshot.
+    private void convergeRoutingTables() {
+        long start = System.nanoTime();
+        RoutingConvergenceEvent event = new RoutingConvergenceEvent();
+        event.begin();
+        NetworkSnapshot previous = visible();
+        List<Router> routers = previous.getRouters();
+        resetAllRoutingTables(routers);
+        int rounds = updateRoutingTablesUntilStable(routers);
+        publish(previous.withRoutingTables(routers));
+        statistics.record(Statistics.BGP_CONVERGENCE, System.nanoTime() - start);
+        if (publisher.hasSubscribers()) {
+            collectRouteChanges(previous, visible());
+        }
+        if (event.shouldCommit()) {
+            event.rounds = rounds;
+            event.routers = routers.size();
+            event.routersTouched = countChangedRoutingTables(previous, routers);
+            event.commit();
+        }
     }
 
     /**
      * Resets the routing table of all routers in the network.
+     * @param routers The routers of the network.
      */
-    private void resetAllRoutingTables() {
-        for (SystemNode system : systemsByIp.values()) {
-            if (system instanceof Router) {
-                ((Router) system).resetRoutingTable();
-            }
+    private void resetAllRoutingTables(List<Router> routers) {
+        for (Router router : routers) {
+            router.resetRoutingTable();
         }
     }
 
     /**
      * Updates the routing tables of all routers until no changes are made.
+     * @param routers The routers of the network.
+     * @return The number of rounds over all routers.
      */
-    private void updateRoutingTablesUntilStable() {
+    private int updateRoutingTablesUntilStable(List<Router> routers) {
+        int rounds = 0;
         boolean changed;
         do {
             changed = false;
-            for (SystemNode system : systemsByIp.values()) {
-                if (system instanceof Router router) {
-                    changed |= updateSingleRouterTable(router);
-                }
+            rounds++;
+            for (Router router : routers) {
+                changed |= updateSingleRouterTable(router);
             }
         } while (changed);
+        return rounds;
+    }
+
+    /**
+     * Counts the routers whose routing table differs from the one in the given snapshot.
+     * @param previous The snapshot before the routing tables were updated.
+     * @param routers The routers of the network.
+     * @return The number of routers with a changed routing table.
+     */
+    private int countChangedRoutingTables(NetworkSnapshot previous, List<Router> routers) {
+        int changed = 0;
+        for (Router router : routers) {
+            if (!previous.getRoutingTable(router).equals(router.getRoutingTable())) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Collects an event for every route that differs between the routing tables of two snapshots.
+     * @param previous The snapshot before the routing tables were updated.
+     * @param next The snapshot with the updated routing tables.
+     */
+    private void collectRouteChanges(NetworkSnapshot previous, NetworkSnapshot next) {
+        for (Router router : next.getRouters()) {
+            Map<String, List<String>> oldTable = previous.getRoutingTable(router);
+            Map<String, List<String>> newTable = next.getRoutingTable(router);
+            for (Map.Entry<String, List<String>> route : newTable.entrySet()) {
+                if (!route.getValue().equals(oldTable.get(route.getKey()))) {
+                    events().add(TopologyEvent.ofRoute(next.getVersion(), router, route.getKey(),
+                        List.copyOf(route.getValue())));
+                }
+            }
+            for (String destination : oldTable.keySet()) {
+                if (!newTable.containsKey(destination)) {
+                    events().add(TopologyEvent.ofRoute(next.getVersion(), router, destination, null));
+                }
+            }
+        }
     }
 
     /**
@@ -91,7 +371,25 @@ private boolean updateSingleRouterTable(Router router) {
      * @param subnet The subnet to add.
      */
     public void addSubnet(Subnet subnet) {
-        subnets.add(subnet);
+        mutate(snapshot -> snapshot.withSubnet(subnet), (previous, next) ->
+            List.of(TopologyEvent.ofSubnet(TopologyEvent.Type.SUBNET_ADDED, next.getVersion(), subnet)));
+    }
+
+    /**
+     * Removes a subnet from the network, together with its systems and their connections.
+     * @param subnet The subnet to remove.
+     */
+    public void removeSubnet(Subnet subnet) {
+        boolean locked = lock();
+        try {
+            for (SystemNode system : visible().getSystems(subnet)) {
+                removeSystem(system);
+            }
+            mutate(snapshot -> snapshot.withoutSubnet(subnet), (previous, next) ->
+                List.of(TopologyEvent.ofSubnet(TopologyEvent.Type.SUBNET_REMOVED, next.getVersion(), subnet)));
+        } finally {
+            unlock(locked);
+        }
     }
 
     /**
@@ -100,12 +398,7 @@ public void addSubnet(Subnet subnet) {
      * @return The subnet with the given CIDR.
      */
     public Subnet getSubnetByCidr(String cidr) {
-        for (Subnet subnet : subnets) {
-            if (subnet.getCidr().equals(cidr)) {
-                return subnet;
-            }
-        }
-        return null;
+        return visible().getSubnetByCidr(cidr);
     }
 
     /**
@@ -114,7 +407,16 @@ public Subnet getSubnetByCidr(String cidr) {
      * @return The system with the given IP address.
      */
     public SystemNode getSystemByIp(String ip) {
-        return systemsByIp.get(ip);
+        return visible().getSystemByIp(ip);
+    }
+
+    /**
+     * Returns the system with the given packed IP address.
+     * @param address The packed IP address, as parsed with the command line.
+     * @return The system with the given IP address, or null if there is none or the address is invalid.
+     */
+    public SystemNode getSystemByIp(long address) {
+        return visible().getSystemByIp(address);
     }
 
     /**
@@ -123,30 +425,51 @@ public SystemNode getSystemByIp(String ip) {
      * @return The system with the given name.
      */
     public SystemNode getSystemByName(String name) {
-        return systemsByName.get(name);
+        return visible().getSystemByName(name);
     }
 
     /**
-     * Adds a system to the network.
+     * Adds a system to the network and to its subnet.
      * @param system The system to add.
      */
     public void addSystem(SystemNode system) {
-        systemsByIp.put(system.getIpAddress(), system);
-        systemsByName.put(system.getName(), system);
+        mutate(snapshot -> snapshot.withSystem(system), (previous, next) ->
+            List.of(TopologyEvent.ofSystem(TopologyEvent.Type.SYSTEM_ADDED, next.getVersion(), system)));
     }
 
     /**
-     * Removes a system from the network.
+     * Adds many computers of one subnet to the network at once.
+     * All computers become visible together in a single new snapshot.
+     * @param subnet The subnet of the computers.
+     * @param computers The computers to add.
+     */
+    public void addSystems(Subnet subnet, Collection<Computer> computers) {
+        mutate(snapshot -> snapshot.withSystems(subnet, computers), (previous, next) -> computers.stream()
+            .map(computer -> TopologyEvent.ofSystem(TopologyEvent.Type.SYSTEM_ADDED, next.getVersion(), computer))
+            .toList());
+    }
+
+    /**
+     * Removes a system from the network and from its subnet.
      * @param system The system to remove.
      */
     public void removeSystem(SystemNode system) {
-        systemsByIp.remove(system.getIpAddress());
-        systemsByName.remove(system.getName());
-        connections.removeIf(conn -> conn.getSystem1() == system || conn.getSystem2() == system);
-        adjacencyList.remove(system);
-        // Removes connections to a system from other systems
-        for (List<Connection> systemConnections : adjacencyList.values()) {
-            systemConnections.removeIf(conn -> conn.getSystem1() == system || conn.getSystem2() == system);
+        boolean locked = lock();
+        try {
+            mutate(snapshot -> snapshot.withoutSystem(system), (previous, next) -> {
+                List<TopologyEvent> events = new ArrayList<>();
+                for (Connection connection : previous.getConnections(system)) {
+                    events.add(TopologyEvent.ofConnection(TopologyEvent.Type.CONNECTION_REMOVED, next.getVersion(),
+                        connection));
+                }
+                events.add(TopologyEvent.ofSystem(TopologyEvent.Type.SYSTEM_REMOVED, next.getVersion(), system));
+                return events;
+            });
+            if (system instanceof Router) {
+                updateBGPTables(); // Other routers may have routed through it.
+            }
+        } finally {
+            unlock(locked);
         }
     }
 
@@ -155,10 +478,21 @@ public void removeSystem(SystemNode system) {
      * @param connection The connection to add.
      */
     public void addConnection(Connection connection) {
-        connections.add(connection);
-        adjacencyList.computeIfAbsent(connection.getSystem1(), k -> new ArrayList<>()).add(connection);
-        adjacencyList.computeIfAbsent(connection.getSystem2(), k -> new ArrayList<>()).add(connection);
-        updateBGPTables();
+        boolean locked = lock();
+        try {
+            mutate(snapshot -> snapshot.withConnection(connection), (previous, next) -> List.of(
+                TopologyEvent.ofConnection(TopologyEvent.Type.CONNECTION_ADDED, next.getVersion(), connection)));
+            if (isBetweenRouters(connection)) {
+                updateBGPTables();
+            }
+        } finally {
+            unlock(locked);
+        }
+    }
+
+    // The routing tables are built from the connections between routers alone.
+    private static boolean isBetweenRouters(Connection connection) {
+        return connection.getSystem1() instanceof Router && connection.getSystem2() instanceof Router;
     }
 
     /**
@@ -168,33 +502,54 @@ public void addConnection(Connection connection) {
      * @return True if a connection exists between the two systems, false otherwise.
      */
     public boolean connectionExists(SystemNode system1, SystemNode system2) {
-        for (Connection conn : connections) {
-            if ((conn.getSystem1() == system1 && conn.getSystem2() == system2)
-                || (conn.getSystem1() == system2 && conn.getSystem2() == system1)) {
-                return true;
+        return visible().connectionExists(system1, system2);
+    }
+
+    /**
+     * Removes a connection between two systems.
+     * @param system1 The first system.
+     * @param system2 The second system.
+     * @return True if the connection was removed, false if there is no connection between the systems.
+     */
+    public boolean removeConnection(SystemNode system1, SystemNode system2) {
+        boolean locked = lock();
+        try {
+            Connection connection = visible().findConnection(system1, system2);
+            if (connection == null) {
+                return false;
+            }
+            mutate(snapshot -> snapshot.withoutConnection(connection), (previous, next) -> List.of(
+                TopologyEvent.ofConnection(TopologyEvent.Type.CONNECTION_REMOVED, next.getVersion(), connection)));
+            if (isBetweenRouters(connection)) {
+                updateBGPTables();
             }
+            return true;
+        } finally {
+            unlock(locked);
         }
-        return false;
     }
 
     /**
-     * Removes a connection between two systems.
+     * Changes the weight of the connection between two systems of the same subnet.
+     * The routing tables only depend on the connections between routers, so they stay as they are.
      * @param system1 The first system.
      * @param system2 The second system.
+     * @param weight The new weight of the connection.
+     * @return True if the weight was changed, false if there is no connection between the systems.
      */
-    public void removeConnection(SystemNode system1, SystemNode system2) {
-        boolean removed = connections.removeIf(conn ->
-            (conn.getSystem1() == system1 && conn.getSystem2() == system2)
-                || (conn.getSystem1() == system2 && conn.getSystem2() == system1)
-        );
-        if (removed) {
-            adjacencyList.getOrDefault(system1, new ArrayList<>())
-                .removeIf(conn -> conn.getOtherSystem(system1).equals(system2));
-            adjacencyList.getOrDefault(system2, new ArrayList<>())
-                .removeIf(conn -> conn.getOtherSystem(system2).equals(system1));
-            updateBGPTables();
-        } else {
-            System.out.println(ERROR_INVALID_CONNECTION);
+    public boolean updateConnection(SystemNode system1, SystemNode system2, int weight) {
+        boolean locked = lock();
+        try {
+            Connection connection = visible().findConnection(system1, system2);
+            if (connection == null) {
+                return false;
+            }
+            Connection updated = new Connection(connection.getSystem1(), connection.getSystem2(), weight);
+            mutate(snapshot -> snapshot.withConnectionWeight(connection, updated), (previous, next) -> List.of(
+                TopologyEvent.ofConnection(TopologyEvent.Type.CONNECTION_UPDATED, next.getVersion(), updated)));
+            return true;
+        } finally {
+            unlock(locked);
         }
     }
 
@@ -204,46 +559,133 @@ public void removeConnection(SystemNode system1, SystemNode system2) {
      * @return A list of connections for the given system.
      */
     public List<Connection> getConnections(SystemNode system) {
-        return adjacencyList.getOrDefault(system, Collections.emptyList());
+        return visible().getConnections(system);
     }
 
     /**
      * Returns the subnets of the network.
-     * @return The subnets of the network.
+     * @return An unmodifiable list of the subnets, which does not change with later changes.
      */
     public List<Subnet> getSubnets() {
-        return new ArrayList<>(subnets);
+        return visible().getSubnets();
     }
 
     /**
      * Returns the systems of the network.
-     * @return The systems of the network.
+     * @return The systems of the network, which do not change with later changes.
      */
-    public Map<String, SystemNode> getSystems() {
-        return new HashMap<>(systemsByIp);
+    public Iterable<SystemNode> getSystems() {
+        return visible().getSystems();
     }
 
     /**
      * Returns the connections of the network.
-     * @return The connections of the network.
+     * @return The connections of the network, each exactly once, which do not change with later changes.
      */
-    public Set<Connection> getConnections() {
-        return new HashSet<>(connections);
+    public Iterable<Connection> getConnections() {
+        return visible().getConnections();
     }
 
     /**
-     * Updates this network's state.
-     * This method replaces all subnets, systems, and connections.
-     * @param other The network to update from.
+     * Replaces all subnets, systems, connections, and routing tables with those of another network.
+     * The other network is published as it is in a single step, so it should be fully built and converged.
+     * Queries running meanwhile complete on the snapshot they started with.
+     * @param other The network to take over.
      */
-    public void updateFrom(Network other) {
-        this.subnets.clear();
-        this.subnets.addAll(other.subnets);
-        this.systemsByIp.clear();
-        this.systemsByIp.putAll(other.systemsByIp);
-        this.systemsByName.clear();
-        this.systemsByName.putAll(other.systemsByName);
-        this.connections.clear();
-        this.connections.addAll(other.connections);
+    public void replaceWith(Network other) {
+        NetworkSnapshot replacement = other.getSnapshot();
+        mutate(snapshot -> replacement.withVersion(snapshot.getVersion() + 1),
+            (previous, next) -> List.of(TopologyEvent.ofReplacement(next.getVersion())));
+    }
+
+    // Helper method to apply a change under the write lock and publish the result.
+    // The events of the change are only created if somebody listens.
+    private void mutate(UnaryOperator<NetworkSnapshot> change,
+                        BiFunction<NetworkSnapshot, NetworkSnapshot, List<TopologyEvent>> events) {
+        boolean locked = lock();
+        try {
+            NetworkSnapshot previous = visible();
+            NetworkSnapshot next = change.apply(previous);
+            publish(next);
+            if (publisher.hasSubscribers()) {
+                events().addAll(events.apply(previous, next));
+            }
+        } finally {
+            unlock(locked);
+        }
+    }
+
+    // Returns the transaction of the calling thread, or null. Skips the thread local while none is open at all.
+    private Transaction transaction() {
+        return openTransactions.get() > 0 ? transactions.get() : null;
+    }
+
+    // Returns the snapshot the calling thread sees, which is the uncommitted one inside its own transaction.
+    private NetworkSnapshot visible() {
+        Transaction transaction = transaction();
+        return transaction != null ? transaction.working : current.get();
+    }
+
+    // Publishes a new snapshot, only to the own transaction while one is open.
+    private void publish(NetworkSnapshot snapshot) {
+        Transaction transaction = transaction();
+        if (transaction != null) {
+            transaction.working = snapshot;
+        } else {
+            current.set(snapshot);
+        }
+    }
+
+    // Returns the list collecting the events of the calling thread. A transaction holds them back until its commit.
+    private List<TopologyEvent> events() {
+        Transaction transaction = transaction();
+        return transaction != null ? transaction.events : pendingEvents;
+    }
+
+    // Takes the write lock, unless the calling thread is in a transaction and only changes its own snapshot.
+    private boolean lock() {
+        if (transaction() != null) {
+            return false;
+        }
+        writeLock.lock();
+        return true;
+    }
+
+    // Releases the write lock if it was taken. The outermost release publishes the events collected meanwhile
+    // as one batch, still under the lock, so the batches arrive in the order of the snapshot versions.
+    private void unlock(boolean locked) {
+        if (!locked) {
+            return;
+        }
+        try {
+            if (writeLock.getHoldCount() == 1 && !pendingEvents.isEmpty()) {
+                List<TopologyEvent> batch = List.copyOf(pendingEvents);
+                pendingEvents.clear();
+                if (!publisher.isClosed()) {
+                    try {
+                        publisher.submit(batch);
+                        publishedVersion = batch.get(batch.size() - 1).getVersion();
+                    } catch (IllegalStateException e) {
+                        // Closed meanwhile by close() without the lock, so nobody receives the batch any more.
+                    }
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // The state of an open transaction, which only the thread that began it sees.
+    private static final class Transaction {
+        private final NetworkSnapshot start;
+        private final List<TopologyEvent> events;
+        private NetworkSnapshot working;
+        private boolean routingDeferred;
+
+        private Transaction(NetworkSnapshot start) {
+            this.start = start;
+            this.events = new ArrayList<>();
+            this.working = start;
+        }
     }
 }
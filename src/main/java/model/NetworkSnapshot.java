@@ -0,0 +1,446 @@
+package model;
+
+import helpers.IpAddress;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.StreamSupport;
+
+/**
+ * Represents an immutable version of the network topology.
+ * Every mutation of a {@link Network} publishes a new snapshot that shares all unchanged parts with the previous one,
+ * so readers can keep using a snapshot for as long as they need without locking and without seeing later changes.
+ * The members of every subnet, with its router and used addresses, are kept in a persistent {@link HostTable},
+ * so they change with the snapshot as well and a transaction that is rolled back leaves no trace in them.
+ * The subnets are kept in a persistent {@link SubnetList} in their sort order. The adjacency lists are kept per subnet,
+ * and the columnar {@link SubnetGraph} of a subnet is built on first use by a holder in a {@link PersistentMap},
+ * which later snapshots share for as long as the subnet does not change. After a single connection change
+ * in a subnet whose graph was built, the next graph is derived from the previous one with the same system indices.
+ */
+public final class NetworkSnapshot {
+    private final long version;
+    private final SubnetList subnets;
+    private final IpIndex systemsByIp;
+    private final PersistentMap<String, SystemNode> systemsByName;
+    private final PersistentMap<Subnet, PersistentMap<SystemNode, List<Connection>>> adjacency;
+    private final PersistentMap<Subnet, HostTable> hosts;
+    private final PersistentMap<Router, Map<String, List<String>>> routingTables;
+    private final PersistentMap<Subnet, LazyGraph> graphs;
+
+    private NetworkSnapshot(long version, SubnetList subnets, IpIndex systemsByIp,
+                            PersistentMap<String, SystemNode> systemsByName,
+                            PersistentMap<Subnet, PersistentMap<SystemNode, List<Connection>>> adjacency,
+                            PersistentMap<Subnet, HostTable> hosts,
+                            PersistentMap<Router, Map<String, List<String>>> routingTables,
+                            PersistentMap<Subnet, LazyGraph> graphs) {
+        this.version = version;
+        this.subnets = subnets;
+        this.systemsByIp = systemsByIp;
+        this.systemsByName = systemsByName;
+        this.adjacency = adjacency;
+        this.hosts = hosts;
+        this.routingTables = routingTables;
+        this.graphs = graphs;
+    }
+
+    /**
+     * Returns the snapshot of an empty network.
+     * @return the empty snapshot.
+     */
+    static NetworkSnapshot empty() {
+        return new NetworkSnapshot(0, SubnetList.empty(), IpIndex.empty(), PersistentMap.empty(), PersistentMap.empty(),
+            PersistentMap.empty(), PersistentMap.empty(), PersistentMap.empty());
+    }
+
+    /**
+     * Returns the version of this snapshot. Versions increase with every published change.
+     * @return the version of this snapshot.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the subnets of this snapshot in the order of their network address and prefix length.
+     * @return an unmodifiable list of the subnets.
+     */
+    public List<Subnet> getSubnets() {
+        return subnets;
+    }
+
+    /**
+     * Returns the subnet with the given CIDR.
+     * @param cidr The CIDR of the subnet.
+     * @return The subnet with the given CIDR, or null if there is none.
+     */
+    public Subnet getSubnetByCidr(String cidr) {
+        for (Subnet subnet : subnets) {
+            if (subnet.getCidr().equals(cidr)) {
+                return subnet;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the system with the given IP address.
+     * @param ip The IP address of the system.
+     * @return The system with the given IP address, or null if there is none.
+     */
+    public SystemNode getSystemByIp(String ip) {
+        return getSystemByIp(IpAddress.parse(ip));
+    }
+
+    /**
+     * Returns the system with the given packed IP address.
+     * @param address The packed IP address as returned by {@link IpAddress#parse(CharSequence)}.
+     * @return The system with the given IP address, or null if there is none or the address is invalid.
+     */
+    public SystemNode getSystemByIp(long address) {
+        return address == IpAddress.INVALID ? null : systemsByIp.get((int) address);
+    }
+
+    /**
+     * Returns the system with the given name.
+     * @param name The name of the system.
+     * @return The system with the given name, or null if there is none.
+     */
+    public SystemNode getSystemByName(String name) {
+        return systemsByName.get(name);
+    }
+
+    /**
+     * Returns all systems of this snapshot.
+     * @return the systems, iterated without copying.
+     */
+    public Iterable<SystemNode> getSystems() {
+        return systemsByIp;
+    }
+
+    /**
+     * Returns the systems of a subnet in the order of their addresses.
+     * @param subnet The subnet to get the systems of.
+     * @return an unmodifiable list of the systems, empty if the subnet is unknown.
+     */
+    public List<SystemNode> getSystems(Subnet subnet) {
+        return hostsOf(subnet).view();
+    }
+
+    /**
+     * Returns the router of a subnet.
+     * @param subnet The subnet to get the router of.
+     * @return the router of the subnet, or null if it has none.
+     */
+    public Router getRouter(Subnet subnet) {
+        return hostsOf(subnet).getRouter();
+    }
+
+    /**
+     * Finds the lowest host address of a subnet that no system uses.
+     * The network and broadcast address are never returned, except in subnets with only one or two addresses.
+     * @param subnet The subnet to search in.
+     * @return the packed free address, or {@link IpAddress#INVALID} if the subnet is full.
+     */
+    public long findFreeAddress(Subnet subnet) {
+        long first = IpAddress.toUnsigned(subnet.getNetworkAddress());
+        long last = IpAddress.toUnsigned(subnet.getBroadcastAddress());
+        // Subnets of two or one addresses have no separate network and broadcast address.
+        boolean skipEnds = last - first > 1;
+        long found = hostsOf(subnet).nextFree(skipEnds ? first + 1 : first, skipEnds ? last : last + 1);
+        return found < 0 ? IpAddress.INVALID : found;
+    }
+
+    /**
+     * Returns the number of host addresses of a subnet used by a system.
+     * @param subnet The subnet to count in.
+     * @return the number of used host addresses.
+     */
+    public long getUsedAddressCount(Subnet subnet) {
+        return getUsedAddressCount(subnet, IpAddress.toUnsigned(subnet.getNetworkAddress()),
+            IpAddress.toUnsigned(subnet.getBroadcastAddress()));
+    }
+
+    /**
+     * Returns the number of addresses in a range of a subnet used by a system, counted in O(log n).
+     * @param subnet The subnet to count in.
+     * @param first The first unsigned address of the range.
+     * @param last The last unsigned address of the range.
+     * @return the number of used addresses in the range.
+     */
+    public long getUsedAddressCount(Subnet subnet, long first, long last) {
+        return hostsOf(subnet).countBetween(first, last);
+    }
+
+    /**
+     * Returns all routers of this snapshot.
+     * @return a new list of the routers.
+     */
+    public List<Router> getRouters() {
+        List<Router> routers = new ArrayList<>();
+        for (SystemNode system : systemsByIp) {
+            if (system instanceof Router router) {
+                routers.add(router);
+            }
+        }
+        return routers;
+    }
+
+    /**
+     * Returns the connections of a given system.
+     * @param system The system to get connections for.
+     * @return An unmodifiable list of connections for the given system.
+     */
+    public List<Connection> getConnections(SystemNode system) {
+        return membersOf(system.getSubnet()).getOrDefault(system, Collections.emptyList());
+    }
+
+    /**
+     * Returns all connections of this snapshot.
+     * Every connection is listed at its first system, so it is visited once without collecting them first.
+     * @return The connections, each exactly once.
+     */
+    public Iterable<Connection> getConnections() {
+        return () -> StreamSupport.stream(adjacency.spliterator(), false)
+            .flatMap(subnet -> StreamSupport.stream(subnet.getValue().spliterator(), false))
+            .flatMap(entry -> entry.getValue().stream().filter(connection -> connection.getSystem1() == entry.getKey()))
+            .iterator();
+    }
+
+    /**
+     * Returns the columnar graph of the systems and connections inside the given subnet.
+     * The graph is built on the first request and shared with later snapshots until the subnet changes.
+     * If only one connection changed since the previous graph, the graph is derived from it instead.
+     * @param subnet The subnet to get the graph for.
+     * @return The graph of the subnet, empty if the subnet is unknown.
+     */
+    public SubnetGraph getSubnetGraph(Subnet subnet) {
+        LazyGraph graph = graphs.get(subnet);
+        return graph == null ? SubnetGraph.build(subnet, membersOf(subnet)) : graph.get(subnet, membersOf(subnet));
+    }
+
+    /**
+     * Checks if a connection exists between two systems.
+     * @param system1 The first system.
+     * @param system2 The second system.
+     * @return True if a connection exists between the two systems, false otherwise.
+     */
+    public boolean connectionExists(SystemNode system1, SystemNode system2) {
+        return findConnection(system1, system2) != null;
+    }
+
+    /**
+     * Returns the connection between two systems.
+     * @param system1 The first system.
+     * @param system2 The second system.
+     * @return The connection between the two systems, or null if there is none.
+     */
+    public Connection findConnection(SystemNode system1, SystemNode system2) {
+        for (Connection conn : getConnections(system1)) {
+            if (conn.getOtherSystem(system1) == system2) {
+                return conn;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the routing table a router had when this snapshot was published.
+     * @param router The router to get the routing table for.
+     * @return An unmodifiable routing table, empty if the router is unknown.
+     */
+    public Map<String, List<String>> getRoutingTable(Router router) {
+        return routingTables.getOrDefault(router, Collections.emptyMap());
+    }
+
+    // The following methods derive the next version of the snapshot.
+    NetworkSnapshot withVersion(long newVersion) {
+        return new NetworkSnapshot(newVersion, subnets, systemsByIp, systemsByName, adjacency, hosts, routingTables,
+            graphs);
+    }
+
+    NetworkSnapshot withSubnet(Subnet subnet) {
+        // The subnets are kept in the order of their network address and prefix, so listing them needs no sort.
+        return new NetworkSnapshot(version + 1, subnets.with(subnet), systemsByIp, systemsByName,
+            adjacency.put(subnet, membersOf(subnet)), hosts, routingTables, changed(subnet));
+    }
+
+    NetworkSnapshot withoutSubnet(Subnet subnet) {
+        return new NetworkSnapshot(version + 1, subnets.without(subnet), systemsByIp, systemsByName,
+            adjacency.remove(subnet), hosts.remove(subnet), routingTables, graphs.remove(subnet));
+    }
+
+    NetworkSnapshot withSystem(SystemNode system) {
+        PersistentMap<Router, Map<String, List<String>>> newTables = routingTables;
+        if (system instanceof Router router) {
+            newTables = newTables.put(router, Collections.unmodifiableMap(new HashMap<>(router.getRoutingTable())));
+        }
+        PersistentMap<String, SystemNode> newByName = system.getExplicitName() == null
+            ? systemsByName : systemsByName.put(system.getExplicitName(), system);
+        Subnet subnet = system.getSubnet();
+        PersistentMap<SystemNode, List<Connection>> members = membersOf(subnet);
+        PersistentMap<Subnet, PersistentMap<SystemNode, List<Connection>>> newAdjacency = members.containsKey(system)
+            ? adjacency : adjacency.put(subnet, members.put(system, Collections.emptyList()));
+        return new NetworkSnapshot(version + 1, subnets, systemsByIp.put(system.getAddress(), system),
+            newByName, newAdjacency, hosts.put(subnet, hostsOf(subnet).with(system)), newTables,
+            changed(subnet));
+    }
+
+    NetworkSnapshot withSystems(Subnet subnet, Collection<? extends SystemNode> systems) {
+        PersistentMap<SystemNode, List<Connection>> members = membersOf(subnet);
+        PersistentMap<String, SystemNode> newByName = systemsByName;
+        for (SystemNode system : systems) {
+            if (!members.containsKey(system)) {
+                members = members.put(system, Collections.emptyList());
+            }
+            if (system.getExplicitName() != null) {
+                newByName = newByName.put(system.getExplicitName(), system);
+            }
+        }
+        return new NetworkSnapshot(version + 1, subnets, systemsByIp.putAll(systems), newByName,
+            adjacency.put(subnet, members), hosts.put(subnet, hostsOf(subnet).withAll(systems)), routingTables,
+            changed(subnet));
+    }
+
+    NetworkSnapshot withoutSystem(SystemNode system) {
+        PersistentMap<Subnet, PersistentMap<SystemNode, List<Connection>>> newAdjacency =
+            adjacency.put(system.getSubnet(), membersOf(system.getSubnet()).remove(system));
+        // Only the neighbors of the removed system need a new adjacency list.
+        for (Connection conn : getConnections(system)) {
+            SystemNode neighbor = conn.getOtherSystem(system);
+            if (neighbor != system) {
+                newAdjacency = replace(newAdjacency, neighbor, conn, false);
+            }
+        }
+        IpIndex newByIp = systemsByIp.get(system.getAddress()) == system
+            ? systemsByIp.remove(system.getAddress()) : systemsByIp;
+        String name = system.getExplicitName();
+        PersistentMap<String, SystemNode> newByName = name != null && systemsByName.get(name) == system
+            ? systemsByName.remove(name) : systemsByName;
+        // Neighbors in other subnets are routers whose graphs do not contain the inter-subnet connection.
+        return new NetworkSnapshot(version + 1, subnets, newByIp, newByName, newAdjacency,
+            hosts.put(system.getSubnet(), hostsOf(system.getSubnet()).without(system)), routingTables.remove(system),
+            changed(system.getSubnet()));
+    }
+
+    NetworkSnapshot withConnection(Connection connection) {
+        PersistentMap<Subnet, PersistentMap<SystemNode, List<Connection>>> newAdjacency = adjacency;
+        newAdjacency = replace(newAdjacency, connection.getSystem1(), connection, true);
+        newAdjacency = replace(newAdjacency, connection.getSystem2(), connection, true);
+        return new NetworkSnapshot(version + 1, subnets, systemsByIp, systemsByName, newAdjacency, hosts, routingTables,
+            changed(connection, SubnetGraph.Change.NO_EDGE, weightOf(connection)));
+    }
+
+    NetworkSnapshot withoutConnection(Connection connection) {
+        PersistentMap<Subnet, PersistentMap<SystemNode, List<Connection>>> newAdjacency = adjacency;
+        newAdjacency = replace(newAdjacency, connection.getSystem1(), connection, false);
+        newAdjacency = replace(newAdjacency, connection.getSystem2(), connection, false);
+        return new NetworkSnapshot(version + 1, subnets, systemsByIp, systemsByName, newAdjacency, hosts, routingTables,
+            changed(connection, weightOf(connection), SubnetGraph.Change.NO_EDGE));
+    }
+
+    NetworkSnapshot withConnectionWeight(Connection connection, Connection updated) {
+        PersistentMap<Subnet, PersistentMap<SystemNode, List<Connection>>> newAdjacency = adjacency;
+        newAdjacency = replace(newAdjacency, connection.getSystem1(), connection, false);
+        newAdjacency = replace(newAdjacency, connection.getSystem1(), updated, true);
+        newAdjacency = replace(newAdjacency, connection.getSystem2(), connection, false);
+        newAdjacency = replace(newAdjacency, connection.getSystem2(), updated, true);
+        return new NetworkSnapshot(version + 1, subnets, systemsByIp, systemsByName, newAdjacency, hosts, routingTables,
+            changed(connection, weightOf(connection), weightOf(updated)));
+    }
+
+    NetworkSnapshot withRoutingTables(List<Router> routers) {
+        PersistentMap<Router, Map<String, List<String>>> newTables = PersistentMap.empty();
+        for (Router router : routers) {
+            newTables = newTables.put(router, Collections.unmodifiableMap(new HashMap<>(router.getRoutingTable())));
+        }
+        return new NetworkSnapshot(version + 1, subnets, systemsByIp, systemsByName, adjacency, hosts, newTables,
+            graphs);
+    }
+
+    private HostTable hostsOf(Subnet subnet) {
+        return hosts.getOrDefault(subnet, HostTable.empty());
+    }
+
+    private PersistentMap<SystemNode, List<Connection>> membersOf(Subnet subnet) {
+        return adjacency.getOrDefault(subnet, PersistentMap.empty());
+    }
+
+    // Hands the graphs on to the next snapshot, with a graph still to be built for the changed subnet.
+    private PersistentMap<Subnet, LazyGraph> changed(Subnet subnet) {
+        return graphs.put(subnet, new LazyGraph(null));
+    }
+
+    // Records a change inside a subnet whose graph is built, so the next graph can be derived from that one.
+    // A connection between two subnets only links their routers and is not part of any subnet graph.
+    private PersistentMap<Subnet, LazyGraph> changed(Connection connection, int oldWeight, int newWeight) {
+        Subnet subnet = connection.getSystem1().getSubnet();
+        if (subnet != connection.getSystem2().getSubnet()) {
+            return graphs;
+        }
+        LazyGraph previous = graphs.get(subnet);
+        SubnetGraph graph = previous == null ? null : previous.graph;
+        return graphs.put(subnet, new LazyGraph(graph == null ? null
+            : SubnetGraph.Change.of(graph, connection, oldWeight, newWeight)));
+    }
+
+    private static int weightOf(Connection connection) {
+        return connection.getWeight() == null ? 0 : connection.getWeight();
+    }
+
+    // Replaces the adjacency list of a system with a copy that has the connection added or removed.
+    private static PersistentMap<Subnet, PersistentMap<SystemNode, List<Connection>>> replace(
+        PersistentMap<Subnet, PersistentMap<SystemNode, List<Connection>>> adjacency, SystemNode system,
+        Connection connection, boolean add) {
+        PersistentMap<SystemNode, List<Connection>> members =
+            adjacency.getOrDefault(system.getSubnet(), PersistentMap.empty());
+        List<Connection> connections = members.get(system);
+        List<Connection> replaced = add ? with(connections, connection) : without(connections, connection);
+        return adjacency.put(system.getSubnet(), members.put(system, replaced));
+    }
+
+    // Helper methods to copy the small per-system adjacency lists.
+    private static List<Connection> with(List<Connection> connections, Connection connection) {
+        List<Connection> result = connections == null ? new ArrayList<>(1) : new ArrayList<>(connections);
+        result.add(connection);
+        return Collections.unmodifiableList(result);
+    }
+
+    private static List<Connection> without(List<Connection> connections, Connection connection) {
+        if (connections == null) {
+            return Collections.emptyList();
+        }
+        List<Connection> result = new ArrayList<>(connections);
+        result.remove(connection);
+        return Collections.unmodifiableList(result);
+    }
+
+    // The graph of a subnet, built by the first snapshot that needs it and shared by all snapshots in which the
+    // subnet stays the same, so a change elsewhere never copies or drops it.
+    private static final class LazyGraph {
+        private SubnetGraph.Change change;
+        private volatile SubnetGraph graph;
+
+        private LazyGraph(SubnetGraph.Change change) {
+            this.change = change;
+        }
+
+        private SubnetGraph get(Subnet subnet, PersistentMap<SystemNode, List<Connection>> members) {
+            SubnetGraph built = graph;
+            if (built == null) {
+                synchronized (this) {
+                    built = graph;
+                    if (built == null) {
+                        built = change == null ? SubnetGraph.build(subnet, members) : change.apply(members);
+                        graph = built;
+                        change = null; // Lets the previous graph go.
+                    }
+                }
+            }
+            return built;
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable hash map with structural sharing (a hash array mapped trie).
+ * Every update returns a new map that shares all untouched nodes with the old one,
+ * so keeping older versions alive costs only the nodes on the changed path.
+ * Null keys and null values are not supported.
+ * @param <K> the type of the keys.
+ * @param <V> the type of the values.
+ */
+public final class PersistentMap<K, V> implements Iterable<Map.Entry<K, V>> {
+    private static final int BITS_PER_LEVEL = 5;
+    private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null, 0);
+    private final Node root;
+    private final int size;
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns the empty map.
+     * @param <K> the type of the keys.
+     * @param <V> the type of the values.
+     * @return the empty map.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Returns the number of entries in the map.
+     * @return the number of entries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the map is empty.
+     * @return true if the map has no entries, false otherwise.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value mapped to the given key.
+     * @param key the key to look up.
+     * @return the value, or null if the key is not present.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int hash = hash(key);
+        Node node = root;
+        int shift = 0;
+        while (node != null) {
+            int bit = bitFor(hash, shift);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = node.slots[node.index(bit)];
+            if (slot instanceof Node child) {
+                node = child;
+                shift += BITS_PER_LEVEL;
+            } else {
+                Leaf leaf = ((Leaf) slot).find(hash, key);
+                return leaf == null ? null : (V) leaf.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value mapped to the given key, or the default value if the key is not present.
+     * @param key the key to look up.
+     * @param defaultValue the value to return if the key is not present.
+     * @return the mapped value or the default value.
+     */
+    public V getOrDefault(Object key, V defaultValue) {
+        V value = get(key);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Checks if the given key is present.
+     * @param key the key to look up.
+     * @return true if the key is present, false otherwise.
+     */
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns a map with the given key mapped to the given value.
+     * @param key the key.
+     * @param value the value.
+     * @return the updated map, or this map if nothing changed.
+     */
+    public PersistentMap<K, V> put(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        int hash = hash(key);
+        boolean[] added = new boolean[1];
+        Node newRoot = root == null
+            ? new Node(bitFor(hash, 0), new Object[] {new Leaf(hash, key, value, null)})
+            : put(root, 0, hash, key, value, added);
+        if (root == null) {
+            added[0] = true;
+        }
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Returns a map without the given key.
+     * @param key the key to remove.
+     * @return the updated map, or this map if the key was not present.
+     */
+    public PersistentMap<K, V> remove(Object key) {
+        if (root == null) {
+            return this;
+        }
+        Node newRoot = remove(root, 0, hash(key), key);
+        if (newRoot == root) {
+            return this;
+        }
+        return newRoot == null ? empty() : new PersistentMap<>(newRoot, size - 1);
+    }
+
+    /**
+     * Performs the given action for each entry of the map.
+     * @param action the action to perform.
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (Map.Entry<K, V> entry : this) {
+            action.accept(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return new EntryIterator<>(root);
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int bitFor(int hash, int shift) {
+        return 1 << ((hash >>> shift) & LEVEL_MASK);
+    }
+
+    // Helper methods for the recursive updates, returning the same node if nothing changed.
+    private static Node put(Node node, int shift, int hash, Object key, Object value, boolean[] added) {
+        int bit = bitFor(hash, shift);
+        int index = node.index(bit);
+        if ((node.bitmap & bit) == 0) {
+            added[0] = true;
+            return node.insert(index, bit, new Leaf(hash, key, value, null));
+        }
+        Object slot = node.slots[index];
+        if (slot instanceof Node child) {
+            Node newChild = put(child, shift + BITS_PER_LEVEL, hash, key, value, added);
+            return newChild == child ? node : node.replace(index, newChild);
+        }
+        Leaf leaf = (Leaf) slot;
+        if (leaf.hash == hash) {
+            Leaf newLeaf = leaf.put(key, value, added);
+            return newLeaf == leaf ? node : node.replace(index, newLeaf);
+        }
+        added[0] = true;
+        return node.replace(index, split(leaf, new Leaf(hash, key, value, null), shift + BITS_PER_LEVEL));
+    }
+
+    private static Node split(Leaf first, Leaf second, int shift) {
+        int firstBit = bitFor(first.hash, shift);
+        int secondBit = bitFor(second.hash, shift);
+        if (firstBit == secondBit) {
+            return new Node(firstBit, new Object[] {split(first, second, shift + BITS_PER_LEVEL)});
+        }
+        // Slots are ordered by bit position, and the highest bit position is negative as an int.
+        Object[] slots = Integer.compareUnsigned(firstBit, secondBit) < 0
+            ? new Object[] {first, second}
+            : new Object[] {second, first};
+        return new Node(firstBit | secondBit, slots);
+    }
+
+    private static Node remove(Node node, int shift, int hash, Object key) {
+        int bit = bitFor(hash, shift);
+        if ((node.bitmap & bit) == 0) {
+            return node;
+        }
+        int index = node.index(bit);
+        Object slot = node.slots[index];
+        Object replacement;
+        if (slot instanceof Node child) {
+            Node newChild = remove(child, shift + BITS_PER_LEVEL, hash, key);
+            if (newChild == child) {
+                return node;
+            }
+            // Pull a lone leaf up so that removals keep the trie shallow.
+            replacement = newChild != null && newChild.slots.length == 1 && newChild.slots[0] instanceof Leaf
+                ? newChild.slots[0] : newChild;
+        } else {
+            Leaf leaf = (Leaf) slot;
+            if (leaf.hash != hash) {
+                return node;
+            }
+            Leaf newLeaf = leaf.remove(key);
+            if (newLeaf == leaf) {
+                return node;
+            }
+            replacement = newLeaf;
+        }
+        if (replacement == null) {
+            return node.delete(index, bit);
+        }
+        return node.replace(index, replacement);
+    }
+
+    /**
+     * An inner node of the trie. Each set bit of the bitmap owns one slot holding either a leaf or a node.
+     */
+    private static final class Node {
+        private final int bitmap;
+        private final Object[] slots;
+
+        Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        Node insert(int index, int bit, Object slot) {
+            Object[] newSlots = new Object[slots.length + 1];
+            System.arraycopy(slots, 0, newSlots, 0, index);
+            newSlots[index] = slot;
+            System.arraycopy(slots, index, newSlots, index + 1, slots.length - index);
+            return new Node(bitmap | bit, newSlots);
+        }
+
+        Node replace(int index, Object slot) {
+            Object[] newSlots = slots.clone();
+            newSlots[index] = slot;
+            return new Node(bitmap, newSlots);
+        }
+
+        Node delete(int index, int bit) {
+            if (slots.length == 1) {
+                return null;
+            }
+            Object[] newSlots = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, newSlots, 0, index);
+            System.arraycopy(slots, index + 1, newSlots, index, slots.length - index - 1);
+            return new Node(bitmap & ~bit, newSlots);
+        }
+    }
+
+    /**
+     * A key-value entry. Keys with the same full hash are chained through {@code next}.
+     */
+    private static final class Leaf implements Map.Entry<Object, Object> {
+        private final int hash;
+        private final Object key;
+        private final Object value;
+        private final Leaf next;
+
+        Leaf(int hash, Object key, Object value, Leaf next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+
+        Leaf find(int hash, Object key) {
+            if (this.hash != hash) {
+                return null;
+            }
+            for (Leaf leaf = this; leaf != null; leaf = leaf.next) {
+                if (leaf.key.equals(key)) {
+                    return leaf;
+                }
+            }
+            return null;
+        }
+
+        Leaf put(Object key, Object value, boolean[] added) {
+            Leaf existing = find(hash, key);
+            if (existing == null) {
+                added[0] = true;
+                return new Leaf(hash, key, value, this);
+            }
+            if (existing.value == value) {
+                return this;
+            }
+            return new Leaf(hash, key, value, remove(key));
+        }
+
+        Leaf remove(Object key) {
+            if (this.key.equals(key)) {
+                return next;
+            }
+            if (next == null) {
+                return this;
+            }
+            Leaf newNext = next.remove(key);
+            return newNext == next ? this : new Leaf(hash, this.key, value, newNext);
+        }
+
+        @Override
+        public Object getKey() {
+            return key;
+        }
+
+        @Override
+        public Object getValue() {
+            return value;
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Depth-first iterator over all leaves of the trie.
+     */
+    private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+        private final Deque<Object> pending = new ArrayDeque<>();
+
+        EntryIterator(Node root) {
+            if (root != null) {
+                pending.push(root);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !pending.isEmpty();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K, V> next() {
+            while (!pending.isEmpty()) {
+                Object top = pending.pop();
+                if (top instanceof Node node) {
+                    for (int i = node.slots.length - 1; i >= 0; i--) {
+                        pending.push(node.slots[i]);
+                    }
+                } else {
+                    Leaf leaf = (Leaf) top;
+                    if (leaf.next != null) {
+                        pending.push(leaf.next);
+                    }
+                    return (Map.Entry<K, V>) (Map.Entry<?, ?>) leaf;
+                }
+            }
+            throw new NoSuchElementException();
+        }
+    }
+}
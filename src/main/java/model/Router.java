@@ -53,10 +53,11 @@ public void updateRoutingTable(Map<String, List<String>> newRoutes) {
 
     /**
      * Returns the routing table of the router.
+     * The table is a read-only view that follows later updates, so it has to be copied to be kept.
      * @return The routing table of the router.
      */
     public Map<String, List<String>> getRoutingTable() {
-        return new HashMap<>(routingTable);
+        return Collections.unmodifiableMap(routingTable);
     }
 
     /**
@@ -1,13 +1,16 @@
 package model;
 
-import java.util.HashSet;
-import java.util.Set;
+import helpers.IpAddress;
+import helpers.IpAddressComparator;
+
 
 /**
  * Represents a subnet in the network.
  * A subnet consists of Computers and a router.
  * Computers can only connect to systems in the same subnet.
  * Systems in different subnets can only connect via routers.
+ * A subnet only describes its address range and never changes. Its systems and router belong to the
+ * {@link NetworkSnapshot}, so every snapshot and every transaction sees the members it has itself.
  */
 public class Subnet {
     private static final int BITS_IN_BYTE = 8;
@@ -20,8 +23,9 @@ public class Subnet {
     private static final int MAX_OCTET_VALUE = 255;
     private static final long ALL_BITS_SET = 0xffffffffL;
     private final String cidr;
-    private final Set<SystemNode> systems;
-    private Router router;
+    private final int networkAddress;
+    private final int prefixLength;
+    private final long sortKey;
 
     /**
      * This constructor creates a new Subnet object with the given CIDR.
@@ -29,18 +33,10 @@ public class Subnet {
      */
     public Subnet(String cidr) {
         this.cidr = cidr;
-        this.systems = new HashSet<>();
-    }
-
-    /**
-     * This method adds a system to the subnet.
-     * @param system The system to add.
-     */
-    public void addSystem(SystemNode system) {
-        systems.add(system);
-        if (system instanceof Router) {
-            this.router = (Router) system;
-        }
+        int delimiter = cidr.indexOf(CIDR_DELIMITER);
+        this.networkAddress = (int) IpAddress.parse(cidr, 0, delimiter);
+        this.prefixLength = Integer.parseInt(cidr.substring(delimiter + 1));
+        this.sortKey = IpAddressComparator.sortKey(networkAddress, prefixLength);
     }
 
     /**
@@ -141,37 +137,67 @@ public boolean isIpInSubnet(String ip) {
         return (networkIp & mask) == (inputIp & mask);
     }
 
-    private long ipToLong(String ip) {
-        String[] octets = ip.split(IP_DELIMITER); // Split the IP address into octets.
-        long result = 0;
-        for (int i = 0; i < BYTES_IN_IP; i++) {
-            result <<= BITS_IN_BYTE;
-            result |= Long.parseLong(octets[i]);
+    /**
+     * This method checks if the given packed IP address is in the subnet.
+     * @param address The packed IP address as returned by {@link IpAddress#parse(CharSequence)}.
+     * @return true if the IP address is valid and in the subnet, false otherwise.
+     */
+    public boolean contains(long address) {
+        if (address == IpAddress.INVALID) {
+            return false;
         }
-        return result;
+        long mask = (ALL_BITS_SET << (BITS_IN_IP - prefixLength)) & ALL_BITS_SET;
+        return ((address ^ IpAddress.toUnsigned(networkAddress)) & mask) == 0;
     }
 
     /**
-     * This method removes a system from the subnet.
-     * @param system The system to remove.
+     * This method returns the network address of the subnet in packed form.
+     * @return the packed network address.
      */
-    public void removeSystem(SystemNode system) {
-        systems.remove(system);
+    public int getNetworkAddress() {
+        return networkAddress;
     }
 
     /**
-     * This method returns all the systems in the subnet.
-     * @return a set of systems in the subnet.
+     * This method returns the broadcast address of the subnet in packed form, the last address of its range.
+     * @return the packed broadcast address.
      */
-    public Set<SystemNode> getSystems() {
-        return new HashSet<>(systems);
+    public int getBroadcastAddress() {
+        return networkAddress | (int) (ALL_BITS_SET >>> prefixLength);
+    }
+
+    /**
+     * This method returns the prefix length of the subnet.
+     * @return the prefix length.
+     */
+    public int getPrefixLength() {
+        return prefixLength;
+    }
+
+    /**
+     * This method returns the sort key of the subnet, which orders subnets by network address and then prefix length.
+     * @return the sort key, computed once when the subnet is created.
+     */
+    public long getSortKey() {
+        return sortKey;
+    }
+
+    private long ipToLong(String ip) {
+        String[] octets = ip.split(IP_DELIMITER); // Split the IP address into octets.
+        long result = 0;
+        for (int i = 0; i < BYTES_IN_IP; i++) {
+            result <<= BITS_IN_BYTE;
+            result |= Long.parseLong(octets[i]);
+        }
+        return result;
     }
 
     /**
-     * This method gets the router of the subnet.
-     * @return the router of the subnet.
+     * This method returns the number of host addresses of the subnet, without the network and broadcast address.
+     * @return the number of host addresses.
      */
-    public Router getRouter() {
-        return router;
+    public long getHostAddressCount() {
+        long size = ALL_BITS_SET + 1 >>> prefixLength;
+        return prefixLength < BITS_IN_IP - 1 ? size - 2 : size;
     }
 }
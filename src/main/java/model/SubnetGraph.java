@@ -0,0 +1,382 @@
+package model;
+
+import helpers.IpAddress;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * An immutable columnar view of the systems and intra-subnet connections of one subnet in one snapshot.
+ * The systems are stored in parallel primitive arrays sorted by address, and the connections in compressed
+ * sparse row form: the edges of the system at index i are the entries from {@code getEdgeStart(i)} up to
+ * {@code getEdgeEnd(i)} of the edge target and weight arrays. Searches can therefore run on plain int indices
+ * without touching a {@link SystemNode} or a {@link Connection} until the result is assembled.
+ * Connections leaving the subnet are not part of the graph, they are only used for routing between routers.
+ * Data derived from the graph by the path finder, such as landmark distances, is cached with the graph
+ * and therefore dropped together with it as soon as the subnet changes.
+ * A graph derived from its previous version by a single connection change keeps the same system indices and
+ * records the {@link Change}, so data derived from the previous version can be repaired instead of recomputed.
+ */
+public final class SubnetGraph {
+    /**
+     * The type of a computer in {@link #getType(int)}.
+     */
+    public static final byte TYPE_COMPUTER = 0;
+    /**
+     * The type of a router in {@link #getType(int)}.
+     */
+    public static final byte TYPE_ROUTER = 1;
+    private static final int NOT_FOUND = -1;
+    private static final int INDEX_BITS = 32;
+    private static final long INDEX_MASK = 0xffffffffL;
+    private final Subnet subnet;
+    private final int[] addresses;
+    private final byte[] types;
+    private final SystemNode[] nodes;
+    private final int[] edgeOffsets;
+    private final int[] edgeTargets;
+    private final int[] edgeWeights;
+    private final int routerIndex;
+    private final ConcurrentHashMap<Class<?>, Object> derived;
+    private volatile Change change;
+
+    private SubnetGraph(Subnet subnet, int[] addresses, byte[] types, SystemNode[] nodes, int[] edgeOffsets,
+                        int[] edgeTargets, int[] edgeWeights, int routerIndex) {
+        this.subnet = subnet;
+        this.addresses = addresses;
+        this.types = types;
+        this.nodes = nodes;
+        this.edgeOffsets = edgeOffsets;
+        this.edgeTargets = edgeTargets;
+        this.edgeWeights = edgeWeights;
+        this.routerIndex = routerIndex;
+        this.derived = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Builds the graph of a subnet from the adjacency lists of its systems.
+     * @param subnet The subnet of the graph.
+     * @param members The systems of the subnet, each mapped to all of its connections.
+     * @return The graph of the subnet.
+     */
+    static SubnetGraph build(Subnet subnet, PersistentMap<SystemNode, List<Connection>> members) {
+        int size = members.size();
+        // Sort by unsigned address, carrying the position of the system in the low bits.
+        SystemNode[] unsorted = new SystemNode[size];
+        long[] keys = new long[size];
+        int position = 0;
+        for (Map.Entry<SystemNode, List<Connection>> entry : members) {
+            unsorted[position] = entry.getKey();
+            keys[position] = IpAddress.toUnsigned(entry.getKey().getAddress()) << INDEX_BITS | position;
+            position++;
+        }
+        Arrays.sort(keys);
+
+        int[] addresses = new int[size];
+        byte[] types = new byte[size];
+        SystemNode[] nodes = new SystemNode[size];
+        int routerIndex = NOT_FOUND;
+        for (int i = 0; i < size; i++) {
+            SystemNode node = unsorted[(int) (keys[i] & INDEX_MASK)];
+            nodes[i] = node;
+            addresses[i] = node.getAddress();
+            if (node instanceof Router) {
+                types[i] = TYPE_ROUTER;
+                routerIndex = i;
+            }
+        }
+
+        // The first pass counts the edges inside the subnet, the second one fills them in.
+        int[] edgeOffsets = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            int count = 0;
+            for (Connection connection : members.get(nodes[i])) {
+                if (connection.getOtherSystem(nodes[i]).getSubnet() == subnet) {
+                    count++;
+                }
+            }
+            edgeOffsets[i + 1] = edgeOffsets[i] + count;
+        }
+        int[] edgeTargets = new int[edgeOffsets[size]];
+        int[] edgeWeights = new int[edgeOffsets[size]];
+        for (int i = 0; i < size; i++) {
+            int edge = edgeOffsets[i];
+            for (Connection connection : members.get(nodes[i])) {
+                SystemNode neighbor = connection.getOtherSystem(nodes[i]);
+                if (neighbor.getSubnet() == subnet) {
+                    edgeTargets[edge] = indexOf(addresses, neighbor.getAddress());
+                    edgeWeights[edge] = connection.getWeight() == null ? 0 : connection.getWeight();
+                    edge++;
+                }
+            }
+        }
+        return new SubnetGraph(subnet, addresses, types, nodes, edgeOffsets, edgeTargets, edgeWeights, routerIndex);
+    }
+
+    // Derives the graph with the weight of one connection changed, sharing everything but the weights.
+    private SubnetGraph withEdgeWeight(int first, int second, int weight) {
+        int[] newWeights = edgeWeights.clone();
+        setWeight(newWeights, first, second, weight);
+        setWeight(newWeights, second, first, weight);
+        return new SubnetGraph(subnet, addresses, types, nodes, edgeOffsets, edgeTargets, newWeights, routerIndex);
+    }
+
+    private void setWeight(int[] weights, int from, int to, int weight) {
+        for (int edge = edgeOffsets[from]; edge < edgeOffsets[from + 1]; edge++) {
+            if (edgeTargets[edge] == to) {
+                weights[edge] = weight;
+            }
+        }
+    }
+
+    /**
+     * Returns the subnet of this graph.
+     * @return The subnet of this graph.
+     */
+    public Subnet getSubnet() {
+        return subnet;
+    }
+
+    /**
+     * Returns the number of systems in this graph.
+     * @return The number of systems.
+     */
+    public int size() {
+        return addresses.length;
+    }
+
+    /**
+     * Returns the index of the system with the given address.
+     * @param address The packed address of the system.
+     * @return The index of the system, or -1 if the subnet has no system with that address.
+     */
+    public int indexOf(int address) {
+        return indexOf(addresses, address);
+    }
+
+    /**
+     * Returns the index of the router of the subnet.
+     * @return The index of the router, or -1 if the subnet has no router in this snapshot.
+     */
+    public int getRouterIndex() {
+        return routerIndex;
+    }
+
+    /**
+     * Returns the packed address of the system at the given index.
+     * @param index The index of the system.
+     * @return The packed address.
+     */
+    public int getAddress(int index) {
+        return addresses[index];
+    }
+
+    /**
+     * Returns the type of the system at the given index.
+     * @param index The index of the system.
+     * @return {@link #TYPE_COMPUTER} or {@link #TYPE_ROUTER}.
+     */
+    public byte getType(int index) {
+        return types[index];
+    }
+
+    /**
+     * Returns the system at the given index.
+     * @param index The index of the system.
+     * @return The system.
+     */
+    public SystemNode getNode(int index) {
+        return nodes[index];
+    }
+
+    /**
+     * Returns the position of the first edge of the system at the given index.
+     * @param index The index of the system.
+     * @return The position of the first edge.
+     */
+    public int getEdgeStart(int index) {
+        return edgeOffsets[index];
+    }
+
+    /**
+     * Returns the position after the last edge of the system at the given index.
+     * @param index The index of the system.
+     * @return The position after the last edge.
+     */
+    public int getEdgeEnd(int index) {
+        return edgeOffsets[index + 1];
+    }
+
+    /**
+     * Returns the index of the system the edge at the given position leads to.
+     * @param edge The position of the edge.
+     * @return The index of the target system.
+     */
+    public int getEdgeTarget(int edge) {
+        return edgeTargets[edge];
+    }
+
+    /**
+     * Returns the weight of the edge at the given position.
+     * @param edge The position of the edge.
+     * @return The weight of the edge.
+     */
+    public int getEdgeWeight(int edge) {
+        return edgeWeights[edge];
+    }
+
+    /**
+     * Returns the connection change this graph was derived with from its previous version.
+     * Only the latest version keeps this link, so older versions are not kept alive in a chain.
+     * @return The change, or null if the graph was built from scratch.
+     */
+    public Change getChange() {
+        return change;
+    }
+
+    /**
+     * Returns data derived from this graph, computing and caching it on the first request.
+     * The computation runs without holding a lock, so concurrent first requests may compute it more than once,
+     * but all of them return the same cached instance.
+     * @param type The type of the derived data, which identifies it in the cache.
+     * @param factory The function computing the data from this graph.
+     * @param <T> The type of the derived data.
+     * @return The derived data.
+     */
+    public <T> T getDerived(Class<T> type, Function<SubnetGraph, ? extends T> factory) {
+        Object value = derived.get(type);
+        if (value == null) {
+            value = factory.apply(this);
+            Object previous = derived.putIfAbsent(type, value);
+            if (previous != null) {
+                value = previous;
+            }
+        }
+        return type.cast(value);
+    }
+
+    /**
+     * Returns data derived from this graph if it has already been computed.
+     * @param type The type of the derived data.
+     * @param <T> The type of the derived data.
+     * @return The derived data, or null if it has not been computed for this graph.
+     */
+    public <T> T getDerivedIfPresent(Class<T> type) {
+        return type.cast(derived.get(type));
+    }
+
+    // Binary search in unsigned address order.
+    private static int indexOf(int[] addresses, int address) {
+        int low = 0;
+        int high = addresses.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = Integer.compareUnsigned(addresses[middle], address);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * A single connection change between two systems of a subnet whose graph had already been built.
+     * The systems of the subnet stay the same, so their indices in the previous and the next graph are equal.
+     * A connection that is added has no old weight, and a connection that is removed has no new weight.
+     */
+    public static final class Change {
+        /**
+         * The weight of a connection that does not exist, which lies far below any weight a connection can have.
+         */
+        public static final int NO_EDGE = Integer.MIN_VALUE;
+        private final SubnetGraph previous;
+        private final int first;
+        private final int second;
+        private final int oldWeight;
+        private final int newWeight;
+
+        private Change(SubnetGraph previous, int first, int second, int oldWeight, int newWeight) {
+            this.previous = previous;
+            this.first = first;
+            this.second = second;
+            this.oldWeight = oldWeight;
+            this.newWeight = newWeight;
+        }
+
+        /**
+         * Records a change of the connection between two systems of the given graph.
+         * @param previous The graph before the change.
+         * @param connection The changed connection.
+         * @param oldWeight The weight before the change, or {@link #NO_EDGE}.
+         * @param newWeight The weight after the change, or {@link #NO_EDGE}.
+         * @return The change.
+         */
+        static Change of(SubnetGraph previous, Connection connection, int oldWeight, int newWeight) {
+            return new Change(previous, previous.indexOf(connection.getSystem1().getAddress()),
+                previous.indexOf(connection.getSystem2().getAddress()), oldWeight, newWeight);
+        }
+
+        /**
+         * Builds the graph after the change. A pure weight change shares the structure of the previous graph,
+         * while an added or removed connection rebuilds it with the same system indices.
+         * @param members The systems of the subnet after the change, each mapped to all of its connections.
+         * @return The graph after the change.
+         */
+        SubnetGraph apply(PersistentMap<SystemNode, List<Connection>> members) {
+            SubnetGraph graph = oldWeight != NO_EDGE && newWeight != NO_EDGE
+                ? previous.withEdgeWeight(first, second, newWeight)
+                : build(previous.subnet, members);
+            graph.change = this;
+            // Only one level is kept, the previous graph no longer needs to reach its own predecessor.
+            previous.change = null;
+            return graph;
+        }
+
+        /**
+         * Returns the graph before the change.
+         * @return The previous graph.
+         */
+        public SubnetGraph getPrevious() {
+            return previous;
+        }
+
+        /**
+         * Returns the index of the first system of the changed connection.
+         * @return The index of the first system.
+         */
+        public int getFirst() {
+            return first;
+        }
+
+        /**
+         * Returns the index of the second system of the changed connection.
+         * @return The index of the second system.
+         */
+        public int getSecond() {
+            return second;
+        }
+
+        /**
+         * Returns the weight of the connection before the change.
+         * @return The old weight, or {@link #NO_EDGE} if the connection was added.
+         */
+        public int getOldWeight() {
+            return oldWeight;
+        }
+
+        /**
+         * Returns the weight of the connection after the change.
+         * @return The new weight, or {@link #NO_EDGE} if the connection was removed.
+         */
+        public int getNewWeight() {
+            return newWeight;
+        }
+    }
+}
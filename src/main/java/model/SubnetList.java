@@ -0,0 +1,173 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * The subnets of a snapshot in the order of their network address and prefix, kept in an immutable treap.
+ * Every change returns a new list that shares all untouched nodes with the previous one and copies only the nodes
+ * on the path to the changed subnet, so adding or removing a subnet costs O(log n) instead of copying all of them.
+ * The priorities are derived from the sort keys, so the shape of the tree only depends on the subnets it holds.
+ * Every node knows the size of its subtree, so the list can be read by position as well.
+ */
+final class SubnetList extends AbstractList<Subnet> implements RandomAccess {
+    private static final long PRIORITY_MULTIPLIER = 0x9E3779B97F4A7C15L;
+    private static final SubnetList EMPTY = new SubnetList(null);
+    private final Node root;
+
+    private SubnetList(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns the empty list.
+     * @return the empty list.
+     */
+    static SubnetList empty() {
+        return EMPTY;
+    }
+
+    @Override
+    public Subnet get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        Node node = root;
+        int remaining = index;
+        while (true) {
+            int leftSize = sizeOf(node.left);
+            if (remaining < leftSize) {
+                node = node.left;
+            } else if (remaining == leftSize) {
+                return node.subnet;
+            } else {
+                remaining -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return sizeOf(root);
+    }
+
+    @Override
+    public Iterator<Subnet> iterator() {
+        return new InOrder(root);
+    }
+
+    /**
+     * Returns a list with the given subnet added, replacing a subnet with the same network address and prefix.
+     * @param subnet the subnet to add.
+     * @return the new list.
+     */
+    SubnetList with(Subnet subnet) {
+        long key = subnet.getSortKey();
+        Node[] lower = split(root, key);
+        Node[] upper = split(lower[1], key + 1);
+        return new SubnetList(merge(merge(lower[0], new Node(subnet, null, null)), upper[1]));
+    }
+
+    /**
+     * Returns a list without the given subnet.
+     * @param subnet the subnet to remove.
+     * @return the new list, or this list if it does not contain the subnet.
+     */
+    SubnetList without(Subnet subnet) {
+        long key = subnet.getSortKey();
+        Node[] lower = split(root, key);
+        Node[] upper = split(lower[1], key + 1);
+        if (upper[0] == null || upper[0].subnet != subnet) {
+            return this;
+        }
+        return new SubnetList(merge(lower[0], upper[1]));
+    }
+
+    private static int sizeOf(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    // Splits a tree into the nodes with a key below the given one and the rest, copying only the nodes on the path.
+    private static Node[] split(Node node, long key) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (node.key < key) {
+            Node[] parts = split(node.right, key);
+            return new Node[] {node.withChildren(node.left, parts[0]), parts[1]};
+        }
+        Node[] parts = split(node.left, key);
+        return new Node[] {parts[0], node.withChildren(parts[1], node.right)};
+    }
+
+    // Joins two trees whose keys are all lower in the first one.
+    private static Node merge(Node lower, Node upper) {
+        if (lower == null) {
+            return upper;
+        }
+        if (upper == null) {
+            return lower;
+        }
+        if (lower.priority > upper.priority) {
+            return lower.withChildren(lower.left, merge(lower.right, upper));
+        }
+        return upper.withChildren(merge(lower, upper.left), upper.right);
+    }
+
+    private static final class Node {
+        private final Subnet subnet;
+        private final long key;
+        private final long priority;
+        private final Node left;
+        private final Node right;
+        private final int size;
+
+        private Node(Subnet subnet, Node left, Node right) {
+            this.subnet = subnet;
+            this.key = subnet.getSortKey();
+            this.priority = Long.hashCode(key * PRIORITY_MULTIPLIER);
+            this.left = left;
+            this.right = right;
+            this.size = sizeOf(left) + 1 + sizeOf(right);
+        }
+
+        private Node withChildren(Node newLeft, Node newRight) {
+            return newLeft == left && newRight == right ? this : new Node(subnet, newLeft, newRight);
+        }
+    }
+
+    // Walks the tree in key order, keeping the path of the nodes still to visit.
+    private static final class InOrder implements Iterator<Subnet> {
+        private final Deque<Node> path = new ArrayDeque<>();
+
+        private InOrder(Node root) {
+            descend(root);
+        }
+
+        private void descend(Node node) {
+            for (Node current = node; current != null; current = current.left) {
+                path.push(current);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !path.isEmpty();
+        }
+
+        @Override
+        public Subnet next() {
+            if (path.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node node = path.pop();
+            descend(node.right);
+            return node.subnet;
+        }
+    }
+}
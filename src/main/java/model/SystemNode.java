@@ -1,24 +1,46 @@
 package model;
 
+import helpers.IpAddress;
+
 /**
  * Represents a system in the network.
  * A system has a name, an IP address, and belongs to a subnet.
  * There are computers and routers that have different functions that are specified in their according classes.
+ * The IP address is kept in packed form and only converted to a string when requested,
+ * which keeps the per-system memory small in very large subnets.
  */
 public class SystemNode {
+    private static final String ERROR_INVALID_IP = "Invalid IP address: ";
     private final String name;
-    private final String ipAddress;
+    private final int address;
     private final Subnet subnet;
 
     /**
      * Constructs a new System with the specified name, IP address, and subnet.
-     * @param name The name of the system.
+     * @param name The name of the system, or null if the subclass generates the name on demand.
      * @param ipAddress The IP address of the system.
      * @param subnet The subnet to which the system belongs.
+     * @throws IllegalArgumentException if the IP address is not a valid IPv4 address.
      */
     public SystemNode(String name, String ipAddress, Subnet subnet) {
+        long parsed = IpAddress.parse(ipAddress);
+        if (parsed == IpAddress.INVALID) {
+            throw new IllegalArgumentException(ERROR_INVALID_IP + ipAddress);
+        }
         this.name = name;
-        this.ipAddress = ipAddress;
+        this.address = (int) parsed;
+        this.subnet = subnet;
+    }
+
+    /**
+     * Constructs a new System with the specified name, packed IP address, and subnet.
+     * @param name The name of the system, or null if the subclass generates the name on demand.
+     * @param address The packed IP address of the system.
+     * @param subnet The subnet to which the system belongs.
+     */
+    protected SystemNode(String name, int address, Subnet subnet) {
+        this.name = name;
+        this.address = address;
         this.subnet = subnet;
     }
 
@@ -30,12 +52,28 @@ public String getName() {
         return name;
     }
 
+    /**
+     * This method returns the name the system was created with.
+     * @return The explicit name, or null if the name is generated on demand.
+     */
+    String getExplicitName() {
+        return name;
+    }
+
     /**
      * This method returns the IP address of the system.
      * @return The IP address of the system.
      */
     public String getIpAddress() {
-        return ipAddress;
+        return IpAddress.format(address);
+    }
+
+    /**
+     * This method returns the IP address of the system in packed form.
+     * @return The packed IP address of the system.
+     */
+    public int getAddress() {
+        return address;
     }
 
     /**
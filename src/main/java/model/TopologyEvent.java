@@ -0,0 +1,148 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Describes a single change of the topology of a {@link Network}.
+ * Events are published in batches, one batch for every change made under the write lock, and every event names
+ * the version of the snapshot that contains the change. Only the parts that belong to the type of the event are set,
+ * all others are null.
+ */
+public final class TopologyEvent {
+    private final Type type;
+    private final long version;
+    private final Subnet subnet;
+    private final SystemNode system;
+    private final Connection connection;
+    private final String destination;
+    private final List<String> route;
+
+    private TopologyEvent(Type type, long version, Subnet subnet, SystemNode system, Connection connection,
+                          String destination, List<String> route) {
+        this.type = type;
+        this.version = version;
+        this.subnet = subnet;
+        this.system = system;
+        this.connection = connection;
+        this.destination = destination;
+        this.route = route;
+    }
+
+    static TopologyEvent ofSubnet(Type type, long version, Subnet subnet) {
+        return new TopologyEvent(type, version, subnet, null, null, null, null);
+    }
+
+    static TopologyEvent ofSystem(Type type, long version, SystemNode system) {
+        return new TopologyEvent(type, version, system.getSubnet(), system, null, null, null);
+    }
+
+    static TopologyEvent ofConnection(Type type, long version, Connection connection) {
+        return new TopologyEvent(type, version, null, null, connection, null, null);
+    }
+
+    static TopologyEvent ofRoute(long version, Router router, String destination, List<String> route) {
+        return new TopologyEvent(Type.ROUTE_CHANGED, version, router.getSubnet(), router, null, destination, route);
+    }
+
+    static TopologyEvent ofReplacement(long version) {
+        return new TopologyEvent(Type.NETWORK_REPLACED, version, null, null, null, null, null);
+    }
+
+    /**
+     * Returns the type of this event.
+     * @return the type.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the version of the first snapshot that contains the change.
+     * @return the version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the subnet that was added, or the subnet of the changed system or router.
+     * @return the subnet, or null for connection events.
+     */
+    public Subnet getSubnet() {
+        return subnet;
+    }
+
+    /**
+     * Returns the system that was added or removed, or the router whose route changed.
+     * @return the system, or null for subnet and connection events.
+     */
+    public SystemNode getSystem() {
+        return system;
+    }
+
+    /**
+     * Returns the connection that was added or removed, or the connection with the new weight.
+     * @return the connection, or null for other events.
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Returns the CIDR of the destination subnet whose route changed.
+     * @return the destination, or null for other events.
+     */
+    public String getDestination() {
+        return destination;
+    }
+
+    /**
+     * Returns the new route to the destination as the IP addresses of the routers on it.
+     * @return the unmodifiable route, or null if the route was removed or for other events.
+     */
+    public List<String> getRoute() {
+        return route;
+    }
+
+    /**
+     * The types of topology changes.
+     */
+    public enum Type {
+        /**
+         * A subnet was added.
+         */
+        SUBNET_ADDED,
+        /**
+         * A subnet was removed, after all its systems.
+         */
+        SUBNET_REMOVED,
+        /**
+         * A computer or router was added.
+         */
+        SYSTEM_ADDED,
+        /**
+         * A computer or router was removed, together with its connections.
+         */
+        SYSTEM_REMOVED,
+        /**
+         * A connection was added.
+         */
+        CONNECTION_ADDED,
+        /**
+         * A connection was removed.
+         */
+        CONNECTION_REMOVED,
+        /**
+         * The weight of a connection changed.
+         */
+        CONNECTION_UPDATED,
+        /**
+         * The route of a router to a destination subnet changed.
+         */
+        ROUTE_CHANGED,
+        /**
+         * The whole network was replaced, so everything derived from it has to be rebuilt.
+         */
+        NETWORK_REPLACED
+    }
+}
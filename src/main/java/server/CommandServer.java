@@ -0,0 +1,167 @@
+package server;
+
+import commands.CommandHandler;
+import model.Network;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A server that lets several clients drive the same network over a local socket.
+ * Every client is handled on its own thread with its own {@link CommandHandler}, all sharing one {@link Network}.
+ * The protocol is line based: each request line is answered by a line with the number of output lines,
+ * followed by exactly that many lines, so a command without output is answered by "0" alone and reports such as
+ * the one of the stats command can span several lines. Clients may pipeline requests without waiting for replies;
+ * responses are written in request order and flushed once no further request is buffered.
+ */
+public class CommandServer implements Closeable {
+    private static final String QUIT = "quit";
+    private static final String VIRTUAL_EXECUTOR_FACTORY = "newVirtualThreadPerTaskExecutor";
+    private static final int BUFFER_SIZE = 1 << 16;
+    private final Network network;
+    private final ServerSocketChannel serverChannel;
+    private final ExecutorService clientExecutor;
+    private final Path socketPath;
+
+    private CommandServer(Network network, ServerSocketChannel serverChannel, Path socketPath) {
+        this.network = network;
+        this.serverChannel = serverChannel;
+        this.socketPath = socketPath;
+        this.clientExecutor = createClientExecutor();
+    }
+
+    /**
+     * Opens a server listening on the given TCP port of the loopback interface.
+     * @param network The network shared by all clients.
+     * @param port The port to listen on, or 0 for any free port.
+     * @return The opened server.
+     * @throws IOException if the socket cannot be opened.
+     */
+    public static CommandServer openTcp(Network network, int port) throws IOException {
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        channel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        return new CommandServer(network, channel, null);
+    }
+
+    /**
+     * Opens a server listening on a Unix domain socket at the given path.
+     * An existing socket file at that path is replaced.
+     * @param network The network shared by all clients.
+     * @param path The path of the socket file.
+     * @return The opened server.
+     * @throws IOException if the socket cannot be opened.
+     */
+    public static CommandServer openUnix(Network network, Path path) throws IOException {
+        Files.deleteIfExists(path);
+        ServerSocketChannel channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        channel.bind(UnixDomainSocketAddress.of(path));
+        return new CommandServer(network, channel, path);
+    }
+
+    /**
+     * Returns the address the server is listening on.
+     * @return The local address of the server.
+     * @throws IOException if the address cannot be determined.
+     */
+    public SocketAddress getAddress() throws IOException {
+        return serverChannel.getLocalAddress();
+    }
+
+    /**
+     * Accepts clients until the server is closed.
+     * @throws IOException if accepting a client fails for another reason than the server being closed.
+     */
+    public void serve() throws IOException {
+        try {
+            while (serverChannel.isOpen()) {
+                SocketChannel client = serverChannel.accept();
+                clientExecutor.execute(() -> handleClient(client));
+            }
+        } catch (ClosedChannelException e) {
+            // The server was closed, which ends the accept loop.
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverChannel.close();
+        clientExecutor.shutdownNow();
+        if (socketPath != null) {
+            Files.deleteIfExists(socketPath);
+        }
+    }
+
+    // Reads and answers the requests of a single client until it quits or disconnects.
+    private void handleClient(SocketChannel client) {
+        CommandHandler commandHandler = new CommandHandler(network);
+        try (client;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(
+                 Channels.newInputStream(client), StandardCharsets.UTF_8), BUFFER_SIZE);
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                 Channels.newOutputStream(client), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String input = line.trim();
+                writeResponse(writer, commandHandler.handleCommand(input));
+                if (input.equalsIgnoreCase(QUIT)) {
+                    break;
+                }
+                // Pipelined requests are answered in one write once the buffered input is drained.
+                if (!reader.ready()) {
+                    writer.flush();
+                }
+            }
+            writer.flush();
+        } catch (IOException e) {
+            // The client disconnected, nothing left to answer.
+        } finally {
+            // A transaction left open holds the write lock, so it is discarded with its session.
+            if (network.isInTransaction()) {
+                network.rollback();
+            }
+        }
+    }
+
+    // Writes the number of lines of the output before the lines themselves, so clients know where it ends.
+    private static void writeResponse(BufferedWriter writer, String response) throws IOException {
+        List<String> lines = response == null ? List.of() : response.lines().toList();
+        writer.write(Integer.toString(lines.size()));
+        writer.newLine();
+        for (String line : lines) {
+            writer.write(line);
+            writer.newLine();
+        }
+    }
+
+    // Uses a virtual thread per client where the runtime supports it, and a cached thread pool otherwise.
+    private static ExecutorService createClientExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod(VIRTUAL_EXECUTOR_FACTORY).invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
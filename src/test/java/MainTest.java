@@ -0,0 +1,76 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MainTest {
+    private static final String EXAMPLE = "src/main/resources/example1";
+    private static final String COMMANDS = "load network " + EXAMPLE + "\nlist subnets\nnot a command\nquit\n"
+        + "list subnets\n";
+    private static final long TIMEOUT_SECONDS = 30;
+
+    @TempDir
+    Path directory;
+
+    // Runs the program in its own process, as it reads the standard input and exits at its end.
+    private static List<String> run(String input, String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of(Path.of(System.getProperty("java.home"), "bin", "java")
+            .toString(), "-cp", "target/classes", "Main"));
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        try (OutputStream in = process.getOutputStream()) {
+            in.write(input.getBytes(StandardCharsets.UTF_8));
+        }
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(0, process.exitValue());
+        return output.lines().toList();
+    }
+
+    private static List<String> expectedOutput() throws IOException {
+        List<String> expected = new ArrayList<>(Files.readAllLines(Path.of(EXAMPLE)));
+        expected.add("10.0.0.0/16 172.16.0.0/24 192.168.1.0/24 192.168.100.0/24");
+        expected.add("Error, Unknown command.");
+        return expected;
+    }
+
+    @Test
+    public void testScriptRunsUntilQuit() throws IOException, InterruptedException {
+        Path script = Files.writeString(directory.resolve("commands.txt"), COMMANDS);
+
+        assertEquals(expectedOutput(), run("", "--script", script.toString()));
+    }
+
+    @Test
+    public void testStandardInputRunsAsBatchOnlyWhenAsked() throws IOException, InterruptedException {
+        assertEquals(expectedOutput(), run(COMMANDS, "--script", "-"));
+
+        List<String> expected = expectedOutput();
+        expected.add(0, "Sim started. Enter commands or type 'quit' to exit.");
+        assertEquals(expected, run(COMMANDS));
+        // The end of the piped input ends the program as well.
+        assertEquals(expected.subList(0, expected.size() - 2), run("load network " + EXAMPLE + "\n"));
+    }
+
+    @Test
+    public void testOpenTransactionDoesNotKeepTheJournalFromClosing() throws IOException, InterruptedException {
+        Path journal = directory.resolve("journal");
+        run("load network " + EXAMPLE + "\nbegin\nadd computer 10.0.0.0/16 10.0.0.99\n", "--journal",
+            journal.toString());
+
+        // The uncommitted computer was rolled back, and the loaded network was recovered from the journal.
+        List<String> output = run("list systems 10.0.0.0/16\nquit\n", "--journal", journal.toString());
+        assertEquals(2, output.size());
+        assertFalse(output.get(1).contains("10.0.0.99"));
+        assertTrue(output.get(1).contains("10.0.0.1"));
+    }
+}
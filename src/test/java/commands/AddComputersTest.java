@@ -0,0 +1,108 @@
+package commands;
+
+import model.Computer;
+import model.Network;
+import model.NetworkSnapshot;
+import model.Router;
+import model.Subnet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AddComputersTest {
+    private static final String ERROR_RANGE_NOT_IN_SUBNET = "Error, The address range is not in the specified subnet.";
+    private Network network;
+    private CommandHandler handler;
+    private Subnet subnet;
+
+    @BeforeEach
+    public void setUp() {
+        network = new Network();
+        subnet = new Subnet("10.0.1.0/24");
+        network.addSubnet(subnet);
+        network.addSystem(new Router("R1", "10.0.1.1", subnet));
+        handler = new CommandHandler(network);
+    }
+
+    @Test
+    public void testRangeMustLieInTheSubnet() {
+        assertEquals(ERROR_RANGE_NOT_IN_SUBNET, handler.handleCommand("add computers 10.0.1.0/24 10.0.1.250 10"));
+        assertEquals(ERROR_RANGE_NOT_IN_SUBNET, handler.handleCommand("add computers 10.0.1.0/24 10.0.0.250 10"));
+        assertEquals(ERROR_RANGE_NOT_IN_SUBNET, handler.handleCommand("add computers 10.0.1.0/24 10.0.0.0/16"));
+        // A range running past the last address must not wrap around to 0.0.0.0.
+        Subnet top = new Subnet("255.255.255.0/24");
+        network.addSubnet(top);
+        assertEquals(ERROR_RANGE_NOT_IN_SUBNET,
+            handler.handleCommand("add computers 255.255.255.0/24 255.255.255.250 10"));
+        assertEquals("Error, The number of computers must be a positive integer.",
+            handler.handleCommand("add computers 10.0.1.0/24 10.0.1.2 0"));
+        assertEquals(1, network.getSnapshot().getUsedAddressCount(subnet));
+        assertTrue(network.getSnapshot().getSystems(top).isEmpty());
+
+        assertNull(handler.handleCommand("add computers 10.0.1.0/24 10.0.1.245 10"));
+        assertEquals(11, network.getSnapshot().getUsedAddressCount(subnet));
+        assertNotNull(network.getSystemByIp("10.0.1.254"));
+    }
+
+    @Test
+    public void testRangeKeepsNetworkAndBroadcastAddressFree() {
+        String reserved = "Error, The address range includes the network or broadcast address of the subnet.";
+        assertEquals(reserved, handler.handleCommand("add computers 10.0.1.0/24 10.0.1.0 1"));
+        assertEquals(reserved, handler.handleCommand("add computers 10.0.1.0/24 10.0.1.250 6"));
+        assertEquals(1, network.getSnapshot().getUsedAddressCount(subnet));
+
+        // A subnet of two addresses has neither, so both can be used.
+        Subnet pair = new Subnet("10.0.2.0/31");
+        network.addSubnet(pair);
+        assertNull(handler.handleCommand("add computers 10.0.2.0/31 10.0.2.0 2"));
+        assertEquals(2, network.getSnapshot().getUsedAddressCount(pair));
+    }
+
+    @Test
+    public void testCollisionAddsNothing() {
+        network.addSystem(new Computer("10.0.1.7", subnet));
+        NetworkSnapshot before = network.getSnapshot();
+
+        assertEquals("Error, IP address 10.0.1.7 already exists in the network.",
+            handler.handleCommand("add computers 10.0.1.0/24 10.0.1.2 10"));
+        assertSame(before, network.getSnapshot());
+        assertNull(network.getSystemByIp("10.0.1.2"));
+        assertNull(network.getSystemByIp("10.0.1.11"));
+    }
+
+    @Test
+    public void testPrefixSkipsNetworkAndBroadcastAddress() {
+        network.addSystem(new Computer("10.0.1.100", subnet));
+
+        assertNull(handler.handleCommand("add computers 10.0.1.0/24 10.0.1.0/24"));
+        NetworkSnapshot snapshot = network.getSnapshot();
+        assertEquals(254, snapshot.getUsedAddressCount(subnet));
+        assertNull(snapshot.getSystemByIp("10.0.1.0"));
+        assertNull(snapshot.getSystemByIp("10.0.1.255"));
+        assertTrue(snapshot.getSystemByIp("10.0.1.1") instanceof Router);
+        assertNotNull(snapshot.getSystemByIp("10.0.1.254"));
+        assertEquals("Error, The prefix has no free host addresses.",
+            handler.handleCommand("add computers 10.0.1.0/24 10.0.1.128/25"));
+
+        // The upper half of the subnet keeps its broadcast address free, but not its own first address.
+        Subnet other = new Subnet("10.0.2.0/24");
+        network.addSubnet(other);
+        assertNull(handler.handleCommand("add computers 10.0.2.0/24 10.0.2.128/25"));
+        assertEquals(127, network.getSnapshot().getUsedAddressCount(other));
+        assertNotNull(network.getSystemByIp("10.0.2.128"));
+        assertNull(network.getSystemByIp("10.0.2.255"));
+    }
+
+    @Test
+    public void testBulkSizeIsCapped() {
+        Subnet large = new Subnet("12.0.0.0/7");
+        network.addSubnet(large);
+
+        assertEquals("Error, The address range is too large to add at once.",
+            handler.handleCommand("add computers 12.0.0.0/7 12.0.0.1 16777217"));
+        assertEquals("Error, The prefix is too large to fill at once.",
+            handler.handleCommand("add computers 12.0.0.0/7 12.0.0.0/7"));
+        assertTrue(network.getSnapshot().getSystems(large).isEmpty());
+    }
+}
@@ -0,0 +1,27 @@
+package commands;
+
+import model.Computer;
+import model.Network;
+import model.Router;
+import model.Subnet;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AddConnectionTest {
+
+    @Test
+    public void testNegativeWeightIsRejected() {
+        Network network = new Network();
+        Subnet subnet = new Subnet("10.0.1.0/24");
+        network.addSubnet(subnet);
+        network.addSystem(new Router("R1", "10.0.1.1", subnet));
+        network.addSystem(new Computer("10.0.1.2", subnet));
+        CommandHandler handler = new CommandHandler(network);
+
+        assertEquals("Error, The weight must be a non-negative integer.",
+            handler.handleCommand("add connection 10.0.1.1 10.0.1.2 -1"));
+        assertFalse(network.connectionExists(network.getSystemByIp("10.0.1.1"), network.getSystemByIp("10.0.1.2")));
+        assertNull(handler.handleCommand("add connection 10.0.1.1 10.0.1.2 0"));
+    }
+}
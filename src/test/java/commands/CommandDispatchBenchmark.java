@@ -0,0 +1,106 @@
+package commands;
+
+import model.Network;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Measures the cost of tokenising and dispatching command lines.
+ * It compares the keyword trie of the {@link CommandHandler} with the former approach of splitting with a
+ * regular expression and looking up the lower-cased keywords in a hash map.
+ * Run it with {@code java -cp target/classes:target/test-classes commands.CommandDispatchBenchmark}.
+ */
+public final class CommandDispatchBenchmark {
+    private static final String NETWORK_FILE = "src/main/resources/example1";
+    private static final String[] LINES = {
+        "send packet 192.168.1.6 192.168.100.5",
+        "list systems 10.0.0.0/16",
+        "list range 172.16.0.0/24",
+        "Add Connection 10.0.0.2 10.0.0.9 4",
+        "unknown command",
+    };
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+    private static final int LINES_PER_ROUND = 1_000_000;
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private CommandDispatchBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark.
+     * @param args not used.
+     */
+    public static void main(String[] args) {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Network network = new Network();
+        CommandHandler handler = new CommandHandler(network);
+        handler.handleCommand("load network " + NETWORK_FILE);
+        System.setOut(console);
+
+        Map<String, Command> map = new HashMap<>();
+        map.put("send packet", ignored -> null);
+        map.put("list systems", ignored -> null);
+        map.put("list range", ignored -> null);
+        map.put("add connection", ignored -> null);
+        CommandTrie trie = new CommandTrie();
+        map.forEach(trie::put);
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            runRegexDispatch(map);
+            runTrieDispatch(trie);
+        }
+        report("regex split + map lookup", () -> runRegexDispatch(map));
+        report("tokenizer + trie dispatch", () -> runTrieDispatch(trie));
+        report("full handleCommand", () -> runHandler(handler));
+    }
+
+    private static void report(String name, Runnable round) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            round.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-28s %8.1f ns/command %12.0f commands/s%n", name, (double) best / LINES_PER_ROUND,
+            LINES_PER_ROUND * NANOS_PER_SECOND / best);
+    }
+
+    private static int runRegexDispatch(Map<String, Command> map) {
+        int found = 0;
+        for (int i = 0; i < LINES_PER_ROUND; i++) {
+            String[] parts = LINES[i % LINES.length].trim().split("\\s+");
+            String main = parts[0].toLowerCase();
+            String sub = parts.length > 1 ? parts[1].toLowerCase() : "";
+            Command command = map.get(main + " " + sub);
+            if (command == null) {
+                command = map.get(main);
+            }
+            if (command != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static int runTrieDispatch(CommandTrie trie) {
+        int found = 0;
+        for (int i = 0; i < LINES_PER_ROUND; i++) {
+            if (trie.find(CommandArguments.parse(LINES[i % LINES.length])) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    // Only the first two lines are executed, as they leave the network unchanged.
+    private static void runHandler(CommandHandler handler) {
+        for (int i = 0; i < LINES_PER_ROUND; i++) {
+            handler.handleCommand(LINES[i & 1]);
+        }
+    }
+}
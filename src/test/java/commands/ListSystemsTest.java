@@ -0,0 +1,35 @@
+package commands;
+
+import model.Computer;
+import model.Network;
+import model.Router;
+import model.Subnet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ListSystemsTest {
+    private CommandHandler handler;
+
+    @BeforeEach
+    public void setUp() {
+        Network network = new Network();
+        Subnet subnet = new Subnet("10.0.1.0/24");
+        network.addSubnet(subnet);
+        network.addSystem(new Computer("10.0.1.2", subnet));
+        network.addSystem(new Computer("10.0.1.3", subnet));
+        network.addSystem(new Router("R1", "10.0.1.4", subnet));
+        network.addSystem(new Computer("10.0.1.5", subnet));
+        handler = new CommandHandler(network);
+    }
+
+    @Test
+    public void testPagesSkipOverTheRouter() {
+        assertEquals("10.0.1.4 10.0.1.2 10.0.1.3 10.0.1.5", handler.handleCommand("list systems 10.0.1.0/24"));
+        assertEquals("10.0.1.4 10.0.1.2", handler.handleCommand("list systems 10.0.1.0/24 0 2"));
+        assertEquals("10.0.1.3 10.0.1.5", handler.handleCommand("list systems 10.0.1.0/24 2 5"));
+        assertEquals("", handler.handleCommand("list systems 10.0.1.0/24 4 1"));
+        assertEquals("10.0.1.5", handler.handleCommand("list systems 10.0.1.0/24 3 " + Long.MAX_VALUE));
+    }
+}
@@ -0,0 +1,66 @@
+package helpers;
+
+import model.*;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FailureAnalysisTest {
+
+    @Test
+    public void testConnectionFailureMatchesRemovedConnection() {
+        Network network = new Network();
+        Subnet subnet = new Subnet("10.2.0.0/24");
+        network.addSubnet(subnet);
+        Random random = new Random(5);
+        List<Computer> computers = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            computers.add(new Computer(0x0a020000 + i + 1, subnet));
+        }
+        network.addSystems(subnet, computers);
+        for (int i = 1; i < computers.size(); i++) {
+            network.addConnection(new Connection(computers.get(i), computers.get(random.nextInt(i)), random.nextInt(8)));
+            if (random.nextBoolean()) {
+                int other = random.nextInt(i);
+                if (!network.connectionExists(computers.get(i), computers.get(other))) {
+                    network.addConnection(new Connection(computers.get(i), computers.get(other), random.nextInt(8)));
+                }
+            }
+        }
+        NetworkSnapshot before = network.getSnapshot();
+        FailureAnalysis analysis = new FailureAnalysis(before);
+
+        for (Connection connection : before.getConnections()) {
+            FailureAnalysis.Impact impact = analysis.analyzeConnection(connection);
+            network.removeConnection(connection.getSystem1(), connection.getSystem2());
+            SubnetGraph beforeGraph = before.getSubnetGraph(subnet);
+            SubnetGraph afterGraph = network.getSnapshot().getSubnetGraph(subnet);
+            long lost = 0;
+            long longer = 0;
+            long increase = 0;
+            for (int source = 0; source < beforeGraph.size(); source++) {
+                ShortestPathTree expectedBefore = ShortestPathTree.compute(beforeGraph, source);
+                ShortestPathTree expectedAfter = ShortestPathTree.compute(afterGraph, source);
+                for (int target = source + 1; target < beforeGraph.size(); target++) {
+                    int distanceBefore = expectedBefore.getDistance(target);
+                    int distanceAfter = expectedAfter.getDistance(target);
+                    if (distanceBefore == ShortestPathTree.UNREACHABLE) {
+                        continue;
+                    }
+                    if (distanceAfter == ShortestPathTree.UNREACHABLE) {
+                        lost++;
+                    } else if (distanceAfter > distanceBefore) {
+                        longer++;
+                        increase += distanceAfter - distanceBefore;
+                    }
+                }
+            }
+            assertEquals(lost, impact.getLostPairs());
+            assertEquals(longer, impact.getLongerPairs());
+            assertEquals(increase, impact.getCostIncrease());
+            network.addConnection(connection);
+        }
+    }
+}
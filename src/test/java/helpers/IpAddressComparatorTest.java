@@ -0,0 +1,49 @@
+package helpers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IpAddressComparatorTest {
+
+    @Test
+    public void testKeysOrderByUnsignedAddressThenPrefix() {
+        assertTrue(IpAddressComparator.compareSubnetCIDRs("10.0.0.0/8", "10.0.0.0/16") < 0);
+        assertTrue(IpAddressComparator.compareSubnetCIDRs("127.255.0.0/16", "128.0.0.0/8") < 0);
+        assertTrue(IpAddressComparator.compareIpAddresses("9.0.0.1", "10.0.0.1") < 0);
+        assertTrue(IpAddressComparator.compareIpAddresses("192.168.1.2", "192.168.1.10") < 0);
+        assertEquals(0, IpAddressComparator.compareIpAddresses("255.255.255.255", "255.255.255.255"));
+        assertEquals(IpAddressComparator.cidrKey("192.168.0.0/24"),
+            IpAddressComparator.sortKey((int) IpAddress.parse("192.168.0.0"), 24));
+    }
+
+    @Test
+    public void testInvalidTextHasInvalidKey() {
+        assertEquals(IpAddressComparator.INVALID_KEY, IpAddressComparator.cidrKey("10.0.0.0"));
+        assertEquals(IpAddressComparator.INVALID_KEY, IpAddressComparator.cidrKey("10.0.0.0/"));
+        assertEquals(IpAddressComparator.INVALID_KEY, IpAddressComparator.cidrKey("10.0.0.0/33"));
+        assertEquals(IpAddressComparator.INVALID_KEY, IpAddressComparator.cidrKey("10.0.0/8"));
+        assertEquals(IpAddressComparator.INVALID_KEY, IpAddressComparator.addressKey("10.0.0.256"));
+    }
+
+    @Test
+    public void testSortByKeyIsStableAndMatchesComparator() {
+        List<String> cidrs = new LinkedList<>(List.of("200.0.0.0/8", "10.0.0.0/16", "10.0.0.0/8", "128.0.0.0/1",
+            "0.0.0.0/0", "10.0.0.0/16", "255.255.255.255/32"));
+        List<String> expected = new ArrayList<>(cidrs);
+        expected.sort(IpAddressComparator::compareSubnetCIDRs);
+        IpAddressComparator.sortByKey(cidrs, IpAddressComparator::cidrKey);
+        assertEquals(expected, cidrs);
+
+        List<String> equalKeys = new ArrayList<>(List.of("b", "a", "c"));
+        IpAddressComparator.sortByKey(equalKeys, ignored -> 0L);
+        assertEquals(List.of("b", "a", "c"), equalKeys);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> IpAddressComparator.sortByKey(new ArrayList<>(List.of("x")), IpAddressComparator::cidrKey));
+    }
+}
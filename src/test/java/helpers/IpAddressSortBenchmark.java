@@ -0,0 +1,81 @@
+package helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Measures the cost of sorting CIDRs.
+ * It compares the former comparator, which split both CIDRs with regular expressions on every comparison, with
+ * comparing packed keys on every comparison and with sorting precomputed keys as primitives.
+ * Run it with {@code java -cp target/classes:target/test-classes helpers.IpAddressSortBenchmark}.
+ */
+public final class IpAddressSortBenchmark {
+    private static final int SIZE = 100_000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+    private static final int OCTET_RANGE = 256;
+    private static final int MAX_PREFIX_LENGTH = 32;
+    private static final long SEED = 42L;
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private IpAddressSortBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark.
+     * @param args not used.
+     */
+    public static void main(String[] args) {
+        Random random = new Random(SEED);
+        List<String> cidrs = new ArrayList<>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            cidrs.add(random.nextInt(OCTET_RANGE) + "." + random.nextInt(OCTET_RANGE) + "."
+                + random.nextInt(OCTET_RANGE) + "." + random.nextInt(OCTET_RANGE) + "/"
+                + random.nextInt(MAX_PREFIX_LENGTH + 1));
+        }
+        List<String> expected = new ArrayList<>(cidrs);
+        expected.sort(IpAddressSortBenchmark::compareBySplitting);
+        List<String> actual = new ArrayList<>(cidrs);
+        IpAddressComparator.sortByKey(actual, IpAddressComparator::cidrKey);
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException("Error, the sort orders differ.");
+        }
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            new ArrayList<>(cidrs).sort(IpAddressSortBenchmark::compareBySplitting);
+            new ArrayList<>(cidrs).sort(IpAddressComparator::compareSubnetCIDRs);
+            IpAddressComparator.sortByKey(new ArrayList<>(cidrs), IpAddressComparator::cidrKey);
+        }
+        report("regex split comparator", cidrs, list -> list.sort(IpAddressSortBenchmark::compareBySplitting));
+        report("packed key comparator", cidrs, list -> list.sort(IpAddressComparator::compareSubnetCIDRs));
+        report("primitive key sort", cidrs, list -> IpAddressComparator.sortByKey(list, IpAddressComparator::cidrKey));
+    }
+
+    private static void report(String name, List<String> cidrs, Consumer<List<String>> sort) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            List<String> copy = new ArrayList<>(cidrs);
+            long start = System.nanoTime();
+            sort.accept(copy);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-24s %8.1f ms for %d CIDRs%n", name, best / NANOS_PER_MILLI, cidrs.size());
+    }
+
+    // The former implementation of the comparator.
+    private static int compareBySplitting(String cidr1, String cidr2) {
+        String[] parts1 = cidr1.split("\\.|/");
+        String[] parts2 = cidr2.split("\\.|/");
+        String[] octets1 = String.join(".", parts1[0], parts1[1], parts1[2], parts1[3]).split("\\.");
+        String[] octets2 = String.join(".", parts2[0], parts2[1], parts2[2], parts2[3]).split("\\.");
+        for (int i = 0; i < octets1.length; i++) {
+            int comparison = Integer.compare(Integer.parseInt(octets1[i]), Integer.parseInt(octets2[i]));
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(Integer.parseInt(parts1[4]), Integer.parseInt(parts2[4]));
+    }
+}
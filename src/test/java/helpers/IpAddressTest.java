@@ -0,0 +1,28 @@
+package helpers;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IpAddressTest {
+
+    @Test
+    public void testParseAndFormat() {
+        long address = IpAddress.parse("192.168.1.254");
+        assertEquals(0xC0A801FEL, address);
+        assertEquals("192.168.1.254", IpAddress.format((int) address));
+        assertEquals("0.0.0.0", IpAddress.format((int) IpAddress.parse("0.0.0.0")));
+        assertEquals("255.255.255.255", IpAddress.format((int) IpAddress.parse("255.255.255.255")));
+    }
+
+    @Test
+    public void testParseRejectsInvalidAddresses() {
+        assertEquals(IpAddress.INVALID, IpAddress.parse("256.0.0.1"));
+        assertEquals(IpAddress.INVALID, IpAddress.parse("1.2.3"));
+        assertEquals(IpAddress.INVALID, IpAddress.parse("1.2.3.4.5"));
+        assertEquals(IpAddress.INVALID, IpAddress.parse("1..2.3"));
+        assertEquals(IpAddress.INVALID, IpAddress.parse("1.2.3.4 "));
+        assertEquals(IpAddress.INVALID, IpAddress.parse("a.b.c.d"));
+        assertEquals(IpAddress.INVALID, IpAddress.parse("1000.1.1.1"));
+        assertEquals(IpAddress.INVALID, IpAddress.parse(""));
+    }
+}
@@ -0,0 +1,93 @@
+package helpers;
+
+import model.Network;
+import model.Router;
+import model.SubnetGraph;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NetworkDeltaTest {
+    private static final String EXAMPLE = "src/main/resources/example1";
+
+    @TempDir
+    Path directory;
+
+    private static Set<String> describe(Network network) {
+        return new HashSet<>(NetworkWriter.toLines(network.getSnapshot()));
+    }
+
+    private Network reload(Network network, List<String> lines) throws IOException {
+        Path file = directory.resolve("target.txt");
+        Files.write(file, lines);
+        Network target = new NetworkLoader().loadNetwork(file.toString());
+        NetworkDelta.between(network.getSnapshot(), target.getSnapshot()).applyTo(network);
+        return target;
+    }
+
+    @Test
+    public void testWeightChangeKeepsOtherSubnetsAndRouting() throws IOException {
+        Network network = new NetworkLoader().loadNetwork(EXAMPLE);
+        SubnetGraph untouched = network.getSnapshot().getSubnetGraph(network.getSubnetByCidr("10.0.0.0/16"));
+        long convergences = network.getStatistics().getCount(Statistics.BGP_CONVERGENCE);
+        List<String> lines = new ArrayList<>(Files.readAllLines(Path.of(EXAMPLE)));
+        lines.replaceAll(line -> line.replace("A_Router <-->|7| A_PC1", "A_Router <-->|70| A_PC1"));
+
+        Network target = reload(network, lines);
+        assertEquals(describe(target), describe(network));
+        assertSame(untouched, network.getSnapshot().getSubnetGraph(network.getSubnetByCidr("10.0.0.0/16")));
+        assertEquals(convergences, network.getStatistics().getCount(Statistics.BGP_CONVERGENCE));
+    }
+
+    @Test
+    public void testStructuralChangesMatchTheFile() throws IOException {
+        Network network = new NetworkLoader().loadNetwork(EXAMPLE);
+        List<String> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(Path.of(EXAMPLE))) {
+            // Drop the subnet C with its router, and one computer of subnet A.
+            if (!line.contains("C_") && !line.contains("172.16.0.0") && !line.contains("A_PC5")) {
+                lines.add(line);
+            }
+        }
+        // A larger subnet with the same network address takes its place after the last subgraph.
+        int end = lines.lastIndexOf("    end");
+        lines.addAll(end + 1, List.of("    subgraph 172.16.0.0/16", "        E_Router[172.16.0.1]",
+            "        E_PC1[172.16.0.2]", "        E_Router <-->|3| E_PC1", "    end"));
+        lines.add("    E_Router <--> D_Router");
+
+        Network target = reload(network, lines);
+        assertEquals(describe(target), describe(network));
+        assertNull(network.getSystemByIp("192.168.1.6"));
+        Router router = (Router) network.getSystemByIp("192.168.1.1");
+        assertTrue(network.getSnapshot().getRoutingTable(router).containsKey("172.16.0.0/16"));
+        assertFalse(network.getSnapshot().getRoutingTable(router).containsKey("172.16.0.0/24"));
+    }
+
+    @Test
+    public void testFailedChangeRollsBack() throws IOException {
+        Network network = new NetworkLoader().loadNetwork(EXAMPLE);
+        List<String> lines = new ArrayList<>(Files.readAllLines(Path.of(EXAMPLE)));
+        lines.replaceAll(line -> line.replace("A_Router <-->|7| A_PC1", "A_Router <-->|70| A_PC1"));
+        lines.add(lines.indexOf("        A_PC1 <-->|1| A_PC5") + 1, "        A_PC3 <-->|4| A_PC5");
+        Path file = directory.resolve("target.txt");
+        Files.write(file, lines);
+        Network target = new NetworkLoader().loadNetwork(file.toString());
+        NetworkDelta delta = NetworkDelta.between(network.getSnapshot(), target.getSnapshot());
+        // The delta no longer matches the network, so the connection to the removed system cannot be added.
+        network.removeSystem(network.getSystemByIp("192.168.1.4"));
+        Set<String> before = describe(network);
+
+        assertThrows(RuntimeException.class, () -> delta.applyTo(network));
+        assertFalse(network.isInTransaction());
+        assertEquals(before, describe(network));
+    }
+}
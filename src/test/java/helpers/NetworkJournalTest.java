@@ -0,0 +1,116 @@
+package helpers;
+
+import model.Computer;
+import model.Connection;
+import model.Network;
+import model.Router;
+import model.Subnet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NetworkJournalTest {
+    @TempDir
+    Path directory;
+
+    // Builds two subnets with their routers and changes them in every way the journal records.
+    private static void change(Network network) {
+        Subnet subnet1 = new Subnet("10.0.1.0/24");
+        Subnet subnet2 = new Subnet("10.0.2.0/24");
+        network.addSubnet(subnet1);
+        network.addSubnet(subnet2);
+        Router r1 = new Router("R1_Router", "10.0.1.1", subnet1);
+        Router r2 = new Router("R2_Router", "10.0.2.1", subnet2);
+        network.addSystem(r1);
+        network.addSystem(r2);
+        network.addConnection(new Connection(r1, r2, null));
+        for (int i = 2; i < 20; i++) {
+            Computer computer = new Computer("10.0.1." + i, subnet1);
+            network.addSystem(computer);
+            network.addConnection(new Connection(r1, computer, i));
+        }
+        network.updateConnection(r1, network.getSystemByIp("10.0.1.5"), 42);
+        network.removeConnection(r1, network.getSystemByIp("10.0.1.6"));
+        network.removeSystem(network.getSystemByIp("10.0.1.7"));
+    }
+
+    private static Set<String> describe(Network network) {
+        return new HashSet<>(NetworkWriter.toLines(network.getSnapshot()));
+    }
+
+    @Test
+    public void testRecoveryRestoresSnapshotAndJournal() throws IOException {
+        Network network = new Network();
+        // A small limit forces new snapshots in between the changes.
+        NetworkJournal journal = NetworkJournal.open(directory, network, 256);
+        change(network);
+        journal.close();
+
+        Network recovered = new Network();
+        NetworkJournal.open(directory, recovered).close();
+        assertEquals(describe(network), describe(recovered));
+        Router router = (Router) recovered.getSystemByIp("10.0.1.1");
+        assertTrue(recovered.getSnapshot().getRoutingTable(router).containsKey("10.0.2.0/24"));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    public void testTornRecordEndsReplay() throws IOException {
+        Network network = new Network();
+        NetworkJournal journal = NetworkJournal.open(directory, network);
+        change(network);
+        journal.close();
+        Path log;
+        try (Stream<Path> files = Files.list(directory)) {
+            log = files.filter(file -> file.toString().endsWith(".log")).findFirst().orElseThrow();
+        }
+        // A crash in the middle of a record leaves its beginning behind.
+        Files.write(log, new byte[] {0, 0, 0, 20, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        Network recovered = new Network();
+        NetworkJournal.open(directory, recovered).close();
+        assertEquals(describe(network), describe(recovered));
+        // Recovery starts a new generation, so the torn record is never appended to.
+        assertFalse(Files.exists(log));
+    }
+
+    @Test
+    public void testChangesAreOnDiskOnceDurable() throws IOException {
+        Network network = new Network();
+        NetworkJournal journal = NetworkJournal.open(directory.resolve("live"), network);
+        change(network);
+        assertNull(network.awaitDurable());
+        // The files are copied while the journal is still open, as a crash would leave them.
+        Path copy = Files.createDirectory(directory.resolve("copy"));
+        try (Stream<Path> files = Files.list(directory.resolve("live"))) {
+            for (Path file : files.toList()) {
+                Files.copy(file, copy.resolve(file.getFileName()));
+            }
+        }
+        journal.close();
+
+        Network recovered = new Network();
+        NetworkJournal.open(copy, recovered).close();
+        assertEquals(describe(network), describe(recovered));
+    }
+
+    @Test
+    public void testCorruptSnapshotNamesTheReason() throws IOException {
+        Files.writeString(directory.resolve("snapshot-1.txt"), "graph\n    A_PC1[10.0.0.2]\n");
+
+        IOException e = assertThrows(IOException.class, () -> NetworkJournal.open(directory, new Network()));
+        assertTrue(e.getMessage().startsWith("Error, Corrupt journal snapshot: "));
+        assertTrue(e.getMessage().endsWith(": Error, system outside subnet: A_PC1[10.0.0.2]"), e.getMessage());
+    }
+}
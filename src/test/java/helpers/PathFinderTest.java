@@ -3,7 +3,10 @@
 import model.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class PathFinderTest {
@@ -22,10 +25,6 @@ public void setUp() {
         c2 = new Computer("C2", "192.168.1.2", subnet1);
         c3 = new Computer("C3", "192.168.1.3", subnet1);
 
-        subnet1.addSystem(c1);
-        subnet1.addSystem(c2);
-        subnet1.addSystem(c3);
-
         network.addSystem(c1);
         network.addSystem(c2);
         network.addSystem(c3);
@@ -64,4 +63,187 @@ public void testNoPath() {
         List<SystemNode> path = pathFinder.findShortestPath(c1, c2);
         assertTrue(path.isEmpty());
     }
+
+    @Test
+    public void testReachabilityFollowsConnectionChanges() {
+        assertFalse(pathFinder.isReachable(network.getSnapshot(), c1, c2));
+        network.addConnection(new Connection(c1, c2, 10));
+        assertTrue(pathFinder.isReachable(network.getSnapshot(), c1, c2));
+        assertFalse(pathFinder.isReachable(network.getSnapshot(), c1, c3));
+        network.addConnection(new Connection(c2, c3, 10));
+        network.updateConnection(c2, c3, 5);
+        assertTrue(pathFinder.isReachable(network.getSnapshot(), c1, c3));
+        network.removeConnection(c1, c2);
+        assertFalse(pathFinder.isReachable(network.getSnapshot(), c1, c3));
+        assertTrue(pathFinder.findShortestPath(c1, c3).isEmpty());
+        assertEquals(2, pathFinder.findShortestPath(c2, c3).size());
+    }
+
+    @Test
+    public void testAllAlgorithmsFindPathsOfEqualCost() {
+        Network large = new Network();
+        Subnet subnet = new Subnet("10.0.0.0/16");
+        large.addSubnet(subnet);
+        Random random = new Random(7);
+        int size = 400;
+        List<Computer> computers = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            computers.add(new Computer(0x0a000000 + i + 1, subnet));
+        }
+        large.addSystems(subnet, computers);
+        for (int i = 1; i < size; i++) {
+            // A random spanning tree plus extra edges keeps the graph connected but irregular.
+            large.addConnection(new Connection(computers.get(i), computers.get(random.nextInt(i)), 1 + random.nextInt(20)));
+            int other = random.nextInt(size);
+            if (other != i && !large.connectionExists(computers.get(i), computers.get(other))) {
+                large.addConnection(new Connection(computers.get(i), computers.get(other), 1 + random.nextInt(20)));
+            }
+        }
+
+        PathFinder finder = new PathFinder(large);
+        NetworkSnapshot snapshot = large.getSnapshot();
+        ContractionHierarchy.preprocess(snapshot);
+        assertNotNull(ContractionHierarchy.getIfPresent(snapshot, subnet));
+        for (int query = 0; query < 200; query++) {
+            Computer source = computers.get(random.nextInt(size));
+            Computer destination = computers.get(random.nextInt(size));
+            int expected = cost(snapshot, finder.findShortestPath(snapshot, source, destination,
+                SearchAlgorithm.DIJKSTRA));
+            for (SearchAlgorithm algorithm : SearchAlgorithm.values()) {
+                List<SystemNode> path = finder.findShortestPath(snapshot, source, destination, algorithm);
+                assertEquals(source, path.get(0));
+                assertEquals(destination, path.get(path.size() - 1));
+                assertEquals(expected, cost(snapshot, path), algorithm.name());
+            }
+        }
+    }
+
+    @Test
+    public void testHierarchyOfHubsAndSmallSubnets() {
+        Network hubs = new Network();
+        Subnet subnet = new Subnet("10.2.0.0/16");
+        hubs.addSubnet(subnet);
+        Random random = new Random(13);
+        int size = 600;
+        List<Computer> computers = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            computers.add(new Computer(0x0a020000 + i + 1, subnet));
+        }
+        hubs.addSystems(subnet, computers);
+        // A ring of cheap connections, and two hubs connected to everything with varying weights.
+        for (int i = 2; i < size; i++) {
+            int next = i + 1 < size ? i + 1 : 2;
+            hubs.addConnection(new Connection(computers.get(i), computers.get(next), 1 + random.nextInt(5)));
+            hubs.addConnection(new Connection(computers.get(0), computers.get(i), 1 + random.nextInt(50)));
+            hubs.addConnection(new Connection(computers.get(1), computers.get(i), 1 + random.nextInt(50)));
+        }
+
+        NetworkSnapshot snapshot = hubs.getSnapshot();
+        ContractionHierarchy.preprocess(snapshot);
+        assertNotNull(ContractionHierarchy.getIfPresent(snapshot, subnet));
+        // Dijkstra is fast enough for small subnets, so they are not preprocessed.
+        ContractionHierarchy.preprocess(network.getSnapshot());
+        assertNull(ContractionHierarchy.getIfPresent(network.getSnapshot(), subnet1));
+        PathFinder finder = new PathFinder(hubs);
+        for (int query = 0; query < 200; query++) {
+            Computer source = computers.get(random.nextInt(size));
+            Computer destination = computers.get(random.nextInt(size));
+            assertEquals(cost(snapshot, finder.findShortestPath(snapshot, source, destination,
+                SearchAlgorithm.DIJKSTRA)), cost(snapshot, finder.findShortestPath(snapshot, source, destination,
+                SearchAlgorithm.CH)));
+        }
+    }
+
+    @Test
+    public void testRepairedRouterTreeMatchesRecomputedTree() {
+        Network dynamic = new Network();
+        Subnet subnet = new Subnet("10.1.0.0/16");
+        dynamic.addSubnet(subnet);
+        Router router = new Router("R", "10.1.0.1", subnet);
+        dynamic.addSystem(router);
+        Random random = new Random(11);
+        List<SystemNode> systems = new ArrayList<>();
+        systems.add(router);
+        List<Computer> computers = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            computers.add(new Computer(0x0a010000 + i + 2, subnet));
+        }
+        dynamic.addSystems(subnet, computers);
+        systems.addAll(computers);
+        for (int i = 1; i < systems.size(); i++) {
+            dynamic.addConnection(new Connection(systems.get(i), systems.get(random.nextInt(i)), random.nextInt(10)));
+        }
+        ShortestPathTree.ofRouter(dynamic.getSnapshot().getSubnetGraph(subnet));
+
+        for (int step = 0; step < 300; step++) {
+            SystemNode first = systems.get(random.nextInt(systems.size()));
+            SystemNode second = systems.get(random.nextInt(systems.size()));
+            if (first == second) {
+                continue;
+            }
+            // Weight changes in both directions, removals and insertions, including zero weights.
+            if (!dynamic.connectionExists(first, second)) {
+                dynamic.addConnection(new Connection(first, second, random.nextInt(10)));
+            } else if (random.nextInt(4) == 0) {
+                dynamic.removeConnection(first, second);
+            } else {
+                dynamic.updateConnection(first, second, random.nextInt(10));
+            }
+            SubnetGraph graph = dynamic.getSnapshot().getSubnetGraph(subnet);
+            assertNotNull(graph.getChange());
+            ShortestPathTree repaired = ShortestPathTree.ofRouter(graph);
+            ShortestPathTree expected = ShortestPathTree.compute(graph, graph.getRouterIndex());
+            for (int node = 0; node < graph.size(); node++) {
+                assertEquals(expected.getDistance(node), repaired.getDistance(node));
+                int parent = repaired.getParent(node);
+                if (parent != ShortestPathTree.NO_PARENT) {
+                    Connection connection = dynamic.getSnapshot().findConnection(graph.getNode(parent),
+                        graph.getNode(node));
+                    assertEquals(repaired.getDistance(node), repaired.getDistance(parent) + connection.getWeight());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPinnedSnapshotKeepsItsRouters() {
+        Network routed = new Network();
+        Subnet first = new Subnet("10.0.1.0/24");
+        Subnet second = new Subnet("10.0.2.0/24");
+        routed.addSubnet(first);
+        routed.addSubnet(second);
+        Router r1 = new Router("R1", "10.0.1.1", first);
+        Router r2 = new Router("R2", "10.0.2.1", second);
+        Computer pc1 = new Computer("10.0.1.2", first);
+        Computer pc2 = new Computer("10.0.2.2", second);
+        for (SystemNode system : List.of(r1, r2, pc1, pc2)) {
+            routed.addSystem(system);
+        }
+        routed.addConnection(new Connection(r1, pc1, 1));
+        routed.addConnection(new Connection(r2, pc2, 1));
+        routed.addConnection(new Connection(r1, r2, null));
+        NetworkSnapshot pinned = routed.getSnapshot();
+
+        // Another router takes over the second subnet after the snapshot was pinned.
+        routed.begin();
+        routed.removeSystem(r2);
+        routed.addSystem(new Router("R3", "10.0.2.3", second));
+        routed.commit();
+
+        List<SystemNode> expected = List.of(pc1, r1, r2, pc2);
+        assertEquals(expected, new PathFinder(routed).findShortestPath(pinned, pc1, pc2));
+        TrafficSimulator.Result result = new TrafficSimulator(routed)
+            .simulate(pinned, List.of(new TrafficSimulator.Demand(pc1, pc2, 5)));
+        assertEquals(5, result.getRoutedVolume());
+        assertEquals(List.of(5L, 5L), result.getHottestRouters(2).stream().map(Map.Entry::getValue).toList());
+        assertTrue(new PathFinder(routed).findShortestPath(pc1, pc2).isEmpty());
+    }
+
+    private static int cost(NetworkSnapshot snapshot, List<SystemNode> path) {
+        int cost = 0;
+        for (int i = 1; i < path.size(); i++) {
+            cost += snapshot.findConnection(path.get(i - 1), path.get(i)).getWeight();
+        }
+        return cost;
+    }
 }
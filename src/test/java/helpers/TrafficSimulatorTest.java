@@ -0,0 +1,89 @@
+package helpers;
+
+import model.Computer;
+import model.Connection;
+import model.Network;
+import model.NetworkSnapshot;
+import model.Router;
+import model.SystemNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrafficSimulatorTest {
+    private static final String EXAMPLE = "src/main/resources/example1";
+    private Network network;
+    private NetworkSnapshot snapshot;
+
+    @BeforeEach
+    public void setUp() {
+        network = new NetworkLoader().loadNetwork(EXAMPLE);
+        // A computer without connections, which no flow can reach.
+        network.addSystem(new Computer("10.0.0.50", network.getSubnetByCidr("10.0.0.0/16")));
+        snapshot = network.getSnapshot();
+    }
+
+    private static <K> Map<K, Long> toMap(List<Map.Entry<K, Long>> entries) {
+        Map<K, Long> map = new HashMap<>();
+        for (Map.Entry<K, Long> entry : entries) {
+            map.put(entry.getKey(), entry.getValue());
+        }
+        return map;
+    }
+
+    @Test
+    public void testLoadsFollowTheShortestPaths() {
+        List<TrafficSimulator.Demand> demands = List.of(
+            new TrafficSimulator.Demand(snapshot.getSystemByIp("192.168.1.4"), snapshot.getSystemByIp("10.0.0.3"), 3),
+            new TrafficSimulator.Demand(snapshot.getSystemByIp("192.168.1.6"), snapshot.getSystemByIp("192.168.1.5"), 5),
+            new TrafficSimulator.Demand(snapshot.getSystemByIp("172.16.0.4"), snapshot.getSystemByIp("192.168.100.5"), 7),
+            new TrafficSimulator.Demand(snapshot.getSystemByIp("192.168.1.2"), snapshot.getSystemByIp("10.0.0.50"), 11));
+
+        PathFinder pathFinder = new PathFinder(network);
+        Map<Connection, Long> expectedLinks = new HashMap<>();
+        Map<Router, Long> expectedRouters = new HashMap<>();
+        for (TrafficSimulator.Demand demand : demands) {
+            List<SystemNode> path = pathFinder.findShortestPath(snapshot, demand.getSource(), demand.getDestination());
+            for (int i = 0; i < path.size(); i++) {
+                if (path.get(i) instanceof Router router) {
+                    expectedRouters.merge(router, demand.getVolume(), Long::sum);
+                }
+                if (i > 0) {
+                    expectedLinks.merge(snapshot.findConnection(path.get(i - 1), path.get(i)), demand.getVolume(),
+                        Long::sum);
+                }
+            }
+        }
+
+        TrafficSimulator.Result result = new TrafficSimulator(network).simulate(snapshot, demands);
+        assertEquals(15, result.getRoutedVolume());
+        assertEquals(11, result.getUnroutedVolume());
+        assertEquals(expectedLinks, toMap(result.getHottestLinks(Integer.MAX_VALUE)));
+        assertEquals(expectedRouters, toMap(result.getHottestRouters(Integer.MAX_VALUE)));
+        // The flows from A to B and from C to D pass all four routers.
+        assertEquals(4, expectedRouters.size());
+    }
+
+    @Test
+    public void testSeededFlowsRepeat() {
+        TrafficSimulator simulator = new TrafficSimulator(network);
+        long searches = network.getStatistics().getCount(Statistics.DIJKSTRA);
+        TrafficSimulator.Result first = simulator.simulate(snapshot, 2000, 42);
+        TrafficSimulator.Result second = simulator.simulate(snapshot, 2000, 42);
+
+        // The single queries of a simulation are not timed.
+        assertEquals(searches, network.getStatistics().getCount(Statistics.DIJKSTRA));
+
+        assertEquals(2000, first.getRoutedVolume() + first.getUnroutedVolume());
+        assertTrue(first.getUnroutedVolume() > 0);
+        assertEquals(first.getRoutedVolume(), second.getRoutedVolume());
+        assertEquals(first.getHottestLinks(Integer.MAX_VALUE), second.getHottestLinks(Integer.MAX_VALUE));
+        assertEquals(first.getHottestRouters(Integer.MAX_VALUE), second.getHottestRouters(Integer.MAX_VALUE));
+        assertEquals(first.getHottestLinks(3), first.getHottestLinks(Integer.MAX_VALUE).subList(0, 3));
+    }
+}
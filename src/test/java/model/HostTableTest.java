@@ -0,0 +1,127 @@
+package model;
+
+import helpers.IpAddress;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HostTableTest {
+
+    @Test
+    public void testViewKeepsItsStateAndUnsignedOrder() {
+        Subnet subnet = new Subnet("0.0.0.0/0");
+        Computer high = new Computer("200.0.0.1", subnet);
+        Computer low = new Computer("10.0.0.1", subnet);
+        HostTable table = HostTable.empty().with(high);
+        List<SystemNode> before = table.view();
+        HostTable both = table.with(low);
+
+        assertEquals(List.of(high), before);
+        assertEquals(List.of(low, high), both.view());
+        HostTable remaining = both.without(high);
+        assertSame(remaining, remaining.without(high));
+        assertEquals(List.of(low), remaining.view());
+        assertTrue(before.contains(high));
+        assertTrue(both.contains(high));
+    }
+
+    @Test
+    public void testMatchesTreeMap() {
+        Subnet subnet = new Subnet("10.0.0.0/8");
+        Random random = new Random(7);
+        TreeMap<Long, SystemNode> expected = new TreeMap<>();
+        HostTable table = HostTable.empty();
+        List<HostTable> kept = new ArrayList<>();
+        List<List<SystemNode>> keptExpected = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            if (i % 1000 == 0) {
+                kept.add(table);
+                keptExpected.add(new ArrayList<>(expected.values()));
+            }
+            int address = 0x0a000000 | random.nextInt(3000);
+            int operation = random.nextInt(4);
+            if (operation == 0) {
+                SystemNode existing = expected.remove(IpAddress.toUnsigned(address));
+                if (existing != null) {
+                    HostTable next = table.without(existing);
+                    assertNotSame(table, next);
+                    table = next;
+                }
+            } else if (operation == 1) {
+                List<Computer> batch = new ArrayList<>();
+                for (int j = 0; j < 5; j++) {
+                    Computer added = new Computer(IpAddress.format(0x0a000000 | random.nextInt(3000)), subnet);
+                    batch.add(added);
+                    expected.put(IpAddress.toUnsigned(added.getAddress()), added);
+                }
+                table = table.withAll(batch);
+            } else {
+                Computer computer = new Computer(IpAddress.format(address), subnet);
+                table = table.with(computer);
+                expected.put(IpAddress.toUnsigned(address), computer);
+            }
+        }
+        assertEquals(new ArrayList<>(expected.values()), table.view());
+        assertEquals(expected.size(), table.size());
+        // Every earlier version still holds exactly the systems it had.
+        for (int i = 0; i < kept.size(); i++) {
+            assertEquals(keptExpected.get(i), kept.get(i).view());
+        }
+    }
+
+    @Test
+    public void testRemovingEverythingShrinksTheTree() {
+        Subnet subnet = new Subnet("10.0.0.0/16");
+        List<Computer> computers = new ArrayList<>();
+        for (int i = 1; i <= 5000; i++) {
+            computers.add(new Computer(IpAddress.format(0x0a000000 | i), subnet));
+        }
+        HostTable table = HostTable.empty().withAll(computers);
+        Random random = new Random(11);
+        List<Computer> remaining = new ArrayList<>(computers);
+        while (!remaining.isEmpty()) {
+            table = table.without(remaining.remove(random.nextInt(remaining.size())));
+            if (remaining.size() % 500 == 0) {
+                remaining.sort((first, second) -> Integer.compareUnsigned(first.getAddress(), second.getAddress()));
+                assertEquals(remaining, table.view());
+            }
+        }
+        assertSame(HostTable.empty(), table);
+    }
+
+    @Test
+    public void testNextFreeSkipsRunsOfUsedAddresses() {
+        Subnet subnet = new Subnet("10.0.0.0/12");
+        int base = 0x0a000000;
+        List<Computer> computers = new ArrayList<>();
+        for (int offset = 0; offset < 70000; offset++) {
+            computers.add(new Computer(base + offset, subnet));
+        }
+        HostTable table = HostTable.empty().withAll(computers);
+        long first = IpAddress.toUnsigned(base);
+        long end = first + (1L << 20);
+        assertEquals(70000, table.countBetween(first, end - 1));
+        assertEquals(first + 70000, table.nextFree(first, end));
+
+        table = table.without(computers.get(300));
+        assertEquals(first + 300, table.nextFree(first, end));
+        assertEquals(first + 70000, table.nextFree(first + 301, end));
+        assertEquals(-1, table.nextFree(first + 301, first + 70000));
+        assertEquals(69999, table.countBetween(first, end - 1));
+        assertEquals(10, table.countBetween(first + 295, first + 305));
+    }
+
+    @Test
+    public void testRouterFollowsTheTable() {
+        Subnet subnet = new Subnet("10.0.0.0/24");
+        Router router = new Router("R", "10.0.0.1", subnet);
+        HostTable table = HostTable.empty().with(router).with(new Computer("10.0.0.2", subnet));
+        assertSame(router, table.getRouter());
+        assertNull(table.without(router).getRouter());
+        assertNull(table.with(new Computer("10.0.0.1", subnet)).getRouter());
+    }
+}
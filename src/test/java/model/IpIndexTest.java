@@ -0,0 +1,56 @@
+package model;
+
+import helpers.IpAddress;
+
+import org.junit.jupiter.api.Test;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IpIndexTest {
+
+    @Test
+    public void testPutKeepsOldVersion() {
+        Subnet subnet = new Subnet("0.0.0.0/0");
+        Computer first = new Computer("0.0.0.0", subnet);
+        Computer second = new Computer("255.255.255.255", subnet);
+        IpIndex one = IpIndex.empty().put(first.getAddress(), first);
+        IpIndex two = one.put(second.getAddress(), second);
+
+        assertEquals(0, IpIndex.empty().size());
+        assertNull(one.get(second.getAddress()));
+        assertSame(first, two.get(first.getAddress()));
+        assertSame(second, two.get(second.getAddress()));
+        assertSame(two, two.remove(12345));
+    }
+
+    @Test
+    public void testMatchesHashMap() {
+        Subnet subnet = new Subnet("10.0.0.0/8");
+        Random random = new Random(42);
+        Map<Integer, SystemNode> expected = new HashMap<>();
+        IpIndex index = IpIndex.empty();
+        for (int i = 0; i < 50000; i++) {
+            int address = 0x0a000000 | random.nextInt(8000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(address);
+                index = index.remove(address);
+            } else {
+                Computer computer = new Computer(IpAddress.format(address), subnet);
+                expected.put(address, computer);
+                index = index.put(address, computer);
+            }
+        }
+
+        assertEquals(expected.size(), index.size());
+        for (Map.Entry<Integer, SystemNode> entry : expected.entrySet()) {
+            assertSame(entry.getValue(), index.get(entry.getKey()));
+        }
+        Map<Integer, SystemNode> iterated = new HashMap<>();
+        for (SystemNode system : index) {
+            iterated.put(system.getAddress(), system);
+        }
+        assertEquals(expected, iterated);
+    }
+}
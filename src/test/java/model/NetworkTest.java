@@ -1,8 +1,15 @@
 package model;
 
+import helpers.IpAddress;
+import helpers.NetworkLoader;
+import helpers.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class NetworkTest {
@@ -20,8 +27,6 @@ public void setUp() {
 
         r1 = new Router("R1", "10.0.1.1", subnet1);
         r2 = new Router("R2", "10.0.2.1", subnet2);
-        subnet1.addSystem(r1);
-        subnet2.addSystem(r2);
         network.addSystem(r1);
         network.addSystem(r2);
     }
@@ -38,6 +43,165 @@ public void testBGPPropagatesRoutes() {
         assertEquals("10.0.2.1", path.get(1));
     }
 
+    @Test
+    public void testTopologyEventsArePublishedPerChange() throws InterruptedException {
+        BlockingQueue<List<TopologyEvent>> batches = new LinkedBlockingQueue<>();
+        network.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(List<TopologyEvent> batch) {
+                batches.add(batch);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        Connection conn = new Connection(r1, r2, null);
+        network.addConnection(conn);
+
+        // The connection and the routes it creates arrive together in one batch.
+        List<TopologyEvent> batch = batches.poll(5, TimeUnit.SECONDS);
+        assertNotNull(batch);
+        assertEquals(TopologyEvent.Type.CONNECTION_ADDED, batch.get(0).getType());
+        assertSame(conn, batch.get(0).getConnection());
+        assertEquals(3, batch.size());
+        for (TopologyEvent event : batch.subList(1, batch.size())) {
+            assertEquals(TopologyEvent.Type.ROUTE_CHANGED, event.getType());
+            assertEquals(network.getSnapshot().getVersion(), event.getVersion());
+        }
+
+        network.removeSystem(r2);
+        batch = batches.poll(5, TimeUnit.SECONDS);
+        assertNotNull(batch);
+        assertEquals(TopologyEvent.Type.CONNECTION_REMOVED, batch.get(0).getType());
+        assertEquals(TopologyEvent.Type.SYSTEM_REMOVED, batch.get(1).getType());
+    }
+
+    @Test
+    public void testCommitConvergesOnceAndPublishesAtOnce() throws InterruptedException {
+        Computer pc = new Computer("10.0.1.5", subnet1);
+        long convergences = network.getStatistics().getCount(Statistics.BGP_CONVERGENCE);
+        NetworkSnapshot before = network.getSnapshot();
+
+        assertTrue(network.begin());
+        assertFalse(network.begin());
+        network.addConnection(new Connection(r1, r2, null));
+        network.addSystem(pc);
+        network.addConnection(new Connection(r1, pc, 3));
+        assertTrue(network.getSnapshot().connectionExists(r1, r2));
+
+        // Other threads still see the last committed snapshot.
+        NetworkSnapshot[] seen = new NetworkSnapshot[1];
+        Thread reader = new Thread(() -> seen[0] = network.getSnapshot());
+        reader.start();
+        reader.join();
+        assertSame(before, seen[0]);
+
+        assertNull(network.validateTransaction());
+        network.commit();
+        assertFalse(network.isInTransaction());
+        assertEquals(convergences + 1, network.getStatistics().getCount(Statistics.BGP_CONVERGENCE));
+        assertTrue(network.getSnapshot().getRoutingTable(r1).containsKey("10.0.2.0/24"));
+        assertTrue(network.getSnapshot().connectionExists(r1, pc));
+    }
+
+    @Test
+    public void testOpenTransactionBlocksNoOtherWriter() throws InterruptedException {
+        Computer pc = new Computer("10.0.1.5", subnet1);
+        Computer other = new Computer("10.0.1.6", subnet1);
+        network.begin();
+        network.addSystem(pc);
+
+        Thread writer = new Thread(() -> network.addSystem(other));
+        writer.start();
+        writer.join(5000);
+        assertFalse(writer.isAlive());
+        assertNull(network.getSystemByIp("10.0.1.6"));
+
+        // The first commit wins, the transaction would overwrite it.
+        assertFalse(network.commit());
+        assertFalse(network.isInTransaction());
+        assertNotNull(network.getSystemByIp("10.0.1.6"));
+        assertNull(network.getSystemByIp("10.0.1.5"));
+    }
+
+    @Test
+    public void testRollbackRestoresNetworkAndSubnets() {
+        Computer pc = new Computer("10.0.1.5", subnet1);
+        NetworkSnapshot before = network.getSnapshot();
+
+        network.begin();
+        network.addSystem(pc);
+        network.removeSystem(r2);
+        assertFalse(network.getSnapshot().getSystems(subnet2).contains(r2));
+        assertNull(network.getSnapshot().getRouter(subnet2));
+        network.rollback();
+
+        assertSame(before, network.getSnapshot());
+        assertFalse(network.getSnapshot().getSystems(subnet1).contains(pc));
+        assertTrue(network.getSnapshot().getSystems(subnet2).contains(r2));
+        assertSame(r2, network.getSnapshot().getRouter(subnet2));
+    }
+
+    @Test
+    public void testOtherThreadsSeeNoMembersOfAnOpenTransaction() throws Exception {
+        Computer pc = new Computer("10.0.1.5", subnet1);
+        network.begin();
+        network.addSystem(pc);
+        network.removeSystem(r2);
+        BlockingQueue<NetworkSnapshot> seen = new LinkedBlockingQueue<>();
+        Thread reader = new Thread(() -> seen.add(network.getSnapshot()));
+        reader.start();
+        NetworkSnapshot other = seen.poll(5, TimeUnit.SECONDS);
+        network.rollback();
+
+        assertEquals(List.of(r1), other.getSystems(subnet1));
+        assertEquals(List.of(r2), other.getSystems(subnet2));
+        assertSame(r2, other.getRouter(subnet2));
+        assertEquals(1, other.getUsedAddressCount(subnet1));
+    }
+
+    @Test
+    public void testSnapshotTracksUsedAddresses() {
+        Subnet small = new Subnet("10.0.3.0/30");
+        network.addSubnet(small);
+        assertEquals(2, small.getHostAddressCount());
+        network.addSystem(new Router("R3", "10.0.3.1", small));
+        assertEquals("10.0.3.2", IpAddress.format((int) network.getSnapshot().findFreeAddress(small)));
+        Computer computer = new Computer("10.0.3.2", small);
+        network.addSystem(computer);
+        assertEquals(IpAddress.INVALID, network.getSnapshot().findFreeAddress(small));
+        network.removeSystem(computer);
+        assertEquals(1, network.getSnapshot().getUsedAddressCount(small));
+    }
+
+    @Test
+    public void testLoadedNetworkIsPublishedConvergedWithAdjacency() {
+        Network loaded = new NetworkLoader().loadNetwork("src/main/resources/example1");
+        // The loader converges the routing once, not for every connection between routers.
+        assertEquals(1, loaded.getStatistics().getCount(Statistics.BGP_CONVERGENCE));
+        NetworkSnapshot before = network.getSnapshot();
+        network.replaceWith(loaded);
+
+        NetworkSnapshot after = network.getSnapshot();
+        assertTrue(after.getVersion() > before.getVersion());
+        assertNull(before.getSystemByIp("192.168.1.1"));
+        SystemNode router = after.getSystemByIp("192.168.1.1");
+        assertEquals(4, after.getConnections(router).size());
+        assertTrue(after.getRoutingTable((Router) router).containsKey("192.168.100.0/24"));
+        SubnetGraph graph = after.getSubnetGraph(router.getSubnet());
+        assertEquals(3, graph.getEdgeEnd(0) - graph.getEdgeStart(0));
+    }
+
     @Test
     public void testAdjacencyListUpdates() {
         Connection conn = new Connection(r1, r2, null);
@@ -49,4 +213,48 @@ public void testAdjacencyListUpdates() {
         // Routing table should be reset
         assertFalse(r1.getRoutingTable().containsKey("10.0.2.0/24"));
     }
+
+    @Test
+    public void testSnapshotIsNotAffectedByLaterChanges() {
+        NetworkSnapshot before = network.getSnapshot();
+        network.addConnection(new Connection(r1, r2, null));
+        NetworkSnapshot after = network.getSnapshot();
+
+        assertTrue(after.getVersion() > before.getVersion());
+        assertFalse(before.connectionExists(r1, r2));
+        assertFalse(before.getRoutingTable(r1).containsKey("10.0.2.0/24"));
+        assertTrue(after.connectionExists(r1, r2));
+        assertTrue(after.getRoutingTable(r1).containsKey("10.0.2.0/24"));
+    }
+
+    @Test
+    public void testSubnetGraphIsSortedAndSharedUntilSubnetChanges() {
+        Computer pc1 = new Computer("10.0.1.20", subnet1);
+        Computer pc2 = new Computer("10.0.1.3", subnet1);
+        network.addSystem(pc1);
+        network.addSystem(pc2);
+        network.addConnection(new Connection(r1, pc1, 4));
+        network.addConnection(new Connection(pc1, pc2, 2));
+
+        SubnetGraph graph = network.getSnapshot().getSubnetGraph(subnet1);
+        assertEquals(3, graph.size());
+        assertEquals(r1, graph.getNode(0));
+        assertEquals(pc2, graph.getNode(1));
+        assertEquals(pc1, graph.getNode(2));
+        assertEquals(0, graph.getRouterIndex());
+        assertEquals(2, graph.getEdgeEnd(2) - graph.getEdgeStart(2));
+        assertEquals("PC_10_0_1_20", pc1.getName());
+
+        // A connection between routers does not change the graphs of the subnets.
+        network.addConnection(new Connection(r1, r2, null));
+        assertSame(graph, network.getSnapshot().getSubnetGraph(subnet1));
+        assertTrue(network.removeConnection(pc1, pc2));
+        assertNotSame(graph, network.getSnapshot().getSubnetGraph(subnet1));
+
+        // Missing connections are reported to the caller and leave the snapshot as it is.
+        NetworkSnapshot unchanged = network.getSnapshot();
+        assertFalse(network.removeConnection(pc1, pc2));
+        assertFalse(network.updateConnection(pc1, pc2, 3));
+        assertSame(unchanged, network.getSnapshot());
+    }
 }
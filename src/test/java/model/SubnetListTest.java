@@ -0,0 +1,50 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SubnetListTest {
+
+    @Test
+    public void testKeepsSortOrderAndOlderVersions() {
+        Subnet wide = new Subnet("10.0.0.0/8");
+        Subnet narrow = new Subnet("10.0.0.0/16");
+        Subnet low = new Subnet("1.0.0.0/8");
+        SubnetList one = SubnetList.empty().with(wide);
+        SubnetList three = one.with(narrow).with(low);
+
+        assertEquals(List.of(wide), one);
+        assertEquals(List.of(low, wide, narrow).stream().sorted(Comparator.comparingLong(Subnet::getSortKey))
+            .toList(), three);
+        assertSame(three, three.without(new Subnet("10.0.0.0/8")));
+        assertEquals(2, three.without(wide).size());
+        assertEquals(3, three.size());
+        assertSame(low, three.get(0));
+    }
+
+    @Test
+    public void testMatchesSortedList() {
+        Random random = new Random(11);
+        List<Subnet> expected = new ArrayList<>();
+        SubnetList list = SubnetList.empty();
+        for (int i = 0; i < 5000; i++) {
+            if (!expected.isEmpty() && random.nextInt(3) == 0) {
+                Subnet removed = expected.remove(random.nextInt(expected.size()));
+                list = list.without(removed);
+            } else {
+                Subnet added = new Subnet((random.nextInt(223) + 1) + "." + random.nextInt(256) + ".0.0/16");
+                if (expected.stream().noneMatch(subnet -> subnet.getSortKey() == added.getSortKey())) {
+                    expected.add(added);
+                    list = list.with(added);
+                }
+            }
+        }
+        expected.sort(Comparator.comparingLong(Subnet::getSortKey));
+        assertEquals(expected, list);
+        assertEquals(expected, new ArrayList<>(list));
+    }
+}
@@ -0,0 +1,112 @@
+package server;
+
+import model.Network;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CommandServerTest {
+    private static final String EXAMPLE = "src/main/resources/example1";
+    private static final int TIMEOUT_MILLIS = 10_000;
+    private Network network;
+    private CommandServer server;
+    private Thread serving;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        network = new Network();
+        server = CommandServer.openTcp(network, 0);
+        serving = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        serving.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException, InterruptedException {
+        server.close();
+        serving.join(TIMEOUT_MILLIS);
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket();
+        socket.connect(server.getAddress());
+        socket.setSoTimeout(TIMEOUT_MILLIS);
+        return socket;
+    }
+
+    // Reads one response: the number of lines, then the lines.
+    private static List<String> readResponse(BufferedReader reader) throws IOException {
+        int count = Integer.parseInt(reader.readLine());
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            lines.add(reader.readLine());
+        }
+        return lines;
+    }
+
+    @Test
+    public void testPipelinedRequestsAreAnsweredInOrder() throws IOException {
+        List<String> file = Files.readAllLines(Path.of(EXAMPLE));
+        try (Socket socket = connect();
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                 StandardCharsets.UTF_8))) {
+            OutputStream out = socket.getOutputStream();
+            // All requests are sent before the first response is read.
+            out.write(("load network " + EXAMPLE + "\nlist subnets\nnot a command\n\nstats\n"
+                + "send packet 192.168.1.2 192.168.1.3\nquit\nlist subnets\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            assertEquals(file, readResponse(reader));
+            assertEquals(List.of("10.0.0.0/16 172.16.0.0/24 192.168.1.0/24 192.168.100.0/24"), readResponse(reader));
+            assertEquals(List.of("Error, Unknown command."), readResponse(reader));
+            assertEquals(List.of(), readResponse(reader));
+            assertTrue(readResponse(reader).size() > 1);
+            assertEquals(List.of("192.168.1.2 192.168.1.3"), readResponse(reader));
+            assertEquals(List.of(), readResponse(reader));
+            // Nothing is answered after quit.
+            assertNull(reader.readLine());
+        }
+    }
+
+    @Test
+    public void testOpenTransactionIsRolledBackOnDisconnect() throws IOException {
+        try (Socket socket = connect();
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                 StandardCharsets.UTF_8))) {
+            socket.getOutputStream().write(("load network " + EXAMPLE + "\nbegin\nadd computer 10.0.0.0/16 10.0.0.99\n")
+                .getBytes(StandardCharsets.UTF_8));
+            readResponse(reader);
+            assertEquals(List.of(), readResponse(reader));
+            assertEquals(List.of(), readResponse(reader));
+        }
+        // A second client can change the network once the first one is gone, and never saw its change.
+        try (Socket socket = connect();
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                 StandardCharsets.UTF_8))) {
+            socket.getOutputStream().write("add computer 10.0.0.0/16 10.0.0.98\nquit\n"
+                .getBytes(StandardCharsets.UTF_8));
+            assertEquals(List.of(), readResponse(reader));
+            assertEquals(List.of(), readResponse(reader));
+        }
+        assertNull(network.getSystemByIp("10.0.0.99"));
+        assertNotNull(network.getSystemByIp("10.0.0.98"));
+    }
+}